@@ -40,6 +40,18 @@ const Home = () => {
     loadChatSessions();
   }, []);
 
+  // Debounced prefetch so retrieval is already warm when the message is sent
+  useEffect(() => {
+    const draft = inputMessage.trim();
+    if (draft.length < 12 || loading) return;
+
+    const timer = setTimeout(() => {
+      chatService.prefetchDraft(draft);
+    }, 400);
+
+    return () => clearTimeout(timer);
+  }, [inputMessage, loading]);
+
   const loadChatSessions = async () => {
     setLoadingSessions(true);
     const result = await chatService.getChatSessions();
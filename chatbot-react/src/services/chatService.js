@@ -23,6 +23,16 @@ const chatService = {
     }
   },
 
+  // Warm retrieval for a draft while the user is still typing (fire and forget)
+  async prefetchDraft(draft) {
+    try {
+      await api.post('/api/chat/prefetch', { draft });
+      return { success: true };
+    } catch (error) {
+      return { success: false };
+    }
+  },
+
   // Create a new chat session
   async createNewChatSession(title = 'New Chat') {
     try {
@@ -0,0 +1,114 @@
+package com.ali.chatbotsb.benchmark;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares how many chat turns the blocking MVC endpoint and the streaming endpoint sustain concurrently.
+ * Start the application with the {@code reactive} profile, then run:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.args="http://localhost:8080 &lt;access-token&gt; 50,100,200"
+ * </pre>
+ * For every concurrency level both endpoints get the same burst of simultaneous requests; the report shows
+ * completed and failed turns, time to first byte and total latency percentiles.
+ */
+public class ChatConcurrencyBenchmark {
+
+    private static final String MESSAGE = "What are the common symptoms of iron deficiency anemia?";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ChatConcurrencyBenchmark <base-url> <access-token> [concurrency,...]");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        String token = args[1];
+        String[] levels = (args.length > 2 ? args[2] : "25,50,100").split(",");
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        System.out.printf("%-8s %-12s %9s %7s %10s %10s %10s%n",
+                "endpoint", "concurrency", "completed", "failed", "ttfb p50", "total p50", "total p95");
+        for (String level : levels) {
+            int concurrency = Integer.parseInt(level.trim());
+            report("mvc", concurrency, run(client, URI.create(baseUrl + "/api/chat/message"), token, concurrency, "application/json"));
+            report("stream", concurrency, run(client, URI.create(baseUrl + "/api/chat/stream"), token, concurrency, "text/event-stream"));
+        }
+    }
+
+    private static Result run(HttpClient client, URI uri, String token, int concurrency, String accept) {
+        List<Long> firstByte = Collections.synchronizedList(new ArrayList<>());
+        List<Long> total = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failed = new AtomicInteger();
+
+        String body = "{\"message\":\"" + MESSAGE + "\"}";
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMinutes(3))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", accept)
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            long start = System.nanoTime();
+            requests.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            failed.incrementAndGet();
+                            return;
+                        }
+                        try (InputStream in = response.body()) {
+                            if (in.read() < 0) {
+                                failed.incrementAndGet();
+                                return;
+                            }
+                            firstByte.add(System.nanoTime() - start);
+                            in.transferTo(OutputStream.nullOutputStream());
+                            total.add(System.nanoTime() - start);
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                    })
+                    .exceptionally(e -> {
+                        failed.incrementAndGet();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+        return new Result(total.size(), failed.get(), new ArrayList<>(firstByte), new ArrayList<>(total));
+    }
+
+    private static void report(String endpoint, int concurrency, Result result) {
+        System.out.printf("%-8s %-12d %9d %7d %8dms %8dms %8dms%n", endpoint, concurrency,
+                result.completed(), result.failed(),
+                percentile(result.firstByteNanos(), 0.5), percentile(result.totalNanos(), 0.5),
+                percentile(result.totalNanos(), 0.95));
+    }
+
+    private static long percentile(List<Long> nanos, double percentile) {
+        if (nanos.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(nanos);
+        int index = (int) Math.min(nanos.size() - 1, Math.ceil(percentile * nanos.size()) - 1);
+        return Duration.ofNanos(nanos.get(Math.max(0, index))).toMillis();
+    }
+
+    private record Result(int completed, int failed, List<Long> firstByteNanos, List<Long> totalNanos) {
+    }
+}
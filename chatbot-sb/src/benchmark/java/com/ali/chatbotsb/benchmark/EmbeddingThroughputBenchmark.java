@@ -0,0 +1,107 @@
+package com.ali.chatbotsb.benchmark;
+
+import com.ali.chatbotsb.embedding.OnnxEmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.ai.transformers.ResourceCacheService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedding throughput of the in-process ONNX model against Ollama over HTTP, for single queries one after
+ * another, concurrent single queries (where micro-batching applies) and ingestion-sized batches of chunks.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dbenchmark.main=com.ali.chatbotsb.benchmark.EmbeddingThroughputBenchmark \
+ *     -Dexec.args="http://localhost:11434 mxbai-embed-large 4"
+ * </pre>
+ * Arguments are the Ollama base URL, the Ollama model and the ONNX intra-op thread count; pass {@code -} as the
+ * URL to benchmark ONNX only. The ONNX model is mxbai-embed-large-v1, downloaded to ./data/models.
+ */
+public class EmbeddingThroughputBenchmark {
+
+    private static final String QUERY = "What is the recommended starting dose of metformin for type 2 diabetes?";
+    private static final int SEQUENTIAL_QUERIES = 50;
+    private static final int CONCURRENT_QUERIES = 200;
+    private static final int CONCURRENCY = 16;
+    private static final int INGEST_BATCHES = 5;
+    private static final int INGEST_BATCH_SIZE = 64;
+
+    public static void main(String[] args) throws Exception {
+        String ollamaUrl = args.length > 0 ? args[0] : "http://localhost:11434";
+        String ollamaModel = args.length > 1 ? args[1] : "mxbai-embed-large";
+        int intraOpThreads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < INGEST_BATCH_SIZE; i++) {
+            // About 1000 characters, the ingestion chunk size
+            chunks.add(("Chunk " + i + ": Metformin is first-line therapy for type 2 diabetes. The usual starting dose "
+                    + "is 500 mg once or twice daily with meals, titrated by 500 mg weekly to reduce gastrointestinal "
+                    + "side effects. ").repeat(4));
+        }
+
+        ResourceCacheService cache = new ResourceCacheService("./data/models");
+        try (OnnxEmbeddingModel onnx = OnnxEmbeddingModel.builder()
+                .tokenizerResource(cache.getCachedResource("https://huggingface.co/mixedbread-ai/mxbai-embed-large-v1/resolve/main/tokenizer.json"))
+                .modelResource(cache.getCachedResource("https://huggingface.co/mixedbread-ai/mxbai-embed-large-v1/resolve/main/onnx/model.onnx"))
+                .intraOpThreads(intraOpThreads)
+                .maxBatchDelay(Duration.ofMillis(2))
+                .build()) {
+            System.out.printf("%-8s %16s %18s %18s%n", "model", "sequential q/s", "concurrent q/s", "ingest chunks/s");
+            report("onnx", onnx, chunks);
+        }
+
+        if (!"-".equals(ollamaUrl)) {
+            EmbeddingModel ollama = OllamaEmbeddingModel.builder()
+                    .ollamaApi(OllamaApi.builder().baseUrl(ollamaUrl).build())
+                    .defaultOptions(OllamaOptions.builder().model(ollamaModel).build())
+                    .build();
+            report("ollama", ollama, chunks);
+        }
+    }
+
+    private static void report(String name, EmbeddingModel model, List<String> chunks) throws Exception {
+        // Warm up the model and the connection
+        model.embed(QUERY);
+        model.embed(chunks.subList(0, 8));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SEQUENTIAL_QUERIES; i++) {
+            model.embed(QUERY + " " + i);
+        }
+        double sequential = SEQUENTIAL_QUERIES / seconds(start);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<CompletableFuture<float[]>> futures = Collections.synchronizedList(new ArrayList<>());
+            start = System.nanoTime();
+            for (int i = 0; i < CONCURRENT_QUERIES; i++) {
+                String query = QUERY + " " + i;
+                futures.add(CompletableFuture.supplyAsync(() -> model.embed(query), executor));
+            }
+            futures.forEach(CompletableFuture::join);
+        } finally {
+            executor.shutdown();
+        }
+        double concurrent = CONCURRENT_QUERIES / seconds(start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < INGEST_BATCHES; i++) {
+            model.embed(chunks);
+        }
+        double ingest = INGEST_BATCHES * chunks.size() / seconds(start);
+
+        System.out.printf("%-8s %16.1f %18.1f %18.1f%n", name, sequential, concurrent, ingest);
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+}
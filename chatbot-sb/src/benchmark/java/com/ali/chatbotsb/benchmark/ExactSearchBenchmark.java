@@ -0,0 +1,106 @@
+package com.ali.chatbotsb.benchmark;
+
+import com.ali.chatbotsb.vectorstore.DotProductKernel;
+import com.ali.chatbotsb.vectorstore.ScalarDotProductKernel;
+import com.ali.chatbotsb.vectorstore.SimdDotProductKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Exact top-1 search over a contiguous matrix of normalized vectors (100k x 1024 by default),
+ * SIMD dot products against the scalar loop, on one core and split across all cores.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@jmh -Djmh.args="ExactSearchBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx2g"})
+public class ExactSearchBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"1024"})
+    private int dimensions;
+
+    @Param({"scalar", "simd"})
+    private String kernelName;
+
+    private DotProductKernel kernel;
+    private float[] matrix;
+    private float[] query;
+
+    @Setup
+    public void setUp() {
+        kernel = "simd".equals(kernelName) ? new SimdDotProductKernel() : new ScalarDotProductKernel();
+        SplittableRandom random = new SplittableRandom(42);
+        matrix = new float[rows * dimensions];
+        for (int row = 0; row < rows; row++) {
+            normalizeInto(random, matrix, row * dimensions, dimensions);
+        }
+        query = new float[dimensions];
+        normalizeInto(random, query, 0, dimensions);
+    }
+
+    @Benchmark
+    public int singleThreaded() {
+        return bestRow(0, rows);
+    }
+
+    @Benchmark
+    public int parallel() {
+        int slices = Runtime.getRuntime().availableProcessors();
+        int sliceSize = (rows + slices - 1) / slices;
+        return IntStream.range(0, slices).parallel()
+                .map(slice -> bestRow(slice * sliceSize, Math.min(rows, (slice + 1) * sliceSize)))
+                .reduce((a, b) -> score(a) >= score(b) ? a : b)
+                .orElse(-1);
+    }
+
+    private int bestRow(int from, int to) {
+        int best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int row = from; row < to; row++) {
+            float score = kernel.dot(matrix, row * dimensions, query);
+            if (score > bestScore) {
+                bestScore = score;
+                best = row;
+            }
+        }
+        return best;
+    }
+
+    private float score(int row) {
+        return row < 0 ? Float.NEGATIVE_INFINITY : kernel.dot(matrix, row * dimensions, query);
+    }
+
+    private static void normalizeInto(SplittableRandom random, float[] target, int offset, int length) {
+        double norm = 0;
+        for (int i = 0; i < length; i++) {
+            float value = (float) (random.nextDouble() * 2 - 1);
+            target[offset + i] = value;
+            norm += value * value;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < length; i++) {
+            target[offset + i] *= scale;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.ali.chatbotsb.benchmark;
+
+import com.ali.chatbotsb.utils.VectorMath;
+import com.ali.chatbotsb.vectorstore.HnswVectorStore;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * HNSW graph build from precomputed vectors, one insert at a time against fork/join bulk linking on all cores:
+ * build throughput, peak heap, size of the mapped files and recall@k of the resulting graph against brute force.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dbenchmark.main=com.ali.chatbotsb.benchmark.HnswBuildBenchmark \
+ *     -Dexec.args="100000 384 50000 100 10"
+ * </pre>
+ * Arguments are vectors, dimensions, vectors per write, recall queries and k. For the 1M run pass
+ * {@code "1000000 384 50000 100 10"} and skip the single-threaded build with a sixth argument {@code parallel}.
+ */
+public class HnswBuildBenchmark {
+
+    private static final int CLUSTERS = 256;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        int vectors = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int dimensions = args.length > 1 ? Integer.parseInt(args[1]) : 384;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        int queries = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int k = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        boolean parallelOnly = args.length > 5 && "parallel".equals(args[5]);
+
+        float[][] centres = centres(dimensions);
+        List<float[]> queryVectors = new ArrayList<>(queries);
+        for (int q = 0; q < queries; q++) {
+            queryVectors.add(vector(centres, -q - 1L));
+        }
+        List<Set<String>> truth = groundTruth(centres, vectors, queryVectors, k);
+
+        System.out.printf("%-12s %8s %12s %14s %14s %12s %10s%n",
+                "build", "threads", "seconds", "vectors/s", "peak heap MB", "mapped MB", "recall");
+        if (!parallelOnly) {
+            run("sequential", 1, Integer.MAX_VALUE, centres, vectors, batchSize, queryVectors, truth, k);
+        }
+        run("bulk", Runtime.getRuntime().availableProcessors(), 1, centres, vectors, batchSize, queryVectors, truth, k);
+    }
+
+    private static void run(String name, int threads, int bulkBuildThreshold, float[][] centres, int vectors,
+                            int batchSize, List<float[]> queryVectors, List<Set<String>> truth, int k)
+            throws IOException {
+        Path directory = Files.createTempDirectory("hnsw-build-" + name);
+        System.gc();
+        resetPeakHeap();
+        try (HnswVectorStore store = HnswVectorStore.builder(new UnusedEmbeddingModel(centres[0].length))
+                .dataDirectory(directory)
+                .dimensions(centres[0].length)
+                .buildParallelism(threads)
+                .bulkBuildThreshold(bulkBuildThreshold)
+                .build()) {
+            long start = System.nanoTime();
+            for (int from = 0; from < vectors; from += batchSize) {
+                int to = Math.min(vectors, from + batchSize);
+                List<Document> documents = new ArrayList<>(to - from);
+                List<float[]> embeddings = new ArrayList<>(to - from);
+                for (int row = from; row < to; row++) {
+                    documents.add(Document.builder().id("doc-" + row).text(Integer.toString(row)).build());
+                    embeddings.add(vector(centres, row));
+                }
+                store.addEmbedded(documents, embeddings);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            double recall = 0;
+            for (int q = 0; q < queryVectors.size(); q++) {
+                Set<String> found = new HashSet<>();
+                store.searchEmbedded(SearchRequest.builder().query("").topK(k).similarityThresholdAll().build(),
+                        queryVectors.get(q)).forEach(document -> found.add(document.getId()));
+                found.retainAll(truth.get(q));
+                recall += (double) found.size() / k;
+            }
+
+            System.out.printf("%-12s %8d %12.1f %14.0f %14.1f %12.1f %10.3f%n", name, threads, seconds,
+                    vectors / seconds, peakHeap() / (1024.0 * 1024.0), mappedBytes(directory) / (1024.0 * 1024.0),
+                    recall / queryVectors.size());
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Exact top-k ids of every query, rows are regenerated from their seed instead of being held in memory
+     */
+    private static List<Set<String>> groundTruth(float[][] centres, int vectors, List<float[]> queryVectors, int k) {
+        float[][] normalizedQueries = queryVectors.stream().map(VectorMath::normalize).toArray(float[][]::new);
+        float[][] best = new float[normalizedQueries.length][k];
+        int[][] bestRows = new int[normalizedQueries.length][k];
+        for (float[] scores : best) {
+            Arrays.fill(scores, Float.NEGATIVE_INFINITY);
+        }
+        Object[] monitors = IntStream.range(0, normalizedQueries.length).mapToObj(q -> new Object()).toArray();
+        IntStream.range(0, vectors).parallel().forEach(row -> {
+            float[] vector = VectorMath.normalize(vector(centres, row));
+            for (int q = 0; q < normalizedQueries.length; q++) {
+                float score = VectorMath.dot(vector, normalizedQueries[q]);
+                synchronized (monitors[q]) {
+                    int weakest = 0;
+                    for (int i = 1; i < k; i++) {
+                        if (best[q][i] < best[q][weakest]) {
+                            weakest = i;
+                        }
+                    }
+                    if (score > best[q][weakest]) {
+                        best[q][weakest] = score;
+                        bestRows[q][weakest] = row;
+                    }
+                }
+            }
+        });
+        List<Set<String>> truth = new ArrayList<>(normalizedQueries.length);
+        for (int[] rows : bestRows) {
+            Set<String> ids = new HashSet<>();
+            for (int row : rows) {
+                ids.add("doc-" + row);
+            }
+            truth.add(ids);
+        }
+        return truth;
+    }
+
+    private static float[][] centres(int dimensions) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        float[][] centres = new float[CLUSTERS][dimensions];
+        for (float[] centre : centres) {
+            for (int i = 0; i < dimensions; i++) {
+                centre[i] = (float) random.nextGaussian();
+            }
+        }
+        return centres;
+    }
+
+    /**
+     * Noisy point around one of the cluster centres, closer to real sentence embeddings than uniform noise
+     */
+    private static float[] vector(float[][] centres, long n) {
+        SplittableRandom random = new SplittableRandom(SEED * 31 + n);
+        float[] centre = centres[random.nextInt(CLUSTERS)];
+        float[] vector = new float[centre.length];
+        for (int i = 0; i < centre.length; i++) {
+            vector[i] = centre[i] + 0.5f * (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long mappedBytes(Path directory) throws IOException {
+        long bytes = 0;
+        for (String file : List.of("vectors.bin", "hnsw.links")) {
+            bytes += Files.size(directory.resolve(file));
+        }
+        return bytes;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Vectors are added precomputed, so the store never calls its embedding model
+     */
+    private static final class UnusedEmbeddingModel implements EmbeddingModel {
+
+        private final int dimensions;
+
+        private UnusedEmbeddingModel(int dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException("Benchmark adds precomputed vectors");
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            throw new UnsupportedOperationException("Benchmark adds precomputed vectors");
+        }
+
+        @Override
+        public int dimensions() {
+            return dimensions;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ali.chatbotsb.benchmark;
+
+import com.ali.chatbotsb.vectorstore.ExactVectorStore;
+import com.ali.chatbotsb.vectorstore.Quantization;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Memory footprint, recall@k and search latency of the exact store with float, int8 and product-quantized rows
+ * over the same synthetic clustered embeddings.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dbenchmark.main=com.ali.chatbotsb.benchmark.QuantizationBenchmark \
+ *     -Dexec.args="20000 1024 100 10"
+ * </pre>
+ * Arguments are rows, dimensions, recall queries and k. Run with {@code --add-modules jdk.incubator.vector}
+ * in {@code MAVEN_OPTS} to score with SIMD.
+ */
+public class QuantizationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int dimensions = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int k = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        SyntheticEmbeddingModel embeddingModel = new SyntheticEmbeddingModel(dimensions, 42);
+        List<Document> documents = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            documents.add(Document.builder().id("doc-" + row).text(Integer.toString(row)).build());
+        }
+
+        System.out.printf("%-16s %10s %12s %8s %12s %14s %12s%n",
+                "encoding", "bytes/vec", "memory MB", "ratio", "recall codes", "recall rescored", "search ms");
+        for (Quantization quantization : Quantization.values()) {
+            Path directory = Files.createTempDirectory("quantization-" + quantization.name().toLowerCase());
+            try (ExactVectorStore store = ExactVectorStore.builder(embeddingModel)
+                    .dataDirectory(directory)
+                    .dimensions(dimensions)
+                    .quantization(quantization)
+                    .pqSubspaces(dimensions / 4)
+                    .pqTrainingThreshold(Math.min(4096, rows))
+                    .pqTrainingSample(4096)
+                    .build()) {
+                for (int from = 0; from < rows; from += 1000) {
+                    store.add(documents.subList(from, Math.min(rows, from + 1000)));
+                }
+
+                ExactVectorStore.QuantizationReport report = store.quantizationReport(queries, k);
+                System.out.printf("%-16s %10d %12.1f %7.1fx %12.3f %14.3f %12.2f%n",
+                        report.encoding(), report.bytesPerVector(), report.memoryBytes() / (1024.0 * 1024.0),
+                        report.compressionRatio(), report.codeRecall(), report.rescoredRecall(),
+                        searchMillis(store, queries, k));
+            } finally {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    private static double searchMillis(ExactVectorStore store, int queries, int k) {
+        long start = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            store.similaritySearch(SearchRequest.builder().query(Integer.toString(-q - 1)).topK(k).build());
+        }
+        return (System.nanoTime() - start) / 1e6 / queries;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Embeds the decimal text {@code n} as a noisy point around one of a fixed set of cluster centres, which is
+     * closer to real sentence embeddings than uniform noise
+     */
+    private static final class SyntheticEmbeddingModel implements EmbeddingModel {
+
+        private static final int CLUSTERS = 256;
+
+        private final int dimensions;
+        private final float[][] centres;
+        private final long seed;
+
+        private SyntheticEmbeddingModel(int dimensions, long seed) {
+            this.dimensions = dimensions;
+            this.seed = seed;
+            SplittableRandom random = new SplittableRandom(seed);
+            this.centres = new float[CLUSTERS][dimensions];
+            for (float[] centre : centres) {
+                for (int i = 0; i < dimensions; i++) {
+                    centre[i] = (float) random.nextGaussian();
+                }
+            }
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(vector(Long.parseLong(text.trim())), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(Long.parseLong(document.getText().trim()));
+        }
+
+        @Override
+        public int dimensions() {
+            return dimensions;
+        }
+
+        private float[] vector(long n) {
+            SplittableRandom random = new SplittableRandom(seed * 31 + n);
+            float[] centre = centres[random.nextInt(CLUSTERS)];
+            float[] vector = new float[dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = centre[i] + 0.5f * (float) random.nextGaussian();
+            }
+            return vector;
+        }
+    }
+}
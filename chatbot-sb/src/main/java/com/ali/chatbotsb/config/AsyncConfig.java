@@ -0,0 +1,74 @@
+package com.ali.chatbotsb.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Embeds persisted chat turns off the request thread
+     */
+    @Bean(name = "chatMemoryExecutor")
+    public Executor chatMemoryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("chat-memory-");
+        // Memory is best effort, never slow down chat requests when the queue is full
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs speculative retrieval for drafts, newer drafts replace queued older ones
+     */
+    @Bean(name = "retrievalPrefetchExecutor")
+    public Executor retrievalPrefetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("retrieval-prefetch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Scores cross-encoder batches, sized to the cores the reranker may take from chat requests
+     */
+    @Bean(name = "rerankExecutor")
+    public Executor rerankExecutor(RerankProperties rerankProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(rerankProperties.getThreads());
+        executor.setMaxPoolSize(rerankProperties.getThreads());
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("rerank-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the keyword half of hybrid retrieval while the calling thread queries the vector store
+     */
+    @Bean(name = "retrievalExecutor")
+    public Executor retrievalExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("retrieval-");
+        // Under overload the caller runs the search itself instead of failing the turn
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
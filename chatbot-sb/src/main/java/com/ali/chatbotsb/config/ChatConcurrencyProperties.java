@@ -0,0 +1,13 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.chat.session-lock")
+@Data
+public class ChatConcurrencyProperties {
+    private int stripes = 256; // Rounded up to a power of two
+    private long timeoutSeconds = 120; // Longer than a typical LLM call
+}
@@ -0,0 +1,18 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.chat.memory")
+@Data
+public class ChatMemoryProperties {
+    private boolean enabled = true;
+    private int recentExchanges = 1; // Always sent verbatim
+    private int topK = 3; // Older turns recalled by relevance
+    private double minSimilarity = 0.5;
+    private int maxSessions = 10000; // Least recently used sessions are evicted beyond this
+    private int maxTurnsPerSession = 500;
+    private int maxTurnChars = 2000; // Keeps turn embeddings inside the model's context window
+}
@@ -0,0 +1,16 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.chat.prefetch")
+@Data
+public class ChatPrefetchProperties {
+    private boolean enabled = true;
+    private long ttlSeconds = 30;
+    private int minDraftLength = 12; // Shorter drafts rarely match the final question
+    private double matchThreshold = 0.9; // Normalized edit similarity between draft and final message
+    private int maxEntries = 10000; // One entry per user
+}
@@ -0,0 +1,30 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.model.Role;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.chat.qos")
+@Data
+public class ChatQosProperties {
+    private boolean enabled = true;
+    private int totalConcurrency = 32; // Chat turns allowed to use the LLM and vector store at once
+    private String defaultTier = "standard"; // For users whose roles match no tier
+    private Map<String, Tier> tiers = new LinkedHashMap<>();
+
+    @Data
+    public static class Tier {
+        private List<Role.RoleType> roles = new ArrayList<>();
+        private int reservedConcurrency = 0; // Slots only this tier may use
+        private int priority = 0; // Higher is admitted first from the queue
+        private long latencyTargetMs = 10000;
+        private long maxQueueWaitMs = 5000; // Rejected with 503 after waiting this long
+    }
+}
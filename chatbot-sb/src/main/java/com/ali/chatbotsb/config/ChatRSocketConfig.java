@@ -0,0 +1,25 @@
+package com.ali.chatbotsb.config;
+
+import org.springframework.boot.rsocket.messaging.RSocketStrategiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.MimeType;
+
+/**
+ * RSocket chat channel served on {@code spring.rsocket.server.port} together with the streaming chat path.
+ * Clients authenticate once per connection by sending their access token as setup metadata.
+ */
+@Configuration
+@Profile("reactive")
+public class ChatRSocketConfig {
+
+    public static final MimeType BEARER_TOKEN_MIME_TYPE = MimeType.valueOf("message/x.rsocket.authentication.bearer.v0");
+    public static final String ACCESS_TOKEN_HEADER = "accessToken";
+
+    @Bean
+    public RSocketStrategiesCustomizer chatRSocketStrategiesCustomizer() {
+        return strategies -> strategies.metadataExtractorRegistry(registry ->
+                registry.metadataToExtract(BEARER_TOKEN_MIME_TYPE, String.class, ACCESS_TOKEN_HEADER));
+    }
+}
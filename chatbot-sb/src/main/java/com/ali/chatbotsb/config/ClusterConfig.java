@@ -0,0 +1,90 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.vectorstore.ClusterVectorStore;
+import com.ali.chatbotsb.vectorstore.LocalVectorStore;
+import com.ali.chatbotsb.vectorstore.RemoteShard;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Knowledge base partitioned across application nodes, enabled with {@code app.vectorstore.cluster.enabled=true}.
+ * Every node runs an in-process store ({@code spring.ai.vectorstore.type=hnsw} or {@code exact}) holding its shard
+ * and lists the same nodes in the same order; any node can take requests and coordinates them.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.vectorstore.cluster.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.retrieval.sharding.enabled", havingValue = "false", matchIfMissing = true)
+@Slf4j
+public class ClusterConfig {
+
+    @Bean
+    @Primary
+    public ClusterVectorStore clusterVectorStore(ClusterProperties properties,
+                                                 ObjectProvider<LocalVectorStore> localVectorStore,
+                                                 EmbeddingModel embeddingModel,
+                                                 RestClient.Builder restClientBuilder,
+                                                 @Qualifier("clusterSearchExecutor") Executor clusterSearchExecutor,
+                                                 MeterRegistry meterRegistry) {
+        LocalVectorStore local = localVectorStore.getIfUnique();
+        if (local == null) {
+            throw new IllegalStateException("The cluster needs spring.ai.vectorstore.type=hnsw or exact on every node");
+        }
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            throw new IllegalStateException("app.vectorstore.cluster.secret must be set, shard endpoints skip JWT auth");
+        }
+        List<String> nodes = properties.getNodes();
+        if (properties.getNodeIndex() < 0 || properties.getNodeIndex() >= nodes.size()) {
+            throw new IllegalStateException("app.vectorstore.cluster.node-index " + properties.getNodeIndex()
+                    + " is not a position in app.vectorstore.cluster.nodes " + nodes);
+        }
+
+        Duration shardTimeout = Duration.ofMillis(properties.getShardTimeoutMs());
+        List<ClusterVectorStore.Shard> shards = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            shards.add(i == properties.getNodeIndex()
+                    ? new ClusterVectorStore.LocalShard(local)
+                    : new RemoteShard(restClientBuilder, nodes.get(i), properties.getSecret(),
+                    Duration.ofMillis(properties.getConnectTimeoutMs()), shardTimeout,
+                    Duration.ofMillis(properties.getWriteTimeoutMs())));
+        }
+
+        log.info("🔧 Node {} of a {}-shard cluster, {} ms per-shard search deadline", properties.getNodeIndex(),
+                nodes.size(), properties.getShardTimeoutMs());
+        return new ClusterVectorStore(shards, properties.getNodeIndex(), embeddingModel, shardTimeout,
+                clusterSearchExecutor, meterRegistry);
+    }
+
+    /**
+     * Remote shard searches get their own pool with a thread for every call this node may have in flight, so a
+     * call starts at once and its deadline covers only the shard. There is no queue and no caller-runs fallback;
+     * a call beyond the pool's size is rejected and the shard left out of that search.
+     */
+    @Bean(name = "clusterSearchExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor clusterSearchExecutor(ClusterProperties properties) {
+        int threads = Math.max(1, (properties.getNodes().size() - 1) * properties.getSearchConcurrency());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("cluster-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
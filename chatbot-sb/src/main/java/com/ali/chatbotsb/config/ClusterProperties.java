@@ -0,0 +1,22 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.vectorstore.cluster")
+@Data
+public class ClusterProperties {
+    private boolean enabled = false;
+    private int nodeIndex = 0; // Shard owned by this node, its position in nodes
+    private List<String> nodes = new ArrayList<>(); // Base URLs of all nodes in shard order, this one included
+    private String secret = ""; // Shared by all nodes, sent with every shard call
+    private long shardTimeoutMs = 500; // Per-shard search deadline, slower shards are left out of the answer
+    private int searchConcurrency = 16; // Searches this node coordinates at once, sizes the remote shard call pool
+    private long connectTimeoutMs = 200;
+    private long writeTimeoutMs = 30000;
+}
@@ -0,0 +1,19 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.retrieval.context")
+@Data
+public class ContextSelectionProperties {
+    private boolean enabled = true;
+    private double duplicateThreshold = 0.8; // Share of a chunk's shingles found in a better chunk to drop it
+    private double mmrLambda = 0.7; // 1.0 ranks by relevance only, lower values favour diversity
+    private int shingleSize = 3; // Words per shingle
+    private boolean adaptiveDepth = true; // Cut the ranked chunks at their largest score gap
+    private double minGapRatio = 0.25; // Smallest gap, as a share of the pool's score range, that counts as a cut
+    private int minChunks = 1;
+    private int tokenBudget = 1500; // Most context tokens sent to the LLM, 0 for no budget
+}
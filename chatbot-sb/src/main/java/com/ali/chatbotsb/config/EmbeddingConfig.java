@@ -1,24 +1,57 @@
 package com.ali.chatbotsb.config;
 
+import com.ali.chatbotsb.embedding.OnnxEmbeddingModel;
+import com.ali.chatbotsb.embedding.QueryEmbeddingCache;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.transformers.ResourceCacheService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.time.Duration;
+import java.util.Locale;
+
 @Configuration
 public class EmbeddingConfig {
 
     @Bean
     @Primary
-    public EmbeddingModel primaryEmbeddingModel(@Qualifier("ollamaEmbeddingModel") EmbeddingModel ollamaEmbeddingModel) {
-        return ollamaEmbeddingModel;
+    public EmbeddingModel primaryEmbeddingModel(@Qualifier("ollamaEmbeddingModel") EmbeddingModel ollamaEmbeddingModel,
+                                                ObjectProvider<OnnxEmbeddingModel> onnxEmbeddingModel,
+                                                EmbeddingProperties properties) {
+        OnnxEmbeddingModel onnx = onnxEmbeddingModel.getIfAvailable();
+        EmbeddingModel model = onnx != null ? onnx : ollamaEmbeddingModel;
+        return properties.getQueryCacheSize() > 0 ? new QueryEmbeddingCache(model, properties.getQueryCacheSize()) : model;
+    }
+
+    /**
+     * In-process embeddings, selected with {@code app.embedding.provider=onnx}
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.embedding.provider", havingValue = "onnx")
+    public OnnxEmbeddingModel onnxEmbeddingModel(EmbeddingProperties properties) {
+        EmbeddingProperties.Onnx onnx = properties.getOnnx();
+        ResourceCacheService cache = new ResourceCacheService(onnx.getCacheDirectory());
+        return OnnxEmbeddingModel.builder()
+                .tokenizerResource(cache.getCachedResource(onnx.getTokenizerUri()))
+                .modelResource(cache.getCachedResource(onnx.getModelUri()))
+                .outputName(onnx.getOutputName())
+                .pooling(OnnxEmbeddingModel.Pooling.valueOf(onnx.getPooling().toUpperCase(Locale.ROOT)))
+                .maxLength(onnx.getMaxLength())
+                .maxBatchSize(onnx.getMaxBatchSize())
+                .maxBatchDelay(Duration.ofNanos(onnx.getMaxBatchDelayMicros() * 1000))
+                .workers(onnx.getWorkers())
+                .intraOpThreads(onnx.getIntraOpThreads())
+                .build();
     }
-    
+
     @Bean
     @Primary
     public ChatModel primaryChatModel(@Qualifier("openAiChatModel") ChatModel openAiChatModel) {
         return openAiChatModel;
     }
-}
\ No newline at end of file
+}
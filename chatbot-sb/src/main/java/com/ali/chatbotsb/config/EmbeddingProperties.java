@@ -0,0 +1,29 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.embedding")
+@Data
+public class EmbeddingProperties {
+    private String provider = "ollama"; // ollama (HTTP) or onnx (in-process)
+    private int queryCacheSize = 256; // Recent question embeddings reused across FAQ, memory and shards, 0 disables
+    private Onnx onnx = new Onnx();
+
+    @Data
+    public static class Onnx {
+        // mxbai-embed-large-v1 matches the Ollama default, so stored vectors stay compatible
+        private String tokenizerUri = "https://huggingface.co/mixedbread-ai/mxbai-embed-large-v1/resolve/main/tokenizer.json";
+        private String modelUri = "https://huggingface.co/mixedbread-ai/mxbai-embed-large-v1/resolve/main/onnx/model.onnx";
+        private String cacheDirectory = "./data/models";
+        private String outputName = "last_hidden_state";
+        private String pooling = "CLS"; // CLS or MEAN, as the model was trained
+        private int maxLength = 512;
+        private int maxBatchSize = 32; // Texts per inference call
+        private long maxBatchDelayMicros = 2000; // How long a lone query waits for others to share its batch
+        private int workers = 1; // Inference loops, each runs one batch at a time
+        private int intraOpThreads = 4; // ONNX Runtime threads per batch
+    }
+}
@@ -0,0 +1,20 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.vectorstore.Quantization;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.vectorstore.exact")
+@Data
+public class ExactVectorStoreProperties {
+    private String dataDirectory = "./data/exact";
+    private int dimensions = 1024; // mxbai-embed-large
+    private int parallelThreshold = 16384; // rows per fork/join slice
+    private Quantization quantization = Quantization.NONE;
+    private int rescoreMultiplier = 4; // candidates kept per result for full-precision rescoring
+    private int pqSubspaces = 256; // 4 dimensions per byte for 1024-dim embeddings
+    private int pqTrainingThreshold = 4096;
+    private int pqTrainingSample = 16384;
+}
@@ -0,0 +1,13 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.faq")
+@Data
+public class FaqProperties {
+    private boolean enabled = true;
+    private double similarityThreshold = 0.92; // Curated answers are only served for near-identical questions
+}
@@ -0,0 +1,18 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.vectorstore.hnsw")
+@Data
+public class HnswVectorStoreProperties {
+    private String dataDirectory = "./data/hnsw";
+    private int dimensions = 1024; // mxbai-embed-large
+    private int m = 16; // links per node and layer, twice as many on the bottom layer
+    private int efConstruction = 200;
+    private int efSearch = 64;
+    private int buildParallelism = 0; // Threads linking bulk batches, 0 uses the common fork/join pool
+    private int bulkBuildThreshold = 2048; // Smallest batch linked on all cores
+}
@@ -0,0 +1,54 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.vectorstore.HotChunkCache;
+import com.ali.chatbotsb.vectorstore.HotChunkVectorStore;
+import com.ali.chatbotsb.vectorstore.PineconeExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pinecone.clients.Index;
+import io.pinecone.clients.Pinecone;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SpringAIVectorStoreTypes;
+import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+import org.springframework.ai.vectorstore.pinecone.autoconfigure.PineconeVectorStoreProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Hot-chunk cache, enabled with {@code app.retrieval.hot-chunks.enabled=true}. Retrieval counts chunks with any
+ * store; only the plain Pinecone store (no shards, no local replica) fetches chunk text remotely and hydrates hot
+ * chunks from the cache.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.retrieval.hot-chunks.enabled", havingValue = "true")
+@Slf4j
+public class HotChunkConfig {
+
+    @Bean
+    public HotChunkCache hotChunkCache(HotChunkProperties properties, MeterRegistry meterRegistry) {
+        return new HotChunkCache(properties.getMaxBytes(), properties.getMinFrequency(), properties.getSketchWidth(),
+                properties.getResetAfter(), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    @ConditionalOnProperty(name = SpringAIVectorStoreTypes.TYPE, havingValue = "pinecone", matchIfMissing = true)
+    @ConditionalOnProperty(name = "app.retrieval.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    @ConditionalOnProperty(name = "app.vectorstore.replica.enabled", havingValue = "false", matchIfMissing = true)
+    public HotChunkVectorStore hotChunkVectorStore(PineconeVectorStore pineconeVectorStore,
+                                                   PineconeVectorStoreProperties pineconeProperties,
+                                                   EmbeddingModel embeddingModel,
+                                                   HotChunkCache hotChunkCache,
+                                                   ObjectMapper objectMapper) {
+        Index index = new Pinecone.Builder(pineconeProperties.getApiKey()).build()
+                .getIndexConnection(pineconeProperties.getIndexName());
+        PineconeExporter exporter = new PineconeExporter(index, pineconeProperties.getNamespace(),
+                pineconeProperties.getContentFieldName(), objectMapper);
+        log.info("🔧 Pinecone searches hydrate hot chunks from memory (up to {} bytes)", hotChunkCache.maxBytes());
+        return new HotChunkVectorStore(pineconeVectorStore, index, exporter, embeddingModel, hotChunkCache,
+                pineconeProperties.getNamespace(), pineconeProperties.getDistanceMetadataFieldName());
+    }
+}
@@ -0,0 +1,16 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.retrieval.hot-chunks")
+@Data
+public class HotChunkProperties {
+    private boolean enabled = false;
+    private long maxBytes = 16 * 1024 * 1024; // Memory budget of the pinned chunk text and metadata
+    private int minFrequency = 3; // Retrievals within the current window before a chunk is pinned
+    private int sketchWidth = 16384; // Counters per sketch row, a few times the number of distinct hot chunks
+    private long resetAfter = 100000; // Counted retrievals before all frequencies are halved
+}
@@ -0,0 +1,23 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.vectorstore.Bm25Index;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Keyword index queried next to the vector store for hybrid retrieval
+ */
+@Configuration
+public class HybridRetrievalConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.retrieval.hybrid.enabled", havingValue = "true", matchIfMissing = true)
+    public Bm25Index bm25Index(HybridRetrievalProperties properties, ObjectMapper objectMapper) {
+        return new Bm25Index(Path.of(properties.getDataDirectory()), properties.getK1(), properties.getB(),
+                objectMapper);
+    }
+}
@@ -0,0 +1,16 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.retrieval.hybrid")
+@Data
+public class HybridRetrievalProperties {
+    private boolean enabled = true;
+    private String dataDirectory = "./data/bm25";
+    private float k1 = 1.2f; // BM25 term frequency saturation
+    private float b = 0.75f; // BM25 document length normalization
+    private int rrfK = 60; // Reciprocal rank fusion damping, score = sum of 1 / (rrfK + rank)
+}
@@ -0,0 +1,113 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.vectorstore.ExactVectorStore;
+import com.ali.chatbotsb.vectorstore.HnswVectorStore;
+import com.ali.chatbotsb.vectorstore.PostgresVectorStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SpringAIVectorStoreTypes;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+
+/**
+ * Local vector stores (in process, or pgvector in the application database) that replace the Pinecone starter
+ * when selected with {@code spring.ai.vectorstore.type}
+ */
+@Configuration
+public class LocalVectorStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = SpringAIVectorStoreTypes.TYPE, havingValue = HnswVectorStore.DB_SYSTEM)
+    public HnswVectorStore hnswVectorStore(EmbeddingModel embeddingModel,
+                                           HnswVectorStoreProperties properties,
+                                           ObjectMapper objectMapper,
+                                           ObjectProvider<ObservationRegistry> observationRegistry) {
+        return buildHnswVectorStore(embeddingModel, properties, Path.of(properties.getDataDirectory()), objectMapper,
+                observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SpringAIVectorStoreTypes.TYPE, havingValue = ExactVectorStore.DB_SYSTEM)
+    public ExactVectorStore exactVectorStore(EmbeddingModel embeddingModel,
+                                             ExactVectorStoreProperties properties,
+                                             ObjectMapper objectMapper,
+                                             ObjectProvider<ObservationRegistry> observationRegistry) {
+        return buildExactVectorStore(embeddingModel, properties, Path.of(properties.getDataDirectory()), objectMapper,
+                observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SpringAIVectorStoreTypes.TYPE, havingValue = PostgresVectorStore.DB_SYSTEM)
+    public PostgresVectorStore postgresVectorStore(JdbcTemplate jdbcTemplate,
+                                                   PlatformTransactionManager transactionManager,
+                                                   EmbeddingModel embeddingModel,
+                                                   PgVectorStoreProperties properties,
+                                                   ObjectMapper objectMapper,
+                                                   ObjectProvider<ObservationRegistry> observationRegistry) {
+        return buildPostgresVectorStore(jdbcTemplate, transactionManager, embeddingModel, properties,
+                properties.getTableName(), objectMapper, observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP));
+    }
+
+    /**
+     * HNSW store in the given directory, also used for the specialty shards
+     */
+    static HnswVectorStore buildHnswVectorStore(EmbeddingModel embeddingModel, HnswVectorStoreProperties properties,
+                                                Path dataDirectory, ObjectMapper objectMapper,
+                                                ObservationRegistry observationRegistry) {
+        return HnswVectorStore.builder(embeddingModel)
+                .dataDirectory(dataDirectory)
+                .dimensions(properties.getDimensions())
+                .m(properties.getM())
+                .efConstruction(properties.getEfConstruction())
+                .efSearch(properties.getEfSearch())
+                .buildParallelism(properties.getBuildParallelism())
+                .bulkBuildThreshold(properties.getBulkBuildThreshold())
+                .objectMapper(objectMapper)
+                .observationRegistry(observationRegistry)
+                .build();
+    }
+
+    static ExactVectorStore buildExactVectorStore(EmbeddingModel embeddingModel, ExactVectorStoreProperties properties,
+                                                  Path dataDirectory, ObjectMapper objectMapper,
+                                                  ObservationRegistry observationRegistry) {
+        return ExactVectorStore.builder(embeddingModel)
+                .dataDirectory(dataDirectory)
+                .dimensions(properties.getDimensions())
+                .parallelThreshold(properties.getParallelThreshold())
+                .quantization(properties.getQuantization())
+                .rescoreMultiplier(properties.getRescoreMultiplier())
+                .pqSubspaces(properties.getPqSubspaces())
+                .pqTrainingThreshold(properties.getPqTrainingThreshold())
+                .pqTrainingSample(properties.getPqTrainingSample())
+                .objectMapper(objectMapper)
+                .observationRegistry(observationRegistry)
+                .build();
+    }
+
+    static PostgresVectorStore buildPostgresVectorStore(JdbcTemplate jdbcTemplate,
+                                                        PlatformTransactionManager transactionManager,
+                                                        EmbeddingModel embeddingModel,
+                                                        PgVectorStoreProperties properties,
+                                                        String tableName, ObjectMapper objectMapper,
+                                                        ObservationRegistry observationRegistry) {
+        return PostgresVectorStore.builder(jdbcTemplate, embeddingModel)
+                .transactionManager(transactionManager)
+                .tableName(tableName)
+                .dimensions(properties.getDimensions())
+                .initializeSchema(properties.isInitializeSchema())
+                .m(properties.getM())
+                .efConstruction(properties.getEfConstruction())
+                .efSearch(properties.getEfSearch())
+                .iterativeScan(properties.isIterativeScan())
+                .objectMapper(objectMapper)
+                .observationRegistry(observationRegistry)
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.vectorstore.pgvector")
+@Data
+public class PgVectorStoreProperties {
+    private String tableName = "vector_store";
+    private int dimensions = 1024; // mxbai-embed-large
+    private boolean initializeSchema = true; // extension, table, HNSW and GIN indexes
+    private int m = 16;
+    private int efConstruction = 64;
+    private int efSearch = 40;
+    private boolean iterativeScan = false; // needs pgvector 0.8+
+}
@@ -0,0 +1,68 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.vectorstore.ExactVectorStore;
+import com.ali.chatbotsb.vectorstore.HnswVectorStore;
+import com.ali.chatbotsb.vectorstore.LocalVectorStore;
+import com.ali.chatbotsb.vectorstore.PineconeExporter;
+import com.ali.chatbotsb.vectorstore.ReplicatedVectorStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.pinecone.clients.Pinecone;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SpringAIVectorStoreTypes;
+import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+import org.springframework.ai.vectorstore.pinecone.autoconfigure.PineconeVectorStoreProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Path;
+
+/**
+ * Local read replica of the Pinecone index, enabled with {@code app.vectorstore.replica.enabled=true}. Only
+ * applies to the Pinecone store without specialty shards; the shards would each need their own replica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.vectorstore.replica.enabled", havingValue = "true")
+@ConditionalOnProperty(name = SpringAIVectorStoreTypes.TYPE, havingValue = "pinecone", matchIfMissing = true)
+@ConditionalOnProperty(name = "app.retrieval.sharding.enabled", havingValue = "false", matchIfMissing = true)
+@EnableScheduling
+@Slf4j
+public class ReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ReplicatedVectorStore replicatedVectorStore(ReplicaProperties properties,
+                                                       PineconeVectorStore pineconeVectorStore,
+                                                       PineconeVectorStoreProperties pineconeProperties,
+                                                       HnswVectorStoreProperties hnswProperties,
+                                                       ExactVectorStoreProperties exactProperties,
+                                                       EmbeddingModel embeddingModel,
+                                                       ObjectMapper objectMapper,
+                                                       MeterRegistry meterRegistry,
+                                                       ObjectProvider<ObservationRegistry> observationRegistry) {
+        ObservationRegistry registry = observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP);
+        Path dataDirectory = Path.of(properties.getDataDirectory());
+        LocalVectorStore replica = switch (properties.getType()) {
+            case HnswVectorStore.DB_SYSTEM -> LocalVectorStoreConfig.buildHnswVectorStore(embeddingModel, hnswProperties,
+                    dataDirectory, objectMapper, registry);
+            case ExactVectorStore.DB_SYSTEM -> LocalVectorStoreConfig.buildExactVectorStore(embeddingModel, exactProperties,
+                    dataDirectory, objectMapper, registry);
+            default -> throw new IllegalArgumentException("Unsupported replica type: " + properties.getType());
+        };
+
+        Pinecone pinecone = new Pinecone.Builder(pineconeProperties.getApiKey()).build();
+        PineconeExporter exporter = new PineconeExporter(pinecone.getIndexConnection(pineconeProperties.getIndexName()),
+                pineconeProperties.getNamespace(), pineconeProperties.getContentFieldName(), objectMapper);
+
+        log.info("🔧 Local {} replica of Pinecone index {} at {}", properties.getType(),
+                pineconeProperties.getIndexName(), dataDirectory);
+        return new ReplicatedVectorStore(pineconeVectorStore, replica, exporter, properties.getPageSize(),
+                properties.getBatchSize(), meterRegistry);
+    }
+}
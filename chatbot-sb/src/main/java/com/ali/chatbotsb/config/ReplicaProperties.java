@@ -0,0 +1,21 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.vectorstore.replica")
+@Data
+public class ReplicaProperties {
+    private boolean enabled = false;
+    private String type = "exact"; // Local store holding the copy: exact or hnsw, tuned by its own properties
+    private String dataDirectory = "./data/replica";
+    private int pageSize = 100; // Vectors per Pinecone list/fetch call while exporting
+    private int batchSize = 10000; // Exported vectors written to the replica at once, an hnsw replica links them on all cores
+    private long checkIntervalSeconds = 300;
+    private int sampleSize = 20; // Recent queries replayed against both stores per check
+    private int topK = 10;
+    private double minOverlap = 0.9; // Mean share of Pinecone's top-k the replica must also return
+    private long countTolerance = 0; // Allowed document count difference, Pinecone stats lag writes slightly
+}
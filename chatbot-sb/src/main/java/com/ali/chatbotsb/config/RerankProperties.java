@@ -0,0 +1,19 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.retrieval.rerank")
+@Data
+public class RerankProperties {
+    private boolean enabled = false; // Downloads the cross-encoder on first start
+    private String tokenizerUri = "https://huggingface.co/cross-encoder/ms-marco-MiniLM-L-6-v2/resolve/main/tokenizer.json";
+    private String modelUri = "https://huggingface.co/cross-encoder/ms-marco-MiniLM-L-6-v2/resolve/main/onnx/model.onnx";
+    private String cacheDirectory = "./data/models";
+    private int batchSize = 8; // (question, chunk) pairs per inference call
+    private int threads = 2; // Batches scored concurrently
+    private int intraOpThreads = 1; // ONNX Runtime threads per inference call
+    private int maxLength = 512; // Tokens per pair, longer chunks are truncated
+}
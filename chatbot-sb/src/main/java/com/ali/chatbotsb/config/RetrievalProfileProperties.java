@@ -0,0 +1,36 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.model.Role;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.retrieval")
+@Data
+public class RetrievalProfileProperties {
+    private String defaultProfile = "balanced"; // For questions that name no profile from users whose roles match none
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    /**
+     * Every retrieval knob of one profile, the defaults are the built-in balanced settings
+     */
+    @Data
+    public static class Profile {
+        private List<Role.RoleType> roles = new ArrayList<>(); // Users with these roles get the profile by default
+        private int priority = 0; // Higher wins when several profiles match a user's roles
+        private int topK = 5; // Chunks that reach the prompt without reranking
+        private double similarityThreshold = 0.7;
+        private int candidates = 10; // Pool the prompt chunks are selected from (dedup and MMR)
+        private boolean hybrid = true; // Also query the BM25 index, when hybrid retrieval is enabled
+        private int hybridCandidates = 20; // Results taken from each retriever before fusion
+        private boolean rerank = true; // Rescore with the cross-encoder, when reranking is enabled
+        private int rerankCandidates = 20; // Chunks retrieved for reranking
+        private int rerankTopN = 3; // Chunks that reach the prompt after reranking
+    }
+}
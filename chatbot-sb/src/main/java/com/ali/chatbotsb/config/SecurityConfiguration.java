@@ -36,6 +36,10 @@ public class SecurityConfiguration {
                 .authorizeHttpRequests(req ->
                         req.requestMatchers("/api/auth/**").permitAll()
                                 .requestMatchers("/api/chat/health").permitAll()
+                                // Liveness and readiness probes, details are only shown to admins
+                                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                                // Node-to-node calls, authenticated by the cluster secret in ShardController
+                                .requestMatchers("/api/internal/shard/**").permitAll()
                                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 )
@@ -0,0 +1,104 @@
+package com.ali.chatbotsb.config;
+
+import com.ali.chatbotsb.utils.MedicalPromptEnhancer;
+import com.ali.chatbotsb.vectorstore.ExactVectorStore;
+import com.ali.chatbotsb.vectorstore.HnswVectorStore;
+import com.ali.chatbotsb.vectorstore.PostgresVectorStore;
+import com.ali.chatbotsb.vectorstore.ShardedVectorStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SpringAIVectorStoreTypes;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+import org.springframework.ai.vectorstore.pinecone.autoconfigure.PineconeVectorStoreProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Specialty shards, enabled with {@code app.retrieval.sharding.enabled=true}. The configured vector store
+ * becomes the general shard and keeps everything ingested before sharding; every specialty gets a store of the
+ * same type next to it: a Pinecone namespace, a sibling data directory or a sibling pgvector table.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.retrieval.sharding.enabled", havingValue = "true")
+@Slf4j
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ShardedVectorStore shardedVectorStore(ShardingProperties properties,
+                                                 @Value("${" + SpringAIVectorStoreTypes.TYPE + ":pinecone}") String storeType,
+                                                 ObjectProvider<PineconeVectorStore> pineconeVectorStore,
+                                                 ObjectProvider<HnswVectorStore> hnswVectorStore,
+                                                 ObjectProvider<ExactVectorStore> exactVectorStore,
+                                                 ObjectProvider<PostgresVectorStore> postgresVectorStore,
+                                                 ObjectProvider<PineconeVectorStoreProperties> pineconeProperties,
+                                                 HnswVectorStoreProperties hnswProperties,
+                                                 ExactVectorStoreProperties exactProperties,
+                                                 PgVectorStoreProperties pgVectorProperties,
+                                                 ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                                 ObjectProvider<PlatformTransactionManager> transactionManager,
+                                                 EmbeddingModel embeddingModel,
+                                                 ObjectMapper objectMapper,
+                                                 ObjectProvider<ObservationRegistry> observationRegistry,
+                                                 @Qualifier("retrievalExecutor") Executor retrievalExecutor) {
+        ObservationRegistry registry = observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP);
+        List<String> specialties = properties.getShards().isEmpty()
+                ? new ArrayList<>(MedicalPromptEnhancer.specialties())
+                : properties.getShards();
+
+        Map<String, VectorStore> shards = new LinkedHashMap<>();
+        shards.put(properties.getGeneralShard(), switch (storeType) {
+            case HnswVectorStore.DB_SYSTEM -> hnswVectorStore.getObject();
+            case ExactVectorStore.DB_SYSTEM -> exactVectorStore.getObject();
+            case PostgresVectorStore.DB_SYSTEM -> postgresVectorStore.getObject();
+            default -> pineconeVectorStore.getObject();
+        });
+        for (String specialty : specialties) {
+            if (!specialty.matches("[a-z0-9_]+")) {
+                throw new IllegalArgumentException("Invalid shard name: " + specialty);
+            }
+            shards.put(specialty, switch (storeType) {
+                case HnswVectorStore.DB_SYSTEM -> LocalVectorStoreConfig.buildHnswVectorStore(embeddingModel, hnswProperties,
+                        Path.of(hnswProperties.getDataDirectory() + "-" + specialty), objectMapper, registry);
+                case ExactVectorStore.DB_SYSTEM -> LocalVectorStoreConfig.buildExactVectorStore(embeddingModel, exactProperties,
+                        Path.of(exactProperties.getDataDirectory() + "-" + specialty), objectMapper, registry);
+                case PostgresVectorStore.DB_SYSTEM -> LocalVectorStoreConfig.buildPostgresVectorStore(jdbcTemplate.getObject(),
+                        transactionManager.getObject(), embeddingModel, pgVectorProperties,
+                        pgVectorProperties.getTableName() + "_" + specialty, objectMapper, registry);
+                default -> pineconeShard(pineconeProperties.getObject(), specialty, embeddingModel, registry);
+            });
+        }
+
+        log.info("🔧 Knowledge base sharded by specialty ({}): {}", storeType, shards.keySet());
+        return new ShardedVectorStore(shards, properties.getGeneralShard(), retrievalExecutor);
+    }
+
+    private static PineconeVectorStore pineconeShard(PineconeVectorStoreProperties properties, String specialty,
+                                                     EmbeddingModel embeddingModel, ObservationRegistry registry) {
+        return PineconeVectorStore.builder(embeddingModel)
+                .apiKey(properties.getApiKey())
+                .indexName(properties.getIndexName())
+                .namespace(properties.getNamespace() + "-" + specialty)
+                .contentFieldName(properties.getContentFieldName())
+                .distanceMetadataFieldName(properties.getDistanceMetadataFieldName())
+                .observationRegistry(registry)
+                .build();
+    }
+}
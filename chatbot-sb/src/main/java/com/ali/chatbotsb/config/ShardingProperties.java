@@ -0,0 +1,19 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.retrieval.sharding")
+@Data
+public class ShardingProperties {
+    private boolean enabled = false;
+    private List<String> shards = new ArrayList<>(); // Specialties with their own shard, empty for all known specialties
+    private String generalShard = "general"; // Unclassified chunks, always searched alongside the routed shard
+    private double fallbackScore = 0.75; // Below this best score the question is searched across all shards
+    private int classificationMinHits = 2; // Specialty keyword mentions a chunk needs to leave the general shard
+}
@@ -0,0 +1,13 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.vectorstore.snapshot")
+@Data
+public class SnapshotProperties {
+    private String directory = "./data/snapshots"; // Where knowledge-base snapshots are written and imported from
+    private int batchSize = 2048; // Chunks per vector store read on export and per write on import
+}
@@ -0,0 +1,20 @@
+package com.ali.chatbotsb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.warmup")
+@Data
+public class WarmupProperties {
+    private boolean enabled = true;
+    private boolean chat = true; // One-token completion to open the LLM connection, billed like any other call
+    private List<String> queries = new ArrayList<>(List.of( // Synthetic questions, their embeddings stay cached
+            "What are the symptoms of diabetes?",
+            "What is the recommended dosage of paracetamol for adults?",
+            "How is high blood pressure treated?"));
+}
@@ -6,8 +6,12 @@ import com.ali.chatbotsb.dto.response.MultiplePdfUploadResponse;
 import com.ali.chatbotsb.dto.response.DashboardStatsResponse;
 import com.ali.chatbotsb.dto.response.VectorStoreTestResponse;
 import com.ali.chatbotsb.dto.response.AuthDebugResponse;
+import com.ali.chatbotsb.dto.response.QuantizationReportResponse;
+import com.ali.chatbotsb.dto.response.HotChunkReportResponse;
+import com.ali.chatbotsb.dto.response.SnapshotResponse;
 import com.ali.chatbotsb.service.AdminService;
 import com.ali.chatbotsb.service.PdfUploadService;
+import com.ali.chatbotsb.service.SnapshotService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -27,6 +32,7 @@ public class AdminController {
 
     private final PdfUploadService pdfUploadService;
     private final AdminService adminService;
+    private final SnapshotService snapshotService;
 
     /**
      * Upload multiple PDF files for RAG database
@@ -35,12 +41,13 @@ public class AdminController {
     public ResponseEntity<ApiResponse<MultiplePdfUploadResponse>> uploadPdfs(
             @RequestParam("files") MultipartFile[] files,
             @RequestParam(value = "description", required = false) String description,
-            @RequestParam(value = "category", required = false) String category) {
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "allowedRoles", required = false) List<String> allowedRoles) {
         
         log.info("🔄 Admin multiple PDF upload request received for {} files", files.length);
         
         try {
-            MultiplePdfUploadResponse response = pdfUploadService.uploadMultiplePdfs(files, description, category);
+            MultiplePdfUploadResponse response = pdfUploadService.uploadMultiplePdfs(files, description, category, allowedRoles);
             log.info("� Upload summary: {}", response.getSummary());
             
             return ResponseEntity.ok(ApiResponse.success(response.getSummary(), response));
@@ -64,12 +71,13 @@ public class AdminController {
     public ResponseEntity<ApiResponse<PdfUploadResponse>> uploadSinglePdf(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "description", required = false) String description,
-            @RequestParam(value = "category", required = false) String category) {
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "allowedRoles", required = false) List<String> allowedRoles) {
         
         log.info("🔄 Admin single PDF upload request received for: {}", file.getOriginalFilename());
         
         try {
-            PdfUploadResponse response = pdfUploadService.uploadSinglePdf(file, description, category);
+            PdfUploadResponse response = pdfUploadService.uploadSinglePdf(file, description, category, allowedRoles);
             
             if ("success".equals(response.getStatus())) {
                 log.info("✅ Single PDF upload completed successfully");
@@ -161,4 +169,106 @@ public class AdminController {
                     .body(ApiResponse.error("VectorStore test failed: " + e.getMessage()));
         }
     }
+
+    /**
+     * Memory footprint and recall@k of the exact vector store's quantized encoding
+     */
+    @GetMapping("/retrieval/hot-chunks")
+    public ResponseEntity<ApiResponse<HotChunkReportResponse>> getHotChunkReport(
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            HotChunkReportResponse response = adminService.getHotChunkReport(limit);
+            return ResponseEntity.ok(ApiResponse.success("Hot-chunk report generated", response));
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/vectorstore/quantization")
+    public ResponseEntity<ApiResponse<QuantizationReportResponse>> getQuantizationReport(
+            @RequestParam(value = "sampleSize", defaultValue = "100") int sampleSize,
+            @RequestParam(value = "k", defaultValue = "10") int k) {
+        log.info("🔄 Measuring vector store quantization recall over {} queries at k={}", sampleSize, k);
+
+        try {
+            QuantizationReportResponse response = adminService.getQuantizationReport(sampleSize, k);
+            return ResponseEntity.ok(ApiResponse.success("Quantization report generated", response));
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Error generating quantization report: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to generate quantization report: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Export chunk text, metadata and embeddings to a binary snapshot in the snapshot directory
+     */
+    @PostMapping("/vectorstore/snapshots")
+    public ResponseEntity<ApiResponse<SnapshotResponse>> exportSnapshot(
+            @RequestParam(value = "name", required = false) String name) {
+        try {
+            SnapshotResponse response = snapshotService.export(name);
+            return ResponseEntity.ok(ApiResponse.success("Snapshot exported", response));
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Error exporting snapshot: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to export snapshot: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/vectorstore/snapshots")
+    public ResponseEntity<ApiResponse<List<SnapshotResponse>>> listSnapshots() {
+        try {
+            List<SnapshotResponse> response = snapshotService.list();
+            return ResponseEntity.ok(ApiResponse.success("Snapshots retrieved", response));
+
+        } catch (Exception e) {
+            log.error("❌ Error listing snapshots: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to list snapshots: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Bulk-load a snapshot into the configured vector store without calling the embedding model
+     */
+    @PostMapping("/vectorstore/snapshots/{name}/import")
+    public ResponseEntity<ApiResponse<SnapshotResponse>> importSnapshot(@PathVariable String name) {
+        try {
+            SnapshotResponse response = snapshotService.importSnapshot(name);
+            return ResponseEntity.ok(ApiResponse.success("Snapshot imported", response));
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Error importing snapshot {}: {}", name, e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to import snapshot: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Make chunks stored before retrieval was scoped by role visible to every user
+     */
+    @PostMapping("/vectorstore/migrations/allowed-roles")
+    public ResponseEntity<ApiResponse<SnapshotResponse>> backfillAllowedRoles() {
+        try {
+            SnapshotResponse response = snapshotService.backfillAllowedRoles();
+            return ResponseEntity.ok(ApiResponse.success("Allowed roles backfilled", response));
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Error backfilling allowed roles: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to backfill allowed roles: " + e.getMessage()));
+        }
+    }
 }
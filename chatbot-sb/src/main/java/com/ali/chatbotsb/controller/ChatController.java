@@ -4,12 +4,17 @@ import com.ali.chatbotsb.dto.ApiResponse;
 import com.ali.chatbotsb.dto.ChatRequest;
 import com.ali.chatbotsb.dto.ChatResponse;
 import com.ali.chatbotsb.dto.ChatSessionDto;
+import com.ali.chatbotsb.dto.PrefetchRequest;
 import com.ali.chatbotsb.service.ChatService;
+import com.ali.chatbotsb.service.RetrievalPrefetchService;
+import com.ali.chatbotsb.service.RetrievalProfileService;
+import com.ali.chatbotsb.service.RetrievalScope;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -24,6 +29,8 @@ import java.util.UUID;
 public class ChatController {
 
     private final ChatService chatService;
+    private final RetrievalPrefetchService retrievalPrefetchService;
+    private final RetrievalProfileService retrievalProfileService;
 
     /**
      * Main chat endpoint for medical RAG chatbot
@@ -35,6 +42,18 @@ public class ChatController {
         return ResponseEntity.ok(ApiResponse.success("Message processed successfully", response));
     }
 
+    /**
+     * Warm retrieval for a draft message while the user is typing
+     */
+    @PostMapping("/prefetch")
+    public ResponseEntity<ApiResponse<Void>> prefetch(@Valid @RequestBody PrefetchRequest request,
+                                                      Authentication authentication) {
+        retrievalPrefetchService.prefetch(authentication.getName(), request.getDraft(),
+                RetrievalScope.of(request.getCategory(), request.getDocumentId(), authentication.getAuthorities()),
+                retrievalProfileService.resolve(request.getRetrievalProfile(), authentication.getAuthorities()));
+        return ResponseEntity.accepted().body(ApiResponse.success("Prefetch scheduled"));
+    }
+
     /**
      * Get all chat sessions for the current user
      */
@@ -0,0 +1,107 @@
+package com.ali.chatbotsb.controller;
+
+import com.ali.chatbotsb.config.ChatRSocketConfig;
+import com.ali.chatbotsb.dto.ChatRequest;
+import com.ali.chatbotsb.dto.ChatStreamEvent;
+import com.ali.chatbotsb.jwt.JwtService;
+import com.ali.chatbotsb.jwt.UserDetailsServiceImpl;
+import com.ali.chatbotsb.service.ReactiveChatService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.annotation.ConnectMapping;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RSocket chat channel. One long-lived connection authenticates once in its setup frame and then
+ * multiplexes any number of concurrent {@code chat.stream} request-streams, one per chat turn.
+ * Token delivery follows the client's request(n) demand down to the LLM stream.
+ */
+@Controller
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ChatRSocketController {
+
+    private static final String REQUIRED_AUTHORITY = "ROLE_USER";
+
+    private final ReactiveChatService reactiveChatService;
+    private final JwtService jwtService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final Validator validator;
+
+    private final Map<RSocketRequester, Authentication> connections = new ConcurrentHashMap<>();
+
+    /**
+     * Validate the access token from the setup metadata, rejecting the connection when it is missing or invalid
+     */
+    @ConnectMapping
+    public Mono<Void> connect(RSocketRequester requester,
+                              @Header(name = ChatRSocketConfig.ACCESS_TOKEN_HEADER, required = false) String accessToken) {
+        return Mono.fromCallable(() -> authenticate(accessToken))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(authentication -> {
+                    connections.put(requester, authentication);
+                    requester.rsocketClient().source()
+                            .flatMap(rsocket -> rsocket.onClose())
+                            .doFinally(signal -> connections.remove(requester))
+                            .subscribe();
+                })
+                .doOnError(e -> log.warn("Rejected RSocket chat connection: {}", e.getMessage()))
+                .then();
+    }
+
+    @MessageMapping("chat.stream")
+    public Flux<ChatStreamEvent> stream(ChatRequest request, RSocketRequester requester) {
+        Authentication authentication = connections.get(requester);
+        if (authentication == null) {
+            return Flux.error(new AccessDeniedException("RSocket connection is not authenticated"));
+        }
+        // Same constraints as the @Valid HTTP endpoints
+        String violation = validator.validate(request).stream()
+                .map(ConstraintViolation::getMessage)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        if (violation != null) {
+            return Flux.just(ChatStreamEvent.error(violation));
+        }
+
+        return reactiveChatService.streamChat(request, authentication.getName(), authentication.getAuthorities())
+                .onErrorResume(e -> {
+                    log.error("RSocket chat turn failed: {}", e.getMessage(), e);
+                    return Flux.just(ChatStreamEvent.error(e.getMessage()));
+                });
+    }
+
+    private Authentication authenticate(String accessToken) {
+        if (accessToken == null || accessToken.isBlank()) {
+            throw new BadCredentialsException("Missing access token in setup metadata");
+        }
+        String userEmail = jwtService.extractUsername(accessToken);
+        UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+        if (!jwtService.isTokenValid(accessToken, userDetails)) {
+            throw new BadCredentialsException("Invalid or expired access token");
+        }
+        if (userDetails.getAuthorities().stream().noneMatch(a -> REQUIRED_AUTHORITY.equals(a.getAuthority()))) {
+            throw new AccessDeniedException("Chat access requires the USER role");
+        }
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+}
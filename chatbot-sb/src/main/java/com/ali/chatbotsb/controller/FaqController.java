@@ -0,0 +1,84 @@
+package com.ali.chatbotsb.controller;
+
+import com.ali.chatbotsb.dto.ApiResponse;
+import com.ali.chatbotsb.dto.FaqEntryDto;
+import com.ali.chatbotsb.dto.FaqEntryRequest;
+import com.ali.chatbotsb.dto.response.FaqStatsResponse;
+import com.ali.chatbotsb.service.FaqService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/faq")
+@RequiredArgsConstructor
+@Slf4j
+@PreAuthorize("hasRole('ADMIN')")
+public class FaqController {
+
+    private final FaqService faqService;
+
+    /**
+     * List all curated FAQ entries
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<FaqEntryDto>>> getAllEntries() {
+        return ResponseEntity.ok(ApiResponse.success("FAQ entries retrieved successfully", faqService.getAllEntries()));
+    }
+
+    /**
+     * Add a vetted answer to the FAQ index
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<FaqEntryDto>> createEntry(@Valid @RequestBody FaqEntryRequest request,
+                                                                Authentication authentication) {
+        log.info("🔄 Admin creating FAQ entry");
+        FaqEntryDto entry = faqService.createEntry(request, authentication.getName());
+        return ResponseEntity.ok(ApiResponse.success("FAQ entry created successfully", entry));
+    }
+
+    /**
+     * Update an existing FAQ entry
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<FaqEntryDto>> updateEntry(@PathVariable UUID id,
+                                                                @Valid @RequestBody FaqEntryRequest request) {
+        log.info("🔄 Admin updating FAQ entry {}", id);
+        FaqEntryDto entry = faqService.updateEntry(id, request);
+        return ResponseEntity.ok(ApiResponse.success("FAQ entry updated successfully", entry));
+    }
+
+    /**
+     * Delete an FAQ entry
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> deleteEntry(@PathVariable UUID id) {
+        log.info("🔄 Admin deleting FAQ entry {}", id);
+        faqService.deleteEntry(id);
+        return ResponseEntity.ok(ApiResponse.success("FAQ entry deleted successfully"));
+    }
+
+    /**
+     * Rebuild the in-memory FAQ index from the database
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<ApiResponse<Integer>> reloadIndex() {
+        int entries = faqService.reloadIndex();
+        return ResponseEntity.ok(ApiResponse.success("FAQ index reloaded", entries));
+    }
+
+    /**
+     * FAQ hit rate since startup
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<FaqStatsResponse>> getStats() {
+        return ResponseEntity.ok(ApiResponse.success("FAQ statistics retrieved successfully", faqService.getStats()));
+    }
+}
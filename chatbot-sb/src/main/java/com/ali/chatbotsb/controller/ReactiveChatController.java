@@ -0,0 +1,44 @@
+package com.ali.chatbotsb.controller;
+
+import com.ali.chatbotsb.dto.ChatRequest;
+import com.ali.chatbotsb.dto.ChatStreamEvent;
+import com.ali.chatbotsb.service.ReactiveChatService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/chat")
+@RequiredArgsConstructor
+@Slf4j
+@Profile("reactive")
+@PreAuthorize("hasRole('USER')")
+public class ReactiveChatController {
+
+    private final ReactiveChatService reactiveChatService;
+
+    /**
+     * Streamed chat endpoint, answer tokens are sent as server-sent events while they are generated
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChatStreamEvent>> streamMessage(@Valid @RequestBody ChatRequest request,
+                                                                Authentication authentication) {
+        return reactiveChatService.streamChat(request, authentication.getName(), authentication.getAuthorities())
+                // The response is already committed once streaming starts, so failures travel as an event
+                .onErrorResume(e -> {
+                    log.error("Streamed chat turn failed: {}", e.getMessage(), e);
+                    return Flux.just(ChatStreamEvent.error(e.getMessage()));
+                })
+                .map(event -> ServerSentEvent.builder(event).event(event.getType()).build());
+    }
+}
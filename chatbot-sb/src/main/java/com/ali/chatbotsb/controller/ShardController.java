@@ -0,0 +1,76 @@
+package com.ali.chatbotsb.controller;
+
+import com.ali.chatbotsb.config.ClusterProperties;
+import com.ali.chatbotsb.vectorstore.ClusterVectorStore;
+import com.ali.chatbotsb.vectorstore.RemoteShard;
+import com.ali.chatbotsb.vectorstore.ShardProtocol;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Shard endpoints other cluster nodes call while coordinating a search or an upload. They work on this node's
+ * shard only and take a precomputed embedding, so no call here reaches the embedding model or another node.
+ */
+@RestController
+@RequestMapping(RemoteShard.BASE_PATH)
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "app.vectorstore.cluster.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.retrieval.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class ShardController {
+
+    private final ClusterVectorStore clusterVectorStore;
+    private final ClusterProperties clusterProperties;
+
+    @PostMapping("/search")
+    public ResponseEntity<List<ShardProtocol.ShardDocument>> search(
+            @RequestHeader(value = RemoteShard.SECRET_HEADER, required = false) String secret,
+            @RequestBody ShardProtocol.SearchCall call) {
+        if (!authorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(clusterVectorStore.searchLocal(call));
+    }
+
+    @PostMapping("/add")
+    public ResponseEntity<Void> add(@RequestHeader(value = RemoteShard.SECRET_HEADER, required = false) String secret,
+                                    @RequestBody ShardProtocol.AddCall call) {
+        if (!authorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        log.info("📥 Storing {} chunks routed to this shard", call.documents().size());
+        clusterVectorStore.addLocal(call);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/delete")
+    public ResponseEntity<Void> delete(@RequestHeader(value = RemoteShard.SECRET_HEADER, required = false) String secret,
+                                       @RequestBody ShardProtocol.DeleteCall call) {
+        if (!authorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        clusterVectorStore.deleteLocal(call);
+        return ResponseEntity.noContent().build();
+    }
+
+    private boolean authorized(String secret) {
+        if (secret == null) {
+            log.warn("🚫 Shard call without the cluster secret");
+            return false;
+        }
+        return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                clusterProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+    }
+}
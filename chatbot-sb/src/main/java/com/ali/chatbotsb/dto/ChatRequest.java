@@ -22,4 +22,10 @@ public class ChatRequest {
     private UUID sessionId; // Optional - if null, creates new session
 
     private String sessionTitle; // Optional - for new sessions
+
+    private String category; // Optional - only search documents uploaded with this category
+
+    private String documentId; // Optional - only search this uploaded document
+
+    private String retrievalProfile; // Optional - named retrieval profile, defaults by role
 }
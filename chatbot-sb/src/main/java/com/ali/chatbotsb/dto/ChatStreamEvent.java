@@ -0,0 +1,42 @@
+package com.ali.chatbotsb.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One event of a streamed chat answer: the session it belongs to, answer tokens, then a final summary
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChatStreamEvent {
+
+    public static final String SESSION = "session";
+    public static final String TOKEN = "token";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+
+    private String type;
+    private UUID sessionId;
+    private String sessionTitle;
+    private String content;
+    private UUID messageId;
+    private Double confidenceScore;
+    private List<String> sourceReferences;
+
+    public static ChatStreamEvent token(String content) {
+        return ChatStreamEvent.builder().type(TOKEN).content(content).build();
+    }
+
+    public static ChatStreamEvent error(String message) {
+        return ChatStreamEvent.builder().type(ERROR).content(message).build();
+    }
+}
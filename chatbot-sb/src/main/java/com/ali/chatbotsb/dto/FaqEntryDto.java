@@ -0,0 +1,25 @@
+package com.ali.chatbotsb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FaqEntryDto {
+
+    private UUID id;
+    private String question;
+    private String answer;
+    private String category;
+    private boolean enabled;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
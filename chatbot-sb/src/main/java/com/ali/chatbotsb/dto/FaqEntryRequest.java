@@ -0,0 +1,28 @@
+package com.ali.chatbotsb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FaqEntryRequest {
+
+    @NotBlank(message = "Question cannot be empty")
+    @Size(max = 1000, message = "Question cannot exceed 1000 characters")
+    private String question;
+
+    @NotBlank(message = "Answer cannot be empty")
+    private String answer;
+
+    @Size(max = 100, message = "Category cannot exceed 100 characters")
+    private String category;
+
+    private Boolean enabled; // Defaults to true
+}
@@ -0,0 +1,26 @@
+package com.ali.chatbotsb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrefetchRequest {
+
+    @NotBlank(message = "Draft cannot be empty")
+    @Size(max = 1000, message = "Draft cannot exceed 1000 characters")
+    private String draft;
+
+    private String category; // Same scope as the chat request that follows
+
+    private String documentId;
+
+    private String retrievalProfile;
+}
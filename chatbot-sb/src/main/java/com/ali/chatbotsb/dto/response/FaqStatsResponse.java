@@ -0,0 +1,19 @@
+package com.ali.chatbotsb.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FaqStatsResponse {
+
+    private int indexedEntries;
+    private double similarityThreshold;
+    private long lookups;
+    private long hits;
+    private double hitRate;
+}
@@ -0,0 +1,35 @@
+package com.ali.chatbotsb.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotChunkReportResponse {
+
+    private boolean hydrating; // Whether searches fill hot chunks from the cache (plain Pinecone store)
+    private long lookups;
+    private long hits;
+    private double hitRate;
+    private int pinnedChunks;
+    private long pinnedBytes;
+    private long maxBytes;
+    private List<HotChunk> hotChunks; // Hottest first
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HotChunk {
+        private String id;
+        private String source;
+        private int frequency; // Estimated retrievals in the current window
+        private long bytes;
+    }
+}
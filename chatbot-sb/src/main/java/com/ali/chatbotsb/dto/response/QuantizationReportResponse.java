@@ -0,0 +1,27 @@
+package com.ali.chatbotsb.dto.response;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuantizationReportResponse {
+
+    private String encoding;
+    private Integer vectors;
+    private Integer dimensions;
+    private Long bytesPerVector;
+    private Long fullPrecisionBytesPerVector;
+    private Long memoryBytes;
+    private Double compressionRatio;
+    private Integer k;
+    private Integer rescoreMultiplier;
+    private Integer queries;
+    private Double codeRecall; // recall@k of the compressed scan alone
+    private Double rescoredRecall; // recall@k after full-precision rescoring, what searches return
+    private Long elapsedMs;
+}
@@ -0,0 +1,20 @@
+package com.ali.chatbotsb.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotResponse {
+
+    private String name;
+    private long documents;
+    private int dimensions;
+    private long bytes;
+    private String checksum; // CRC32C of the snapshot header, which holds the checksums of its sections
+    private Long elapsedMs; // Export or import time, absent when listing
+}
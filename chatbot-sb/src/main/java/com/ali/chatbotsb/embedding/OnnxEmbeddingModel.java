@@ -0,0 +1,394 @@
+package com.ali.chatbotsb.embedding;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.AbstractEmbeddingModel;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link org.springframework.ai.embedding.EmbeddingModel} that runs a transformer encoder in the JVM through
+ * ONNX Runtime, replacing the HTTP round trip to Ollama. Texts from all callers go through one queue and are
+ * micro-batched: a lone query waits at most {@code maxBatchDelay} for company, ingestion batches are split
+ * into {@code maxBatchSize} slices. Each inference worker owns direct input buffers that are reused for every
+ * batch, so tensors are created without copying, and ONNX Runtime parallelizes each batch over
+ * {@code intraOpThreads} threads.
+ */
+@Slf4j
+public class OnnxEmbeddingModel extends AbstractEmbeddingModel implements AutoCloseable {
+
+    public enum Pooling {
+        /** First token, e.g. mxbai and bge models */
+        CLS,
+        /** Attention-masked mean over all tokens, e.g. sentence-transformers models */
+        MEAN
+    }
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final HuggingFaceTokenizer tokenizer;
+    private final boolean tokenTypeInput;
+    private final String outputName;
+    private final Pooling pooling;
+    private final int maxLength;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+
+    private final BlockingQueue<PendingText> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    protected OnnxEmbeddingModel(Builder builder) {
+        this.pooling = builder.pooling;
+        this.maxLength = builder.maxLength;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxBatchDelayNanos = builder.maxBatchDelay.toNanos();
+        try (InputStream in = builder.tokenizerResource.getInputStream()) {
+            this.tokenizer = HuggingFaceTokenizer.newInstance(in, Map.of(
+                    "padding", "true",
+                    "truncation", "true",
+                    "maxLength", Integer.toString(maxLength)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load tokenizer " + builder.tokenizerResource, e);
+        }
+
+        this.environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setIntraOpNumThreads(builder.intraOpThreads);
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            this.session = environment.createSession(builder.modelResource.getContentAsByteArray(), options);
+            this.tokenTypeInput = session.getInputNames().contains("token_type_ids");
+            this.outputName = session.getOutputNames().contains(builder.outputName)
+                    ? builder.outputName : session.getOutputNames().iterator().next();
+            this.embeddingDimensions.set(hiddenSize(session.getOutputInfo().get(outputName)));
+        } catch (OrtException | IOException e) {
+            throw new IllegalStateException("Failed to load ONNX embedding model " + builder.modelResource, e);
+        }
+
+        for (int i = 0; i < builder.workers; i++) {
+            Thread worker = new Thread(this::runWorker, "onnx-embedding-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("🔧 ONNX embedding model loaded: {} dimensions, {} pooling, {} worker(s) x {} intra-op threads, batches of {}",
+                embeddingDimensions.get(), pooling, builder.workers, builder.intraOpThreads, maxBatchSize);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<CompletableFuture<float[]>> pending = new ArrayList<>(request.getInstructions().size());
+        for (String text : request.getInstructions()) {
+            pending.add(submit(text));
+        }
+        List<Embedding> embeddings = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            embeddings.add(new Embedding(pending.get(i).join(), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return submit(document.getText()).join();
+    }
+
+    @Override
+    public synchronized void close() throws OrtException {
+        // Also reached through the primary EmbeddingModel bean, which is the same instance
+        if (!running) {
+            return;
+        }
+        running = false;
+        workers.forEach(Thread::interrupt);
+        // Let in-flight batches finish before the session goes away
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // Texts no worker picked up would otherwise leave their callers blocked in join()
+        List<PendingText> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(pending -> pending.result().completeExceptionally(closed()));
+        session.close();
+        tokenizer.close();
+    }
+
+    private CompletableFuture<float[]> submit(String text) {
+        if (!running) {
+            throw closed();
+        }
+        PendingText pending = new PendingText(text != null ? text : "", new CompletableFuture<>());
+        queue.add(pending);
+        // close() may have drained the queue between the check above and the add
+        if (!running && queue.remove(pending)) {
+            pending.result().completeExceptionally(closed());
+        }
+        return pending.result();
+    }
+
+    private void runWorker() {
+        InputBuffers buffers = new InputBuffers(maxBatchSize * maxLength);
+        List<PendingText> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingText first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                // Give concurrent single queries a short window to join this batch
+                long deadline = System.nanoTime() + maxBatchDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingText next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                try {
+                    float[][] vectors = infer(batch, buffers);
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).result().complete(vectors[i]);
+                    }
+                } catch (Exception e) {
+                    CompletionException failure = new CompletionException("ONNX embedding inference failed", e);
+                    batch.forEach(pending -> pending.result().completeExceptionally(failure));
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        batch.forEach(pending -> pending.result().completeExceptionally(closed()));
+    }
+
+    private static IllegalStateException closed() {
+        return new IllegalStateException("ONNX embedding model is closed");
+    }
+
+    private float[][] infer(List<PendingText> batch, InputBuffers buffers) throws OrtException {
+        List<String> texts = new ArrayList<>(batch.size());
+        batch.forEach(pending -> texts.add(pending.text()));
+        // Padded to the longest text of the batch
+        Encoding[] encodings = tokenizer.batchEncode(texts);
+        int length = encodings[0].getIds().length;
+        long[] shape = {encodings.length, length};
+
+        buffers.clear();
+        for (Encoding encoding : encodings) {
+            buffers.ids.put(encoding.getIds());
+            buffers.mask.put(encoding.getAttentionMask());
+            buffers.types.put(encoding.getTypeIds());
+        }
+        buffers.flip();
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(environment, buffers.ids, shape));
+            inputs.put("attention_mask", OnnxTensor.createTensor(environment, buffers.mask, shape));
+            if (tokenTypeInput) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(environment, buffers.types, shape));
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                OnnxValue value = result.get(outputName).orElseThrow();
+                return pool((OnnxTensor) value, encodings);
+            }
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    private float[][] pool(OnnxTensor output, Encoding[] encodings) {
+        long[] shape = output.getInfo().getShape();
+        FloatBuffer values = output.getFloatBuffer();
+        int hidden = (int) shape[shape.length - 1];
+        float[][] vectors = new float[encodings.length][hidden];
+
+        if (shape.length == 2) {
+            // Model already pools, e.g. a sentence_embedding output
+            for (float[] vector : vectors) {
+                values.get(vector);
+            }
+            return vectors;
+        }
+
+        int length = (int) shape[1];
+        for (int i = 0; i < encodings.length; i++) {
+            int base = i * length * hidden;
+            float[] vector = vectors[i];
+            if (pooling == Pooling.CLS) {
+                values.get(base, vector);
+                continue;
+            }
+            long[] mask = encodings[i].getAttentionMask();
+            int tokens = 0;
+            for (int t = 0; t < length; t++) {
+                if (mask[t] == 0) {
+                    continue;
+                }
+                tokens++;
+                int offset = base + t * hidden;
+                for (int h = 0; h < hidden; h++) {
+                    vector[h] += values.get(offset + h);
+                }
+            }
+            for (int h = 0; h < hidden; h++) {
+                vector[h] /= Math.max(1, tokens);
+            }
+        }
+        return vectors;
+    }
+
+    private static int hiddenSize(NodeInfo output) {
+        long[] shape = ((TensorInfo) output.getInfo()).getShape();
+        return (int) shape[shape.length - 1];
+    }
+
+    private record PendingText(String text, CompletableFuture<float[]> result) {
+    }
+
+    /**
+     * Direct native-order buffers owned by one worker, ONNX Runtime reads them without copying
+     */
+    private static final class InputBuffers {
+
+        private final LongBuffer ids;
+        private final LongBuffer mask;
+        private final LongBuffer types;
+
+        private InputBuffers(int capacity) {
+            this.ids = allocate(capacity);
+            this.mask = allocate(capacity);
+            this.types = allocate(capacity);
+        }
+
+        private void clear() {
+            ids.clear();
+            mask.clear();
+            types.clear();
+        }
+
+        private void flip() {
+            ids.flip();
+            mask.flip();
+            types.flip();
+        }
+
+        private static LongBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+
+    public static class Builder {
+
+        private Resource tokenizerResource;
+        private Resource modelResource;
+        private String outputName = "last_hidden_state";
+        private Pooling pooling = Pooling.CLS;
+        private int maxLength = 512;
+        private int maxBatchSize = 32;
+        private Duration maxBatchDelay = Duration.ofMillis(2);
+        private int workers = 1;
+        private int intraOpThreads = 4;
+
+        private Builder() {
+        }
+
+        public Builder tokenizerResource(Resource tokenizerResource) {
+            this.tokenizerResource = tokenizerResource;
+            return this;
+        }
+
+        public Builder modelResource(Resource modelResource) {
+            this.modelResource = modelResource;
+            return this;
+        }
+
+        /**
+         * Model output holding token embeddings; falls back to the first output when the model has no such name
+         */
+        public Builder outputName(String outputName) {
+            this.outputName = outputName;
+            return this;
+        }
+
+        public Builder pooling(Pooling pooling) {
+            this.pooling = pooling;
+            return this;
+        }
+
+        public Builder maxLength(int maxLength) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * How long a query waits for concurrent queries to share its inference call, zero disables waiting
+         */
+        public Builder maxBatchDelay(Duration maxBatchDelay) {
+            this.maxBatchDelay = maxBatchDelay;
+            return this;
+        }
+
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder intraOpThreads(int intraOpThreads) {
+            this.intraOpThreads = intraOpThreads;
+            return this;
+        }
+
+        public OnnxEmbeddingModel build() {
+            return new OnnxEmbeddingModel(this);
+        }
+    }
+}
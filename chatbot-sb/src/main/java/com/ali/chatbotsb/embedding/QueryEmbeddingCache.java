@@ -0,0 +1,103 @@
+package com.ali.chatbotsb.embedding;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Remembers the embeddings of recently embedded single texts, so a question that is embedded for the FAQ match,
+ * conversation recall and every vector store shard it is routed to only reaches the model once. Concurrent
+ * callers asking for the same text wait for the first call. Batches, as used by ingestion, pass straight through.
+ */
+public class QueryEmbeddingCache implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final Map<String, CompletableFuture<float[]>> entries;
+
+    public QueryEmbeddingCache(EmbeddingModel delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<float[]>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public EmbeddingModel getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        CompletableFuture<float[]> embedding;
+        boolean owner = false;
+        synchronized (entries) {
+            embedding = entries.get(text);
+            if (embedding == null) {
+                embedding = new CompletableFuture<>();
+                entries.put(text, embedding);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                embedding.complete(delegate.embed(text));
+            } catch (RuntimeException e) {
+                // Failures are not cached, the next caller tries again
+                synchronized (entries) {
+                    entries.remove(text, embedding);
+                }
+                embedding.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            // Callers may normalize or otherwise modify the array they get
+            return embedding.join().clone();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        return delegate.embed(texts);
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        return delegate.embed(documents, options, batchingStrategy);
+    }
+
+    @Override
+    public EmbeddingResponse embedForResponse(List<String> texts) {
+        return delegate.embedForResponse(texts);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,14 @@
+package com.ali.chatbotsb.event;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published once a chat exchange has been saved as a {@code ChatMessage}
+ */
+public record ChatTurnPersistedEvent(UUID sessionId,
+                                     UUID messageId,
+                                     String userMessage,
+                                     String botResponse,
+                                     LocalDateTime createdAt) {
+}
@@ -0,0 +1,9 @@
+package com.ali.chatbotsb.event;
+
+import java.util.UUID;
+
+/**
+ * Published when an admin creates, updates or deletes a {@code FaqEntry}
+ */
+public record FaqEntryChangedEvent(UUID faqId) {
+}
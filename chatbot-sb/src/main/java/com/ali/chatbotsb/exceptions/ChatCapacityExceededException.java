@@ -0,0 +1,11 @@
+package com.ali.chatbotsb.exceptions;
+
+public class ChatCapacityExceededException extends RuntimeException {
+    public ChatCapacityExceededException(String message) {
+        super(message);
+    }
+
+    public ChatCapacityExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
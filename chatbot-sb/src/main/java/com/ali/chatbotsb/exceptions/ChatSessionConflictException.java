@@ -0,0 +1,11 @@
+package com.ali.chatbotsb.exceptions;
+
+public class ChatSessionConflictException extends RuntimeException {
+    public ChatSessionConflictException(String message) {
+        super(message);
+    }
+
+    public ChatSessionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -3,6 +3,7 @@ package com.ali.chatbotsb.exceptions;
 import com.ali.chatbotsb.dto.ApiResponse;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -18,6 +19,13 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(ChatCapacityExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> handleChatCapacityExceededException(ChatCapacityExceededException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(ApiResponse.error(e.getMessage(), "CHAT_CAPACITY_EXCEEDED"));
+    }
+
     @ExceptionHandler(MedicalProcessingException.class)
     public ResponseEntity<ApiResponse<Void>> handleMedicalProcessingException(MedicalProcessingException e) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -36,6 +44,12 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(e.getMessage(), "CHAT_ACCESS_DENIED"));
     }
 
+    @ExceptionHandler(ChatSessionConflictException.class)
+    public ResponseEntity<ApiResponse<Void>> handleChatSessionConflictException(ChatSessionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage(), "CHAT_SESSION_CONFLICT"));
+    }
+
     @ExceptionHandler(VectorStoreException.class)
     public ResponseEntity<ApiResponse<Void>> handleVectorStoreException(VectorStoreException e) {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
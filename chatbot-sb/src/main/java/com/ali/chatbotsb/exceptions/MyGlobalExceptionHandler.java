@@ -3,6 +3,7 @@ package com.ali.chatbotsb.exceptions;
 import com.ali.chatbotsb.dto.ApiResponse;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -66,6 +67,21 @@ public class MyGlobalExceptionHandler {
                 .body(ApiResponse.error(e.getMessage(), "CHAT_ACCESS_DENIED"));
     }
 
+    @ExceptionHandler(ChatSessionConflictException.class)
+    public ResponseEntity<ApiResponse<Void>> handleChatSessionConflictException(ChatSessionConflictException e) {
+        log.warn("Chat session conflict: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage(), "CHAT_SESSION_CONFLICT"));
+    }
+
+    @ExceptionHandler(ChatCapacityExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> handleChatCapacityExceededException(ChatCapacityExceededException e) {
+        log.warn("Chat capacity exceeded: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(ApiResponse.error(e.getMessage(), "CHAT_CAPACITY_EXCEEDED"));
+    }
+
     @ExceptionHandler(MedicalProcessingException.class)
     public ResponseEntity<ApiResponse<Void>> handleMedicalProcessingException(MedicalProcessingException e) {
         log.error("Medical processing error: {}", e.getMessage(), e);
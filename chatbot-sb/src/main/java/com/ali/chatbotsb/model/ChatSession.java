@@ -39,6 +39,11 @@ public class ChatSession {
     @Builder.Default
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // Optimistic check so concurrent turns on different nodes cannot overwrite each other
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @OneToMany(mappedBy = "chatSession", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private List<ChatMessage> messages = new ArrayList<>();
@@ -2,6 +2,7 @@ package com.ali.chatbotsb.repository;
 
 import com.ali.chatbotsb.model.ChatMessage;
 import com.ali.chatbotsb.model.ChatSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,6 +16,8 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID>
 
     List<ChatMessage> findByChatSessionOrderByCreatedAtAsc(ChatSession chatSession);
 
+    List<ChatMessage> findByChatSessionOrderByCreatedAtDesc(ChatSession chatSession, Pageable pageable);
+
     @Query("SELECT cm FROM ChatMessage cm WHERE cm.chatSession.id = :sessionId ORDER BY cm.createdAt ASC")
     List<ChatMessage> findBySessionIdOrderByCreatedAtAsc(@Param("sessionId") UUID sessionId);
 
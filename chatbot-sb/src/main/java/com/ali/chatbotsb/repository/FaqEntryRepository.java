@@ -0,0 +1,16 @@
+package com.ali.chatbotsb.repository;
+
+import com.ali.chatbotsb.model.FaqEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FaqEntryRepository extends JpaRepository<FaqEntry, UUID> {
+
+    List<FaqEntry> findByEnabledTrue();
+
+    List<FaqEntry> findAllByOrderByUpdatedAtDesc();
+}
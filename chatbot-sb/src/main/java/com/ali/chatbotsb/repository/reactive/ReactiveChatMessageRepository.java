@@ -0,0 +1,76 @@
+package com.ali.chatbotsb.repository.reactive;
+
+import com.ali.chatbotsb.model.ChatMessage;
+import com.ali.chatbotsb.model.ChatSession;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * R2DBC access to the {@code chat_messages} table, mapped onto the same {@link ChatMessage} model as JPA.
+ * The parent session is populated with its id only.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveChatMessageRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Latest messages of a session, newest first
+     */
+    public Flux<ChatMessage> findRecentBySessionId(UUID sessionId, int limit) {
+        return databaseClient.sql("""
+                        SELECT id, chat_session_id, user_message, bot_response, context_used, confidence_score, created_at
+                        FROM chat_messages WHERE chat_session_id = :sessionId
+                        ORDER BY created_at DESC LIMIT :limit
+                        """)
+                .bind("sessionId", sessionId)
+                .bind("limit", limit)
+                .map(ReactiveChatMessageRepository::toMessage)
+                .all();
+    }
+
+    public Mono<ChatMessage> insert(ChatMessage message) {
+        if (message.getId() == null) {
+            message.setId(UUID.randomUUID());
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                        INSERT INTO chat_messages
+                            (id, chat_session_id, user_message, bot_response, context_used, confidence_score, created_at)
+                        VALUES (:id, :sessionId, :userMessage, :botResponse, :contextUsed, :confidenceScore, :createdAt)
+                        """)
+                .bind("id", message.getId())
+                .bind("sessionId", message.getChatSession().getId())
+                .bind("userMessage", message.getUserMessage())
+                .bind("botResponse", message.getBotResponse())
+                .bind("createdAt", message.getCreatedAt());
+        spec = message.getContextUsed() != null
+                ? spec.bind("contextUsed", message.getContextUsed())
+                : spec.bindNull("contextUsed", String.class);
+        spec = message.getConfidenceScore() != null
+                ? spec.bind("confidenceScore", message.getConfidenceScore())
+                : spec.bindNull("confidenceScore", Double.class);
+        return spec.fetch().rowsUpdated().thenReturn(message);
+    }
+
+    private static ChatMessage toMessage(Readable row) {
+        return ChatMessage.builder()
+                .id(row.get("id", UUID.class))
+                .chatSession(ChatSession.builder().id(row.get("chat_session_id", UUID.class)).build())
+                .userMessage(row.get("user_message", String.class))
+                .botResponse(row.get("bot_response", String.class))
+                .contextUsed(row.get("context_used", String.class))
+                .confidenceScore(row.get("confidence_score", Double.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .build();
+    }
+}
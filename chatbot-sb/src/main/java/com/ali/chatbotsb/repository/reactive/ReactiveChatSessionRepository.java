@@ -0,0 +1,83 @@
+package com.ali.chatbotsb.repository.reactive;
+
+import com.ali.chatbotsb.model.ChatSession;
+import com.ali.chatbotsb.model.User;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * R2DBC access to the {@code chat_sessions} table, mapped onto the same {@link ChatSession} model as JPA.
+ * The owning user is populated with its id only.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveChatSessionRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<ChatSession> findById(UUID id) {
+        return databaseClient.sql("""
+                        SELECT id, user_id, title, created_at, updated_at, version
+                        FROM chat_sessions WHERE id = :id
+                        """)
+                .bind("id", id)
+                .map(ReactiveChatSessionRepository::toSession)
+                .one();
+    }
+
+    public Mono<ChatSession> insert(ChatSession session) {
+        if (session.getId() == null) {
+            session.setId(UUID.randomUUID());
+        }
+        return databaseClient.sql("""
+                        INSERT INTO chat_sessions (id, user_id, title, created_at, updated_at, version)
+                        VALUES (:id, :userId, :title, :createdAt, :updatedAt, :version)
+                        """)
+                .bind("id", session.getId())
+                .bind("userId", session.getUser().getId())
+                .bind("title", session.getTitle())
+                .bind("createdAt", session.getCreatedAt())
+                .bind("updatedAt", session.getUpdatedAt())
+                .bind("version", session.getVersion())
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(session);
+    }
+
+    /**
+     * Bump the session's timestamp and version if nobody else has since we read it.
+     * Emits false when the optimistic version check fails.
+     */
+    public Mono<Boolean> touch(UUID id, long expectedVersion, LocalDateTime updatedAt) {
+        return databaseClient.sql("""
+                        UPDATE chat_sessions SET updated_at = :updatedAt, version = version + 1
+                        WHERE id = :id AND version = :version
+                        """)
+                .bind("updatedAt", updatedAt)
+                .bind("id", id)
+                .bind("version", expectedVersion)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows == 1);
+    }
+
+    private static ChatSession toSession(Readable row) {
+        Long version = row.get("version", Long.class);
+        return ChatSession.builder()
+                .id(row.get("id", UUID.class))
+                .user(User.builder().id(row.get("user_id", UUID.class)).build())
+                .title(row.get("title", String.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .updatedAt(row.get("updated_at", LocalDateTime.class))
+                .version(version != null ? version : 0L)
+                .build();
+    }
+}
@@ -3,9 +3,15 @@ package com.ali.chatbotsb.service;
 import com.ali.chatbotsb.dto.response.DashboardStatsResponse;
 import com.ali.chatbotsb.dto.response.VectorStoreTestResponse;
 import com.ali.chatbotsb.dto.response.AuthDebugResponse;
+import com.ali.chatbotsb.dto.response.QuantizationReportResponse;
+import com.ali.chatbotsb.dto.response.HotChunkReportResponse;
+import com.ali.chatbotsb.vectorstore.ExactVectorStore;
+import com.ali.chatbotsb.vectorstore.HotChunkCache;
+import com.ali.chatbotsb.vectorstore.HotChunkVectorStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +26,7 @@ import java.util.stream.Collectors;
 public class AdminService {
     
     private final VectorStore vectorStore;
+    private final ObjectProvider<HotChunkCache> hotChunkCache;
     
     /**
      * Get dashboard statistics
@@ -119,4 +126,64 @@ public class AdminService {
         
         return responseBuilder.additionalInfo(additionalInfo).build();
     }
+
+    /**
+     * Memory footprint and recall@k of the exact vector store's in-memory encoding
+     */
+    public QuantizationReportResponse getQuantizationReport(int sampleSize, int k) {
+        if (!(vectorStore instanceof ExactVectorStore exactVectorStore)) {
+            throw new IllegalStateException("Quantization applies to the exact vector store, current store is "
+                    + vectorStore.getClass().getSimpleName());
+        }
+
+        long start = System.currentTimeMillis();
+        ExactVectorStore.QuantizationReport report = exactVectorStore.quantizationReport(sampleSize, k);
+        log.info("✅ Quantization report: {} at {} bytes per vector, recall@{} {} (codes) / {} (rescored)",
+                report.encoding(), report.bytesPerVector(), k, report.codeRecall(), report.rescoredRecall());
+
+        return QuantizationReportResponse.builder()
+                .encoding(report.encoding())
+                .vectors(report.vectors())
+                .dimensions(report.dimensions())
+                .bytesPerVector(report.bytesPerVector())
+                .fullPrecisionBytesPerVector(report.fullPrecisionBytesPerVector())
+                .memoryBytes(report.memoryBytes())
+                .compressionRatio(report.compressionRatio())
+                .k(report.k())
+                .rescoreMultiplier(report.rescoreMultiplier())
+                .queries(report.queries())
+                .codeRecall(report.codeRecall())
+                .rescoredRecall(report.rescoredRecall())
+                .elapsedMs(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * Hit rate and current hot set of the hot-chunk cache
+     */
+    public HotChunkReportResponse getHotChunkReport(int limit) {
+        HotChunkCache cache = hotChunkCache.getIfAvailable();
+        if (cache == null) {
+            throw new IllegalStateException("The hot-chunk cache is disabled, set app.retrieval.hot-chunks.enabled=true");
+        }
+
+        long lookups = cache.hits() + cache.misses();
+        return HotChunkReportResponse.builder()
+                .hydrating(vectorStore instanceof HotChunkVectorStore)
+                .lookups(lookups)
+                .hits(cache.hits())
+                .hitRate(lookups > 0 ? (double) cache.hits() / lookups : 0.0)
+                .pinnedChunks(cache.size())
+                .pinnedBytes(cache.bytes())
+                .maxBytes(cache.maxBytes())
+                .hotChunks(cache.hottest(limit).stream()
+                        .map(chunk -> HotChunkReportResponse.HotChunk.builder()
+                                .id(chunk.id())
+                                .source(chunk.source() != null ? chunk.source().toString() : null)
+                                .frequency(chunk.frequency())
+                                .bytes(chunk.bytes())
+                                .build())
+                        .toList())
+                .build();
+    }
 }
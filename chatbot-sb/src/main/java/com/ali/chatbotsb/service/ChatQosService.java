@@ -0,0 +1,297 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.ChatQosProperties;
+import com.ali.chatbotsb.exceptions.ChatCapacityExceededException;
+import com.ali.chatbotsb.model.Role;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Role-based quality of service for chat turns.
+ * Each tier owns a number of reserved slots and competes for the shared remainder of
+ * {@code totalConcurrency}; when everything is busy, waiting turns are admitted by tier priority
+ * and then arrival order, so clinicians are not queued behind public traffic spikes.
+ */
+@Service
+@Slf4j
+public class ChatQosService {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final ChatQosProperties properties;
+    private final Map<String, TierState> tiers = new LinkedHashMap<>();
+    private final int sharedCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeSet<Waiter> queue = new TreeSet<>(Comparator
+            .comparingInt((Waiter waiter) -> -waiter.tier.config.getPriority())
+            .thenComparingLong(waiter -> waiter.sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private int sharedInUse;
+
+    public ChatQosService(ChatQosProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        properties.getTiers().forEach((name, config) -> tiers.put(name, new TierState(name, config, meterRegistry)));
+        if (!tiers.containsKey(properties.getDefaultTier())) {
+            tiers.put(properties.getDefaultTier(),
+                    new TierState(properties.getDefaultTier(), new ChatQosProperties.Tier(), meterRegistry));
+        }
+
+        int reserved = tiers.values().stream().mapToInt(tier -> tier.config.getReservedConcurrency()).sum();
+        this.sharedCapacity = Math.max(0, properties.getTotalConcurrency() - reserved);
+        if (reserved > properties.getTotalConcurrency()) {
+            log.warn("⚠️ Reserved chat concurrency ({}) exceeds total concurrency ({}), no shared capacity left",
+                    reserved, properties.getTotalConcurrency());
+        }
+    }
+
+    /**
+     * Run a chat turn inside the caller's tier, waiting for a slot if needed
+     */
+    public <T> T execute(Collection<? extends GrantedAuthority> authorities, Supplier<T> work) {
+        try (Admission ignored = admit(authorities)) {
+            return work.get();
+        }
+    }
+
+    /**
+     * Wait for a slot in the caller's tier. The slot is held until the admission is closed,
+     * which lets callers that do not complete on the admitting thread (streaming turns) release it later.
+     */
+    public Admission admit(Collection<? extends GrantedAuthority> authorities) {
+        if (!properties.isEnabled()) {
+            return Admission.NONE;
+        }
+
+        TierState tier = resolveTier(authorities);
+        Permit permit = acquire(tier);
+        long start = System.nanoTime();
+        return () -> {
+            release(permit);
+            long elapsed = System.nanoTime() - start;
+            tier.latency.record(elapsed, TimeUnit.NANOSECONDS);
+            if (TimeUnit.NANOSECONDS.toMillis(elapsed) > tier.config.getLatencyTargetMs()) {
+                tier.targetMissed.increment();
+            }
+        };
+    }
+
+    /**
+     * The tier with the highest priority among the tiers matching any of the user's roles
+     */
+    public String resolveTierName(Collection<? extends GrantedAuthority> authorities) {
+        return resolveTier(authorities).name;
+    }
+
+    private TierState resolveTier(Collection<? extends GrantedAuthority> authorities) {
+        TierState best = null;
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name == null || !name.startsWith(ROLE_PREFIX)) {
+                continue;
+            }
+            Role.RoleType roleType;
+            try {
+                roleType = Role.RoleType.valueOf(name.substring(ROLE_PREFIX.length()));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            for (TierState tier : tiers.values()) {
+                if (tier.config.getRoles().contains(roleType)
+                        && (best == null || tier.config.getPriority() > best.config.getPriority())) {
+                    best = tier;
+                }
+            }
+        }
+        return best != null ? best : tiers.get(properties.getDefaultTier());
+    }
+
+    private Permit acquire(TierState tier) {
+        long waitStart = System.nanoTime();
+        Waiter waiter = null;
+        lock.lock();
+        try {
+            Permit permit = tryGrant(tier);
+            if (permit != null && queue.isEmpty()) {
+                tier.queueWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+                return permit;
+            }
+            if (permit != null) {
+                // Others are already waiting, give the slot to whoever is first in line
+                releaseLocked(permit);
+            }
+
+            waiter = new Waiter(tier, sequence.incrementAndGet(), lock.newCondition());
+            queue.add(waiter);
+            tier.queued++;
+            dispatchLocked();
+
+            long remaining = TimeUnit.MILLISECONDS.toNanos(tier.config.getMaxQueueWaitMs());
+            while (waiter.permit == null && remaining > 0) {
+                remaining = waiter.ready.awaitNanos(remaining);
+            }
+
+            if (waiter.permit == null) {
+                queue.remove(waiter);
+                tier.queued--;
+                tier.rejected.increment();
+                throw new ChatCapacityExceededException(
+                        "The medical assistant is busy right now. Please try again in a moment.");
+            }
+
+            tier.queueWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            return waiter.permit;
+        } catch (InterruptedException e) {
+            // awaitNanos holds the lock again when it throws, so the abandoned waiter can be cleaned up here
+            if (waiter != null) {
+                if (waiter.permit != null) {
+                    // Granted between the signal and the interrupt, pass the slot on
+                    releaseLocked(waiter.permit);
+                    dispatchLocked();
+                } else if (queue.remove(waiter)) {
+                    tier.queued--;
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new ChatCapacityExceededException("Interrupted while waiting for chat capacity", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit) {
+        lock.lock();
+        try {
+            releaseLocked(permit);
+            dispatchLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit tryGrant(TierState tier) {
+        if (tier.reservedInUse < tier.config.getReservedConcurrency()) {
+            tier.reservedInUse++;
+            tier.active++;
+            return new Permit(tier, true);
+        }
+        if (sharedInUse < sharedCapacity) {
+            sharedInUse++;
+            tier.active++;
+            return new Permit(tier, false);
+        }
+        return null;
+    }
+
+    private void releaseLocked(Permit permit) {
+        if (permit.reserved) {
+            permit.tier.reservedInUse--;
+        } else {
+            sharedInUse--;
+        }
+        permit.tier.active--;
+    }
+
+    /**
+     * Hand free slots to waiters in priority order; a waiter is skipped only when
+     * neither its tier's reserved slots nor shared slots are free
+     */
+    private void dispatchLocked() {
+        Iterator<Waiter> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+            Permit permit = tryGrant(waiter.tier);
+            if (permit == null) {
+                if (sharedInUse >= sharedCapacity && allReservedBusy()) {
+                    return;
+                }
+                continue;
+            }
+            iterator.remove();
+            waiter.tier.queued--;
+            waiter.permit = permit;
+            waiter.ready.signal();
+        }
+    }
+
+    private boolean allReservedBusy() {
+        return tiers.values().stream()
+                .allMatch(tier -> tier.reservedInUse >= tier.config.getReservedConcurrency());
+    }
+
+    /**
+     * A held chat slot, closing it more than once is not supported
+     */
+    @FunctionalInterface
+    public interface Admission extends AutoCloseable {
+        Admission NONE = () -> { };
+
+        @Override
+        void close();
+    }
+
+    private record Permit(TierState tier, boolean reserved) {
+    }
+
+    private static final class Waiter {
+        private final TierState tier;
+        private final long sequence;
+        private final Condition ready;
+        private Permit permit;
+
+        private Waiter(TierState tier, long sequence, Condition ready) {
+            this.tier = tier;
+            this.sequence = sequence;
+            this.ready = ready;
+        }
+    }
+
+    private static final class TierState {
+        private final String name;
+        private final ChatQosProperties.Tier config;
+        private final Timer queueWait;
+        private final Timer latency;
+        private final Counter rejected;
+        private final Counter targetMissed;
+
+        // Guarded by the service lock, read without it only by gauges
+        private volatile int reservedInUse;
+        private volatile int active;
+        private volatile int queued;
+
+        private TierState(String name, ChatQosProperties.Tier config, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.config = config;
+            this.queueWait = Timer.builder("chat.qos.queue.wait")
+                    .tag("tier", name)
+                    .register(meterRegistry);
+            this.latency = Timer.builder("chat.qos.latency")
+                    .tag("tier", name)
+                    .serviceLevelObjectives(Duration.ofMillis(config.getLatencyTargetMs()))
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("chat.qos.rejected").tag("tier", name).register(meterRegistry);
+            this.targetMissed = Counter.builder("chat.qos.latency.target.missed").tag("tier", name).register(meterRegistry);
+            Gauge.builder("chat.qos.active", this, tier -> tier.active).tag("tier", name).register(meterRegistry);
+            Gauge.builder("chat.qos.queued", this, tier -> tier.queued).tag("tier", name).register(meterRegistry);
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package com.ali.chatbotsb.service;
 
+import com.ali.chatbotsb.config.ChatMemoryProperties;
 import com.ali.chatbotsb.dto.ChatMessageDto;
 import com.ali.chatbotsb.dto.ChatRequest;
 import com.ali.chatbotsb.dto.ChatResponse;
 import com.ali.chatbotsb.dto.ChatSessionDto;
+import com.ali.chatbotsb.event.ChatTurnPersistedEvent;
 import com.ali.chatbotsb.exceptions.ChatSessionNotFoundException;
 import com.ali.chatbotsb.exceptions.ChatAccessDeniedException;
+import com.ali.chatbotsb.exceptions.ChatSessionConflictException;
 import com.ali.chatbotsb.exceptions.MedicalProcessingException;
-import com.ali.chatbotsb.exceptions.VectorStoreException;
 import com.ali.chatbotsb.model.ChatSession;
 import com.ali.chatbotsb.model.ChatMessage;
 import com.ali.chatbotsb.model.User;
@@ -18,16 +20,22 @@ import com.ali.chatbotsb.utils.MedicalPromptTemplate;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -35,27 +43,79 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ChatService {
 
+    private static final String FAQ_SOURCE = "Curated Medical FAQ";
+
     private final ChatClient chatClient;
-    private final VectorStore vectorStore;
+    private final RetrievalService retrievalService;
+    private final RetrievalPrefetchService retrievalPrefetchService;
+    private final FaqService faqService;
+    private final EmbeddingModel embeddingModel;
     private final ChatSessionRepository chatSessionRepository;
     private final ChatMessageRepository chatMessageRepository;
     private final UserRepository userRepository;
     private final MedicalPromptTemplate promptTemplate;
+    private final ConversationMemoryService conversationMemoryService;
+    private final ChatMemoryProperties chatMemoryProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChatSessionLockRegistry sessionLockRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatQosService chatQosService;
+    private final RetrievalProfileService retrievalProfileService;
 
-    @Transactional
     public ChatResponse processChat(ChatRequest request) {
+        // Check for emergency keywords, answered immediately without waiting for chat capacity
+        if (promptTemplate.containsEmergencyKeywords(request.getMessage())) {
+            return ChatResponse.builder()
+                    .userMessage(request.getMessage())
+                    .botResponse(promptTemplate.getEmergencyResponse())
+                    .confidenceScore(1.0)
+                    .timestamp(LocalDateTime.now())
+                    .build();
+        }
+
+        if (request.getSessionId() == null) {
+            return executeChatTurn(request);
+        }
+
+        // Serialize turns of the same session, the lock must cover the commit so the next turn sees this one
+        UUID sessionId = request.getSessionId();
+        boolean locked;
         try {
-            User currentUser = getCurrentUser();
+            locked = sessionLockRegistry.tryLock(sessionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ChatSessionConflictException("Interrupted while waiting for chat session: " + sessionId, e);
+        }
+        if (!locked) {
+            throw new ChatSessionConflictException("A previous message in chat session " + sessionId + " is still being processed");
+        }
 
-            // Check for emergency keywords
-            if (promptTemplate.containsEmergencyKeywords(request.getMessage())) {
-                return ChatResponse.builder()
-                        .userMessage(request.getMessage())
-                        .botResponse(promptTemplate.getEmergencyResponse())
-                        .confidenceScore(1.0)
-                        .timestamp(LocalDateTime.now())
-                        .build();
-            }
+        try {
+            return executeChatTurn(request);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Another node committed a turn for this session after we read it
+            throw new ChatSessionConflictException("Chat session " + sessionId + " was updated concurrently. Please resend the message.", e);
+        } finally {
+            sessionLockRegistry.unlock(sessionId);
+        }
+    }
+
+    /**
+     * Run one turn in its own transaction, within the capacity of the user's QoS tier
+     */
+    private ChatResponse executeChatTurn(ChatRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Resolved up front so an unknown profile is rejected before taking chat capacity
+        RetrievalProfile profile = retrievalProfileService.resolve(request.getRetrievalProfile(),
+                authentication.getAuthorities());
+        return chatQosService.execute(authentication.getAuthorities(),
+                () -> transactionTemplate.execute(status -> processChatTurn(request, profile)));
+    }
+
+    private ChatResponse processChatTurn(ChatRequest request, RetrievalProfile profile) {
+        try {
+            User currentUser = getCurrentUser();
+            RetrievalScope scope = RetrievalScope.of(request, currentUser.getAuthorities());
 
             // Get or create chat session
             ChatSession session = getOrCreateChatSession(request, currentUser);
@@ -64,19 +124,44 @@ public class ChatService {
             String botResponse;
             Double confidenceScore = 0.7;
             List<String> sourceReferences = List.of();
+            String contextUsed = "";
 
             try {
-                // Get chat history for context
-                String chatHistory = getChatHistory(session);
-
-                // Perform similarity search
-                List<Document> relevantDocs = performSimilaritySearch(request.getMessage());
-                String context = extractContext(relevantDocs);
-
-                // Generate response using medical prompt template
-                botResponse = generateMedicalResponse(request.getMessage(), context, chatHistory);
-                confidenceScore = calculateConfidenceScore(relevantDocs);
-                sourceReferences = extractSourceReferences(relevantDocs);
+                // Reuse retrieval warmed up while the user was typing, if the draft matches
+                RetrievalPrefetchService.PrefetchedRetrieval prefetched = retrievalPrefetchService
+                        .take(currentUser.getEmail(), request.getMessage(), scope, profile)
+                        .orElse(null);
+                float[] questionEmbedding = prefetched != null ? prefetched.embeddingFor(request.getMessage()) : null;
+                if (questionEmbedding == null) {
+                    questionEmbedding = embeddingModel.embed(request.getMessage());
+                }
+
+                // Vetted FAQ answers are served without retrieval or the LLM
+                Optional<FaqService.FaqMatch> faqMatch = faqService.isActive()
+                        ? faqService.match(questionEmbedding)
+                        : Optional.empty();
+
+                if (faqMatch.isPresent()) {
+                    confidenceScore = faqMatch.get().score();
+                    sourceReferences = List.of(FAQ_SOURCE);
+                    contextUsed = "faq:" + faqMatch.get().faqId();
+                    botResponse = promptTemplate.enhanceFinalResponse(faqMatch.get().answer(), confidenceScore, sourceReferences);
+                } else {
+                    // Get chat history for context
+                    String chatHistory = getChatHistory(session, request.getMessage(), questionEmbedding);
+
+                    // Perform similarity search
+                    List<Document> relevantDocs = prefetched != null
+                            ? prefetched.documents()
+                            : retrievalService.search(request.getMessage(), scope, profile);
+                    String context = retrievalService.buildContext(relevantDocs);
+                    confidenceScore = retrievalService.calculateConfidenceScore(relevantDocs);
+                    sourceReferences = retrievalService.extractSourceReferences(relevantDocs);
+
+                    // Generate response using medical prompt template
+                    botResponse = generateMedicalResponse(request.getMessage(), context, chatHistory,
+                            confidenceScore, sourceReferences);
+                }
                 
             } catch (Exception e) {
                 botResponse = generateFallbackResponse(request.getMessage());
@@ -84,7 +169,9 @@ public class ChatService {
             }
 
             // Save chat message
-            ChatMessage chatMessage = saveChatMessage(session, request.getMessage(), botResponse, "", confidenceScore);
+            ChatMessage chatMessage = saveChatMessage(session, request.getMessage(), botResponse, contextUsed, confidenceScore);
+            eventPublisher.publishEvent(new ChatTurnPersistedEvent(session.getId(), chatMessage.getId(),
+                    chatMessage.getUserMessage(), chatMessage.getBotResponse(), chatMessage.getCreatedAt()));
 
             // Update session timestamp
             session.setUpdatedAt(LocalDateTime.now());
@@ -152,6 +239,7 @@ public class ChatService {
         }
 
         chatSessionRepository.delete(session);
+        conversationMemoryService.forget(sessionId);
     }
 
     private ChatSession getOrCreateChatSession(ChatRequest request, User user) {
@@ -179,45 +267,33 @@ public class ChatService {
         );
     }
 
-    private String getChatHistory(ChatSession session) {
-        List<ChatMessage> recentMessages = chatMessageRepository
-                .findByChatSessionOrderByCreatedAtAsc(session)
-                .stream()
-                .skip(Math.max(0, session.getMessages().size() - 6)) // Last 3 exchanges
-                .collect(Collectors.toList());
+    private String getChatHistory(ChatSession session, String question, float[] questionEmbedding) {
+        // Latest exchanges are always sent verbatim
+        List<ChatMessage> recentMessages = new ArrayList<>(chatMessageRepository.findByChatSessionOrderByCreatedAtDesc(
+                session, PageRequest.of(0, Math.max(1, chatMemoryProperties.getRecentExchanges()))));
+        Collections.reverse(recentMessages);
 
-        List<String> formattedHistory = recentMessages.stream()
-                .map(msg -> "User: " + msg.getUserMessage() + "\nBot: " + msg.getBotResponse())
-                .collect(Collectors.toList());
+        List<String> formattedHistory = new ArrayList<>();
 
-        return promptTemplate.formatChatHistory(formattedHistory);
-    }
-
-    private List<Document> performSimilaritySearch(String query) {
-        try {
-            SearchRequest searchRequest = SearchRequest.builder()
-                    .query(query)
-                    .topK(5) // Increased for better medical context
-                    .similarityThreshold(0.7) // Higher threshold for medical accuracy
-                    .build();
-
-            return vectorStore.similaritySearch(searchRequest);
-        } catch (Exception e) {
-            throw new VectorStoreException("Failed to search medical knowledge base", e);
+        // Older exchanges are recalled from the session memory by relevance to the question
+        if (!recentMessages.isEmpty()) {
+            List<UUID> recentIds = recentMessages.stream().map(ChatMessage::getId).toList();
+            try {
+                formattedHistory.addAll(conversationMemoryService.recall(session.getId(), question, questionEmbedding, recentIds));
+            } catch (Exception e) {
+                // Recall is an enhancement, the latest exchange is still enough to answer
+            }
         }
-    }
 
-    private String extractContext(List<Document> documents) {
-        if (documents.isEmpty()) {
-            return "No relevant medical information found in the knowledge base.";
-        }
+        recentMessages.stream()
+                .map(msg -> "User: " + msg.getUserMessage() + "\nBot: " + msg.getBotResponse())
+                .forEach(formattedHistory::add);
 
-        return documents.stream()
-                .map(Document::getText)
-                .collect(Collectors.joining("\n\n---\n\n"));
+        return promptTemplate.formatChatHistory(formattedHistory);
     }
 
-    private String generateMedicalResponse(String question, String context, String chatHistory) {
+    private String generateMedicalResponse(String question, String context, String chatHistory,
+                                           Double confidenceScore, List<String> references) {
         try {
             String prompt = promptTemplate.generateMedicalPrompt(question, context, chatHistory);
 
@@ -226,11 +302,6 @@ public class ChatService {
                     .call()
                     .content();
 
-            // Get confidence score for response enhancement
-            List<Document> relevantDocs = performSimilaritySearch(question);
-            Double confidenceScore = calculateConfidenceScore(relevantDocs);
-            List<String> references = extractSourceReferences(relevantDocs);
-
             // Enhance the response with medical disclaimers and references
             return promptTemplate.enhanceFinalResponse(rawResponse, confidenceScore, references);
 
@@ -239,34 +310,6 @@ public class ChatService {
         }
     }
 
-    private Double calculateConfidenceScore(List<Document> documents) {
-        if (documents.isEmpty()) {
-            return 0.1; // Very low confidence with no context
-        }
-
-        // Calculate average similarity score
-        double avgScore = documents.stream()
-                .mapToDouble(doc -> {
-                    // Assuming similarity score is available in metadata
-                    Object score = doc.getMetadata().get("similarity_score");
-                    return score instanceof Number ? ((Number) score).doubleValue() : 0.5;
-                })
-                .average()
-                .orElse(0.5);
-
-        return Math.min(1.0, Math.max(0.0, avgScore));
-    }
-
-    private List<String> extractSourceReferences(List<Document> documents) {
-        return documents.stream()
-                .map(doc -> {
-                    Object source = doc.getMetadata().get("source");
-                    return source != null ? source.toString() : "Medical Knowledge Base";
-                })
-                .distinct()
-                .collect(Collectors.toList());
-    }
-
     private ChatMessage saveChatMessage(ChatSession session, String userMessage,
                                       String botResponse, String context, Double confidenceScore) {
         ChatMessage message = ChatMessage.builder()
@@ -280,7 +323,7 @@ public class ChatService {
         return chatMessageRepository.save(message);
     }
 
-    private String generateSessionTitle(String firstMessage) {
+    static String generateSessionTitle(String firstMessage) {
         // Generate a concise title from the first message
         String title = firstMessage.length() > 50 ?
                 firstMessage.substring(0, 47) + "..." :
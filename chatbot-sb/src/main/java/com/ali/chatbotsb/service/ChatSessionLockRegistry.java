@@ -0,0 +1,47 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.ChatConcurrencyProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed table of fair single-permit semaphores striped by chat session id.
+ * Messages for the same session are processed one at a time and in arrival order on this node,
+ * while unrelated sessions only contend when they hash to the same stripe. Permits are not owned
+ * by a thread, so reactive turns may release them from a different thread than acquired them.
+ */
+@Component
+public class ChatSessionLockRegistry {
+
+    private final Semaphore[] stripes;
+    private final long timeoutSeconds;
+
+    public ChatSessionLockRegistry(ChatConcurrencyProperties properties) {
+        int size = Integer.highestOneBit(Math.max(1, properties.getStripes() - 1)) << 1;
+        this.stripes = new Semaphore[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Semaphore(1, true);
+        }
+        this.timeoutSeconds = properties.getTimeoutSeconds();
+    }
+
+    /**
+     * Acquire the stripe for a session, returning false when it could not be obtained in time
+     */
+    public boolean tryLock(UUID sessionId) throws InterruptedException {
+        return stripeFor(sessionId).tryAcquire(timeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    public void unlock(UUID sessionId) {
+        stripeFor(sessionId).release();
+    }
+
+    private Semaphore stripeFor(UUID sessionId) {
+        int hash = sessionId.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,253 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.ContextSelectionProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Post-retrieval stage between the ranked chunks and the prompt. Near-duplicates of a better-ranked chunk
+ * (overlapping neighbours, repeated headers and disclaimers) are dropped first, then maximal marginal relevance
+ * picks chunks that are relevant but add something the already chosen ones do not. Similarity between chunks
+ * is measured on word shingles, as the stores return chunks without their vectors. How many chunks are used
+ * adapts to the question: the ranked list is cut at its largest score gap, so one clear match is sent alone
+ * instead of with four weak ones, and the selection is capped by a token budget.
+ */
+@Service
+@Slf4j
+public class ContextSelectionService {
+
+    private static final String CUT_LIMIT = "limit";
+    private static final String CUT_GAP = "gap";
+    private static final String CUT_BUDGET = "budget";
+
+    private final ContextSelectionProperties properties;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final DistributionSummary tokensSaved;
+    private final DistributionSummary chunksDropped;
+    private final Map<String, DistributionSummary> depth = new HashMap<>();
+
+    public ContextSelectionService(ContextSelectionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tokensSaved = DistributionSummary.builder("retrieval.context.tokens.saved")
+                .description("Prompt tokens saved per turn by deduplication and MMR")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.chunksDropped = DistributionSummary.builder("retrieval.context.chunks.dropped")
+                .description("Chunks of the plain top-k left out of the prompt per turn")
+                .register(meterRegistry);
+        for (String cut : List.of(CUT_LIMIT, CUT_GAP, CUT_BUDGET)) {
+            depth.put(cut, DistributionSummary.builder("retrieval.context.depth")
+                    .description("Chunks sent to the LLM per turn, by what decided the depth")
+                    .tag("cut", cut)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Size of the pool to retrieve for a prompt of {@code limit} chunks, {@code pool} being the profile's choice
+     */
+    public int candidates(int limit, int pool) {
+        return properties.isEnabled() ? Math.max(limit, pool) : limit;
+    }
+
+    /**
+     * Pick at most {@code limit} chunks from the ranked list, best first
+     */
+    public List<Document> select(List<Document> ranked, int limit) {
+        List<Document> baseline = ranked.subList(0, Math.min(limit, ranked.size()));
+        if (!properties.isEnabled() || ranked.size() < 2) {
+            return baseline;
+        }
+
+        List<Set<Long>> shingles = ranked.stream().map(document -> shingles(document.getText())).toList();
+        List<String> texts = ranked.stream().map(document -> normalize(document.getText())).toList();
+
+        // 1. Drop near-duplicates of a better-ranked chunk
+        List<Integer> distinct = new ArrayList<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            boolean duplicate = false;
+            for (int kept : distinct) {
+                double overlap = shingles.get(i).isEmpty() || shingles.get(kept).isEmpty()
+                        ? sameText(texts.get(i), texts.get(kept))
+                        : containment(shingles.get(i), shingles.get(kept));
+                if (overlap >= properties.getDuplicateThreshold()) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                distinct.add(i);
+            }
+        }
+
+        // 2. Depth from the score distribution of the remaining chunks
+        String cut = CUT_LIMIT;
+        int target = limit;
+        List<Double> scores = distinct.stream().map(i -> relevance(ranked.get(i))).toList();
+        if (properties.isAdaptiveDepth() && !scores.contains(null)) {
+            int elbow = elbow(scores, limit);
+            if (elbow < Math.min(limit, distinct.size())) {
+                target = elbow;
+                cut = CUT_GAP;
+            }
+        }
+
+        // 3. Maximal marginal relevance, relevance is rank based since fused, reranked and vector scores differ in scale
+        List<Integer> remaining = new ArrayList<>(distinct);
+        List<Integer> selected = new ArrayList<>();
+        double lambda = properties.getMmrLambda();
+        while (selected.size() < target && !remaining.isEmpty()) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int candidate : remaining) {
+                double relevance = 1.0 - (double) candidate / ranked.size();
+                double redundancy = 0.0;
+                for (int chosen : selected) {
+                    double similarity = shingles.get(candidate).isEmpty() || shingles.get(chosen).isEmpty()
+                            ? sameText(texts.get(candidate), texts.get(chosen))
+                            : jaccard(shingles.get(candidate), shingles.get(chosen));
+                    redundancy = Math.max(redundancy, similarity);
+                }
+                double score = lambda * relevance - (1 - lambda) * redundancy;
+                if (score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            selected.add(best);
+            remaining.remove(Integer.valueOf(best));
+        }
+
+        // 4. Token budget, the best chunk is always kept
+        List<Document> documents = new ArrayList<>();
+        int selectedTokens = 0;
+        for (int index : selected) {
+            Document document = ranked.get(index);
+            int tokens = countTokens(document);
+            if (!documents.isEmpty() && properties.getTokenBudget() > 0
+                    && selectedTokens + tokens > properties.getTokenBudget()) {
+                cut = CUT_BUDGET;
+                break;
+            }
+            documents.add(document);
+            selectedTokens += tokens;
+        }
+
+        int baselineTokens = baseline.stream().mapToInt(this::countTokens).sum();
+        tokensSaved.record(Math.max(0, baselineTokens - selectedTokens));
+        chunksDropped.record(Math.max(0, baseline.size() - documents.size()));
+        depth.get(cut).record(documents.size());
+        log.debug("✂️ Context: {} of {} ranked chunks (cut by {}), {} duplicates dropped, {} tokens instead of {}",
+                documents.size(), ranked.size(), cut, ranked.size() - distinct.size(), selectedTokens, baselineTokens);
+        return documents;
+    }
+
+    /**
+     * Depth at the largest drop between neighbouring scores within the first {@code limit}, when that drop is a
+     * large enough share of the whole pool's score range; otherwise {@code limit}
+     */
+    private int elbow(List<Double> scores, int limit) {
+        int depth = Math.min(limit, scores.size());
+        double range = scores.get(0) - scores.get(scores.size() - 1);
+        if (depth < 2 || range <= 0) {
+            return depth;
+        }
+
+        int cut = depth;
+        double largestGap = 0.0;
+        for (int i = Math.max(0, properties.getMinChunks() - 1); i < depth - 1; i++) {
+            double gap = scores.get(i) - scores.get(i + 1);
+            if (gap > largestGap) {
+                largestGap = gap;
+                cut = i + 1;
+            }
+        }
+        return largestGap / range >= properties.getMinGapRatio() ? cut : depth;
+    }
+
+    /**
+     * Relevance score of the stage that produced the ranking, cross-encoder or vector store. {@code null} for an
+     * unreranked fused chunk: rank fusion scores follow ranks, so their largest gap separates chunks both
+     * retrievers found from keyword-only hits rather than relevant from irrelevant ones, and such rankings are
+     * only cut by the token budget.
+     */
+    private static Double relevance(Document document) {
+        Object rerankScore = document.getMetadata().get(CrossEncoderRerankService.RERANK_SCORE_METADATA_KEY);
+        if (rerankScore instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (document.getMetadata().containsKey(RetrievalService.RRF_SCORE_METADATA_KEY)) {
+            return null;
+        }
+        return document.getScore() != null ? document.getScore() : 0.0;
+    }
+
+    private int countTokens(Document document) {
+        return document.getText() != null ? tokenCountEstimator.estimate(document.getText()) : 0;
+    }
+
+    private Set<Long> shingles(String text) {
+        Set<Long> shingles = new HashSet<>();
+        if (text == null) {
+            return shingles;
+        }
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        int size = properties.getShingleSize();
+        for (int i = 0; i + size <= words.length; i++) {
+            long hash = 1125899906842597L;
+            for (int j = i; j < i + size; j++) {
+                hash = 31 * hash + words[j].hashCode();
+            }
+            shingles.add(hash);
+        }
+        return shingles;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").strip();
+    }
+
+    /**
+     * Overlap of chunks too short to have a shingle, which only duplicate each other word for word
+     */
+    private static double sameText(String a, String b) {
+        return a.equals(b) ? 1.0 : 0.0;
+    }
+
+    /**
+     * Share of {@code a} found in {@code b}, so a short chunk repeated inside a longer one counts as a duplicate
+     */
+    private static double containment(Set<Long> a, Set<Long> b) {
+        return (double) intersection(a, b) / a.size();
+    }
+
+    private static double jaccard(Set<Long> a, Set<Long> b) {
+        int shared = intersection(a, b);
+        return (double) shared / (a.size() + b.size() - shared);
+    }
+
+    private static int intersection(Set<Long> a, Set<Long> b) {
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        int shared = 0;
+        for (Long shingle : smaller) {
+            if (larger.contains(shingle)) {
+                shared++;
+            }
+        }
+        return shared;
+    }
+}
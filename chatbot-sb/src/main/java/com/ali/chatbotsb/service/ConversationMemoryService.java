@@ -0,0 +1,196 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.ChatMemoryProperties;
+import com.ali.chatbotsb.event.ChatTurnPersistedEvent;
+import com.ali.chatbotsb.model.ChatMessage;
+import com.ali.chatbotsb.repository.ChatMessageRepository;
+import com.ali.chatbotsb.utils.VectorMath;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Per-session memory index of embedded chat turns.
+ * Turns are embedded in the background once persisted, so a new question can recall the few
+ * older exchanges that are relevant to it instead of replaying the whole conversation.
+ */
+@Service
+@Slf4j
+public class ConversationMemoryService {
+
+    private final EmbeddingModel embeddingModel;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMemoryProperties properties;
+    private final Executor chatMemoryExecutor;
+
+    private final Map<UUID, SessionMemory> sessions;
+
+    public ConversationMemoryService(EmbeddingModel embeddingModel,
+                                     ChatMessageRepository chatMessageRepository,
+                                     ChatMemoryProperties properties,
+                                     @Qualifier("chatMemoryExecutor") Executor chatMemoryExecutor) {
+        this.embeddingModel = embeddingModel;
+        this.chatMessageRepository = chatMessageRepository;
+        this.properties = properties;
+        this.chatMemoryExecutor = chatMemoryExecutor;
+        this.sessions = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, SessionMemory> eldest) {
+                return size() > properties.getMaxSessions();
+            }
+        });
+    }
+
+    /**
+     * Embed a turn after its transaction commits so rolled back turns never enter the index
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTurnPersisted(ChatTurnPersistedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        SessionMemory memory = sessions.get(event.sessionId());
+        if (memory == null) {
+            scheduleBackfill(event.sessionId());
+            return;
+        }
+
+        chatMemoryExecutor.execute(() -> {
+            try {
+                float[] embedding = embed(event.userMessage(), event.botResponse());
+                memory.add(new MemoryEntry(event.messageId(), event.createdAt(),
+                        event.userMessage(), event.botResponse(), embedding));
+            } catch (Exception e) {
+                log.warn("Failed to embed chat turn {} for session {}: {}",
+                        event.messageId(), event.sessionId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Returns the earlier exchanges most relevant to the question, oldest first, formatted for the prompt.
+     * A question embedding computed earlier (e.g. by prefetch) is reused when given.
+     */
+    public List<String> recall(UUID sessionId, String question, float[] questionEmbedding,
+                               Collection<UUID> excludeMessageIds) {
+        if (!properties.isEnabled() || properties.getTopK() <= 0) {
+            return List.of();
+        }
+
+        SessionMemory memory = sessions.get(sessionId);
+        if (memory == null) {
+            // First access since startup or eviction, rebuild in the background for later turns
+            scheduleBackfill(sessionId);
+            return List.of();
+        }
+
+        List<MemoryEntry> candidates = memory.snapshot().stream()
+                .filter(entry -> !excludeMessageIds.contains(entry.messageId()))
+                .toList();
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        float[] query = VectorMath.normalize(questionEmbedding != null ? questionEmbedding : embeddingModel.embed(question));
+
+        return candidates.stream()
+                .map(entry -> new ScoredEntry(entry, VectorMath.dot(query, entry.embedding())))
+                .filter(scored -> scored.score() >= properties.getMinSimilarity())
+                .sorted(Comparator.comparingDouble(ScoredEntry::score).reversed())
+                .limit(properties.getTopK())
+                .map(ScoredEntry::entry)
+                .sorted(Comparator.comparing(MemoryEntry::createdAt))
+                .map(entry -> "User: " + entry.userMessage() + "\nBot: " + entry.botResponse())
+                .toList();
+    }
+
+    /**
+     * Drop the memory of a deleted session
+     */
+    public void forget(UUID sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    private void scheduleBackfill(UUID sessionId) {
+        SessionMemory memory = new SessionMemory(properties.getMaxTurnsPerSession());
+        if (sessions.putIfAbsent(sessionId, memory) != null) {
+            return; // Already loaded or being loaded
+        }
+
+        chatMemoryExecutor.execute(() -> {
+            try {
+                List<ChatMessage> messages = chatMessageRepository.findBySessionIdOrderByCreatedAtAsc(sessionId);
+                if (messages.isEmpty()) {
+                    return;
+                }
+
+                List<ChatMessage> turns = messages.subList(
+                        Math.max(0, messages.size() - properties.getMaxTurnsPerSession()), messages.size());
+                List<float[]> embeddings = embeddingModel.embed(turns.stream()
+                        .map(msg -> turnText(msg.getUserMessage(), msg.getBotResponse()))
+                        .toList());
+
+                for (int i = 0; i < turns.size(); i++) {
+                    ChatMessage msg = turns.get(i);
+                    memory.add(new MemoryEntry(msg.getId(), msg.getCreatedAt(), msg.getUserMessage(),
+                            msg.getBotResponse(), VectorMath.normalize(embeddings.get(i))));
+                }
+                log.debug("Backfilled conversation memory for session {} with {} turns", sessionId, turns.size());
+            } catch (Exception e) {
+                log.warn("Failed to backfill conversation memory for session {}: {}", sessionId, e.getMessage());
+                sessions.remove(sessionId, memory);
+            }
+        });
+    }
+
+    private float[] embed(String userMessage, String botResponse) {
+        return VectorMath.normalize(embeddingModel.embed(turnText(userMessage, botResponse)));
+    }
+
+    private String turnText(String userMessage, String botResponse) {
+        String text = "User: " + userMessage + "\nBot: " + botResponse;
+        return text.length() > properties.getMaxTurnChars() ? text.substring(0, properties.getMaxTurnChars()) : text;
+    }
+
+    private record MemoryEntry(UUID messageId, LocalDateTime createdAt, String userMessage,
+                               String botResponse, float[] embedding) {
+    }
+
+    private record ScoredEntry(MemoryEntry entry, float score) {
+    }
+
+    private static class SessionMemory {
+        private final int maxTurns;
+        private final LinkedHashMap<UUID, MemoryEntry> entries = new LinkedHashMap<>();
+
+        SessionMemory(int maxTurns) {
+            this.maxTurns = maxTurns;
+        }
+
+        synchronized void add(MemoryEntry entry) {
+            entries.putIfAbsent(entry.messageId(), entry);
+            while (entries.size() > maxTurns) {
+                UUID oldest = entries.keySet().iterator().next();
+                entries.remove(oldest);
+            }
+        }
+
+        synchronized List<MemoryEntry> snapshot() {
+            return new ArrayList<>(entries.values());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.ali.chatbotsb.service;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.util.PairList;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.ali.chatbotsb.config.RerankProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformers.ResourceCacheService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * Rescores retrieved chunks with a local cross-encoder run through ONNX Runtime. Unlike the bi-encoder used
+ * for vector search, the cross-encoder reads question and chunk together, so its ranking is much sharper and
+ * only the best few chunks need to reach the prompt. Candidates are scored in batches on the rerank pool.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "app.retrieval.rerank.enabled", havingValue = "true")
+public class CrossEncoderRerankService {
+
+    public static final String RERANK_SCORE_METADATA_KEY = "rerank_score";
+
+    private final RerankProperties properties;
+    private final Executor rerankExecutor;
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final HuggingFaceTokenizer tokenizer;
+    private final boolean tokenTypeInput;
+
+    public CrossEncoderRerankService(RerankProperties properties,
+                                     @Qualifier("rerankExecutor") Executor rerankExecutor) throws IOException, OrtException {
+        this.properties = properties;
+        this.rerankExecutor = rerankExecutor;
+
+        ResourceCacheService cache = new ResourceCacheService(properties.getCacheDirectory());
+        Resource tokenizerResource = cache.getCachedResource(properties.getTokenizerUri());
+        Resource modelResource = cache.getCachedResource(properties.getModelUri());
+
+        try (InputStream in = tokenizerResource.getInputStream()) {
+            this.tokenizer = HuggingFaceTokenizer.newInstance(in, Map.of(
+                    "padding", "true",
+                    "truncation", "true",
+                    "maxLength", Integer.toString(properties.getMaxLength())));
+        }
+
+        this.environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setIntraOpNumThreads(properties.getIntraOpThreads());
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            this.session = environment.createSession(modelResource.getContentAsByteArray(), options);
+        }
+        this.tokenTypeInput = session.getInputNames().contains("token_type_ids");
+        log.info("🔧 Cross-encoder reranker loaded from {} (inputs {})", properties.getModelUri(), session.getInputNames());
+    }
+
+    /**
+     * Best {@code topN} candidates by cross-encoder relevance to the question, highest first
+     */
+    public List<Document> rerank(String question, List<Document> candidates, int topN) {
+        if (candidates.size() <= 1) {
+            return candidates;
+        }
+
+        List<CompletableFuture<float[]>> batches = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += properties.getBatchSize()) {
+            List<Document> batch = candidates.subList(from, Math.min(candidates.size(), from + properties.getBatchSize()));
+            batches.add(CompletableFuture.supplyAsync(() -> score(question, batch), rerankExecutor));
+        }
+
+        float[] scores = new float[candidates.size()];
+        int index = 0;
+        for (CompletableFuture<float[]> batch : batches) {
+            for (float score : batch.join()) {
+                scores[index++] = score;
+            }
+        }
+
+        return IntStream.range(0, candidates.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                .limit(topN)
+                .map(i -> candidates.get(i).mutate()
+                        .metadata(RERANK_SCORE_METADATA_KEY, scores[i])
+                        .build())
+                .toList();
+    }
+
+    private float[] score(String question, List<Document> batch) {
+        PairList<String, String> pairs = new PairList<>(batch.size());
+        for (Document document : batch) {
+            pairs.add(question, document.getText() != null ? document.getText() : "");
+        }
+        // Padded to the longest pair of the batch
+        Encoding[] encodings = tokenizer.batchEncode(pairs);
+        int length = encodings[0].getIds().length;
+        long[] shape = {encodings.length, length};
+
+        LongBuffer ids = LongBuffer.allocate(encodings.length * length);
+        LongBuffer mask = LongBuffer.allocate(encodings.length * length);
+        LongBuffer types = LongBuffer.allocate(encodings.length * length);
+        for (Encoding encoding : encodings) {
+            ids.put(encoding.getIds());
+            mask.put(encoding.getAttentionMask());
+            types.put(encoding.getTypeIds());
+        }
+        ids.flip();
+        mask.flip();
+        types.flip();
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(environment, ids, shape));
+            inputs.put("attention_mask", OnnxTensor.createTensor(environment, mask, shape));
+            if (tokenTypeInput) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(environment, types, shape));
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                // Relevance logits, shape [batch, 1]
+                float[][] logits = (float[][]) result.get(0).getValue();
+                float[] scores = new float[logits.length];
+                for (int i = 0; i < logits.length; i++) {
+                    scores[i] = logits[i][0];
+                }
+                return scores;
+            }
+        } catch (OrtException e) {
+            throw new CompletionException("Cross-encoder inference failed", e);
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws OrtException {
+        session.close();
+        tokenizer.close();
+    }
+}
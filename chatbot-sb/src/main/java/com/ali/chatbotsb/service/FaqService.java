@@ -0,0 +1,251 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.FaqProperties;
+import com.ali.chatbotsb.dto.FaqEntryDto;
+import com.ali.chatbotsb.dto.FaqEntryRequest;
+import com.ali.chatbotsb.dto.response.FaqStatsResponse;
+import com.ali.chatbotsb.event.FaqEntryChangedEvent;
+import com.ali.chatbotsb.exceptions.ResourceNotFoundException;
+import com.ali.chatbotsb.model.FaqEntry;
+import com.ali.chatbotsb.repository.FaqEntryRepository;
+import com.ali.chatbotsb.utils.VectorMath;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Admin-curated answers for frequently asked questions.
+ * Entries live in Postgres and their question embeddings are held in memory, so a matching
+ * question is answered without calling the LLM.
+ */
+@Service
+@Slf4j
+public class FaqService {
+
+    private final FaqEntryRepository faqEntryRepository;
+    private final EmbeddingModel embeddingModel;
+    private final FaqProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    // Replaced wholesale on every change so lookups never need a lock
+    private volatile List<IndexedFaq> index = List.of();
+    // Serializes rebuilds and single-entry refreshes so no swap is based on a stale copy
+    private final Object indexLock = new Object();
+
+    public FaqService(FaqEntryRepository faqEntryRepository,
+                      EmbeddingModel embeddingModel,
+                      FaqProperties properties,
+                      ApplicationEventPublisher eventPublisher,
+                      MeterRegistry meterRegistry) {
+        this.faqEntryRepository = faqEntryRepository;
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.hits = Counter.builder("chat.faq.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.faq.lookups").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("chat.faq.hit.rate", this, FaqService::hitRate).register(meterRegistry);
+        Gauge.builder("chat.faq.entries", this, service -> service.index.size()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexOnStartup() {
+        try {
+            reloadIndex();
+        } catch (Exception e) {
+            log.warn("⚠️ Could not load FAQ index on startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the in-memory index from all enabled entries
+     */
+    public int reloadIndex() {
+        synchronized (indexLock) {
+            if (!properties.isEnabled()) {
+                index = List.of();
+                return 0;
+            }
+
+            List<FaqEntry> entries = faqEntryRepository.findByEnabledTrue();
+            if (entries.isEmpty()) {
+                index = List.of();
+                return 0;
+            }
+
+            List<float[]> embeddings = embeddingModel.embed(entries.stream().map(FaqEntry::getQuestion).toList());
+            List<IndexedFaq> rebuilt = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                FaqEntry entry = entries.get(i);
+                rebuilt.add(new IndexedFaq(entry.getId(), entry.getAnswer(), VectorMath.normalize(embeddings.get(i))));
+            }
+            index = List.copyOf(rebuilt);
+            log.info("✅ FAQ index loaded with {} entries", rebuilt.size());
+            return rebuilt.size();
+        }
+    }
+
+    /**
+     * Re-index only the edited entry once its transaction commits, so a failed embedding never rolls back the edit.
+     * The entry is read back under the lock and outside the committed persistence context, so whichever refresh
+     * runs last reflects the latest committed state.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onEntryChanged(FaqEntryChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try {
+            synchronized (indexLock) {
+                Optional<FaqEntry> entry = faqEntryRepository.findById(event.faqId()).filter(FaqEntry::isEnabled);
+                List<IndexedFaq> updated = new ArrayList<>(index.size() + 1);
+                for (IndexedFaq faq : index) {
+                    if (!faq.id().equals(event.faqId())) {
+                        updated.add(faq);
+                    }
+                }
+                if (entry.isPresent()) {
+                    float[] embedding = embeddingModel.embed(entry.get().getQuestion());
+                    updated.add(new IndexedFaq(entry.get().getId(), entry.get().getAnswer(), VectorMath.normalize(embedding)));
+                }
+                index = List.copyOf(updated);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not refresh FAQ entry {} in the index, POST /api/admin/faq/reload to retry: {}",
+                    event.faqId(), e.getMessage());
+        }
+    }
+
+    public boolean isActive() {
+        return properties.isEnabled() && !index.isEmpty();
+    }
+
+    /**
+     * Find the curated answer for a question, if one matches above the configured threshold
+     */
+    public Optional<FaqMatch> match(float[] questionEmbedding) {
+        List<IndexedFaq> snapshot = index;
+        if (!properties.isEnabled() || snapshot.isEmpty()) {
+            return Optional.empty();
+        }
+
+        float[] query = VectorMath.normalize(questionEmbedding);
+        IndexedFaq best = null;
+        float bestScore = -1f;
+        for (IndexedFaq faq : snapshot) {
+            float score = VectorMath.dot(query, faq.embedding());
+            if (score > bestScore) {
+                bestScore = score;
+                best = faq;
+            }
+        }
+
+        if (best == null || bestScore < properties.getSimilarityThreshold()) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(new FaqMatch(best.id(), best.answer(), bestScore));
+    }
+
+    @Transactional(readOnly = true)
+    public List<FaqEntryDto> getAllEntries() {
+        return faqEntryRepository.findAllByOrderByUpdatedAtDesc().stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public FaqEntryDto createEntry(FaqEntryRequest request, String createdBy) {
+        FaqEntry entry = faqEntryRepository.save(FaqEntry.builder()
+                .question(request.getQuestion().trim())
+                .answer(request.getAnswer().trim())
+                .category(request.getCategory())
+                .enabled(request.getEnabled() == null || request.getEnabled())
+                .createdBy(createdBy)
+                .build());
+        eventPublisher.publishEvent(new FaqEntryChangedEvent(entry.getId()));
+        return convertToDto(entry);
+    }
+
+    @Transactional
+    public FaqEntryDto updateEntry(UUID id, FaqEntryRequest request) {
+        FaqEntry entry = faqEntryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("FAQ entry", "id", id.toString()));
+
+        entry.setQuestion(request.getQuestion().trim());
+        entry.setAnswer(request.getAnswer().trim());
+        entry.setCategory(request.getCategory());
+        if (request.getEnabled() != null) {
+            entry.setEnabled(request.getEnabled());
+        }
+
+        FaqEntry saved = faqEntryRepository.save(entry);
+        eventPublisher.publishEvent(new FaqEntryChangedEvent(saved.getId()));
+        return convertToDto(saved);
+    }
+
+    @Transactional
+    public void deleteEntry(UUID id) {
+        FaqEntry entry = faqEntryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("FAQ entry", "id", id.toString()));
+        faqEntryRepository.delete(entry);
+        eventPublisher.publishEvent(new FaqEntryChangedEvent(entry.getId()));
+    }
+
+    public FaqStatsResponse getStats() {
+        long hitCount = (long) hits.count();
+        long lookups = hitCount + (long) misses.count();
+        return FaqStatsResponse.builder()
+                .indexedEntries(index.size())
+                .similarityThreshold(properties.getSimilarityThreshold())
+                .lookups(lookups)
+                .hits(hitCount)
+                .hitRate(hitRate())
+                .build();
+    }
+
+    private double hitRate() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0.0 : hits.count() / lookups;
+    }
+
+    private FaqEntryDto convertToDto(FaqEntry entry) {
+        return FaqEntryDto.builder()
+                .id(entry.getId())
+                .question(entry.getQuestion())
+                .answer(entry.getAnswer())
+                .category(entry.getCategory())
+                .enabled(entry.isEnabled())
+                .createdBy(entry.getCreatedBy())
+                .createdAt(entry.getCreatedAt())
+                .updatedAt(entry.getUpdatedAt())
+                .build();
+    }
+
+    private record IndexedFaq(UUID id, String answer, float[] embedding) {
+    }
+
+    public record FaqMatch(UUID faqId, String answer, double score) {
+    }
+}
@@ -1,10 +1,15 @@
 package com.ali.chatbotsb.service;
 
+import com.ali.chatbotsb.config.ShardingProperties;
+import com.ali.chatbotsb.utils.MedicalPromptEnhancer;
+import com.ali.chatbotsb.vectorstore.Bm25Index;
+import com.ali.chatbotsb.vectorstore.ShardedVectorStore;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tika.Tika;
 import org.apache.tika.exception.TikaException;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.xml.sax.SAXException;
 
@@ -18,16 +23,41 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 public class PdfIngestService {
 
+    public static final String DOCUMENT_ID_METADATA_KEY = "document_id";
+    public static final String SOURCE_METADATA_KEY = "source";
+    public static final String CATEGORY_METADATA_KEY = "category";
+    public static final String DESCRIPTION_METADATA_KEY = "description";
+    public static final String ALLOWED_ROLES_METADATA_KEY = "allowed_roles";
+    /**
+     * Allowed-roles entry of documents every signed-in user may see
+     */
+    public static final String PUBLIC_ROLE = "PUBLIC";
+
     private final VectorStore vectorStore;
+    private final Bm25Index bm25Index;
+    private final MedicalPromptEnhancer promptEnhancer;
+    private final ShardingProperties shardingProperties;
     private final Tika tika = new Tika();
 
-    public PdfIngestService(VectorStore vectorStore) {
+    public PdfIngestService(VectorStore vectorStore, ObjectProvider<Bm25Index> bm25Index,
+                            MedicalPromptEnhancer promptEnhancer, ShardingProperties shardingProperties) {
         this.vectorStore = vectorStore;
+        this.bm25Index = bm25Index.getIfAvailable();
+        this.promptEnhancer = promptEnhancer;
+        this.shardingProperties = shardingProperties;
         log.info("🔧 PdfIngestService initialized with VectorStore: {}", 
                 vectorStore != null ? vectorStore.getClass().getSimpleName() : "NULL");
     }
 
     public int ingestPdf(File pdfFile) throws IOException, TikaException, SAXException {
+        return ingestPdf(pdfFile, Map.of());
+    }
+
+    /**
+     * Ingest a PDF with document-level metadata (document id, source, category, allowed roles) copied onto
+     * every chunk, so searches can be filtered to a subset of the knowledge base
+     */
+    public int ingestPdf(File pdfFile, Map<String, Object> documentMetadata) throws IOException, TikaException, SAXException {
         log.info("🔄 Starting PDF ingestion for file: {}", pdfFile.getName());
         log.info("📂 File path: {}", pdfFile.getAbsolutePath());
         log.info("📊 File size: {} bytes", pdfFile.length());
@@ -65,12 +95,21 @@ public class PdfIngestService {
 
         // 3. Create Document list with id + metadata
         log.info("📝 Creating documents with metadata...");
+        Map<String, Object> baseMetadata = new HashMap<>(documentMetadata);
+        baseMetadata.putIfAbsent(DOCUMENT_ID_METADATA_KEY, UUID.randomUUID().toString());
+        baseMetadata.putIfAbsent(SOURCE_METADATA_KEY, pdfFile.getName());
+        baseMetadata.putIfAbsent(ALLOWED_ROLES_METADATA_KEY, List.of(PUBLIC_ROLE));
+
         AtomicInteger counter = new AtomicInteger(0);
         List<Document> docs = chunks.stream()
                 .map(chunk -> {
-                    Map<String, Object> metadata = new HashMap<>();
+                    Map<String, Object> metadata = new HashMap<>(baseMetadata);
                     metadata.put("filename", pdfFile.getName());
                     metadata.put("chunk", counter.getAndIncrement());
+                    // Decides the specialty shard the chunk is stored in
+                    metadata.put(ShardedVectorStore.SHARD_METADATA_KEY, promptEnhancer
+                            .classifySpecialty(chunk, shardingProperties.getClassificationMinHits())
+                            .orElse(shardingProperties.getGeneralShard()));
                     metadata.put("ingestion_time", System.currentTimeMillis());
 
                     String docId = UUID.randomUUID().toString();
@@ -101,6 +140,17 @@ public class PdfIngestService {
             throw new RuntimeException("Vector storage failed: " + e.getMessage(), e);
         }
 
+        // 5. Index the same chunks for keyword search, ids match so hybrid results fuse
+        if (bm25Index != null) {
+            try {
+                bm25Index.add(docs);
+                log.info("✅ Indexed {} chunks for keyword search ({} total)", docs.size(), bm25Index.size());
+            } catch (Exception e) {
+                // Vector search still works, keyword hits for this file are missing until it is re-uploaded
+                log.error("❌ Failed to index documents for keyword search: {}", e.getMessage(), e);
+            }
+        }
+
         log.info("🎉 PDF ingestion completed successfully for: {}", pdfFile.getName());
         return docs.size(); // Return number of chunks created
     }
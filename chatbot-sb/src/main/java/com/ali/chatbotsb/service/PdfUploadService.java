@@ -2,6 +2,7 @@ package com.ali.chatbotsb.service;
 
 import com.ali.chatbotsb.dto.response.PdfUploadResponse;
 import com.ali.chatbotsb.dto.response.MultiplePdfUploadResponse;
+import com.ali.chatbotsb.model.Role;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -10,7 +11,10 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.File;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -21,19 +25,31 @@ public class PdfUploadService {
     private final PdfIngestService pdfIngestService;
     
     /**
-     * Upload and process a single PDF file
+     * Upload and process a single PDF file, visible only to the given roles (everyone when empty)
      */
-    public PdfUploadResponse uploadSinglePdf(MultipartFile file, String description, String category) {
+    public PdfUploadResponse uploadSinglePdf(MultipartFile file, String description, String category, List<String> allowedRoles) {
         log.info("🔄 Processing single PDF upload: {}", file.getOriginalFilename());
         
         validatePdfFile(file);
+        List<String> roles = normalizeRoles(allowedRoles);
         
         try {
             String documentId = UUID.randomUUID().toString();
             File tempFile = createTempFile(file);
             
-            log.info("🤖 Starting PDF ingestion for: {}", file.getOriginalFilename());
-            int chunksCreated = pdfIngestService.ingestPdf(tempFile);
+            Map<String, Object> documentMetadata = new HashMap<>();
+            documentMetadata.put(PdfIngestService.DOCUMENT_ID_METADATA_KEY, documentId);
+            documentMetadata.put(PdfIngestService.SOURCE_METADATA_KEY, file.getOriginalFilename());
+            documentMetadata.put(PdfIngestService.ALLOWED_ROLES_METADATA_KEY, roles);
+            if (category != null && !category.isBlank()) {
+                documentMetadata.put(PdfIngestService.CATEGORY_METADATA_KEY, category.trim());
+            }
+            if (description != null && !description.isBlank()) {
+                documentMetadata.put(PdfIngestService.DESCRIPTION_METADATA_KEY, description.trim());
+            }
+            
+            log.info("🤖 Starting PDF ingestion for: {} (category: {}, roles: {})", file.getOriginalFilename(), category, roles);
+            int chunksCreated = pdfIngestService.ingestPdf(tempFile, documentMetadata);
             log.info("✅ PDF ingestion completed. Chunks created: {}", chunksCreated);
             
             cleanupTempFile(tempFile);
@@ -62,9 +78,10 @@ public class PdfUploadService {
     }
     
     /**
-     * Upload and process multiple PDF files
+     * Upload and process multiple PDF files, visible only to the given roles (everyone when empty)
      */
-    public MultiplePdfUploadResponse uploadMultiplePdfs(MultipartFile[] files, String description, String category) {
+    public MultiplePdfUploadResponse uploadMultiplePdfs(MultipartFile[] files, String description, String category,
+                                                        List<String> allowedRoles) {
         log.info("🔄 Processing multiple PDF uploads. Count: {}", files.length);
         
         if (files.length == 0) {
@@ -79,7 +96,7 @@ public class PdfUploadService {
             log.info("📁 Processing file: {}", file.getOriginalFilename());
             
             try {
-                PdfUploadResponse result = uploadSinglePdf(file, description, category);
+                PdfUploadResponse result = uploadSinglePdf(file, description, category, allowedRoles);
                 results.add(result);
                 
                 if ("success".equals(result.getStatus())) {
@@ -135,6 +152,33 @@ public class PdfUploadService {
         }
     }
     
+    /**
+     * Validate role names against {@link Role.RoleType}, an empty list makes the document public
+     */
+    private List<String> normalizeRoles(List<String> allowedRoles) {
+        if (allowedRoles == null || allowedRoles.isEmpty()) {
+            return List.of(PdfIngestService.PUBLIC_ROLE);
+        }
+        List<String> roles = new ArrayList<>();
+        for (String role : allowedRoles) {
+            String name = role.trim().toUpperCase(Locale.ROOT);
+            if (name.startsWith("ROLE_")) {
+                name = name.substring("ROLE_".length());
+            }
+            if (!name.equals(PdfIngestService.PUBLIC_ROLE)) {
+                try {
+                    Role.RoleType.valueOf(name);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown role: " + role);
+                }
+            }
+            if (!roles.contains(name)) {
+                roles.add(name);
+            }
+        }
+        return roles;
+    }
+    
     /**
      * Create temporary file from MultipartFile
      */
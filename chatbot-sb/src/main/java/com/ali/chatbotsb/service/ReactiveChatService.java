@@ -0,0 +1,285 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.ChatMemoryProperties;
+import com.ali.chatbotsb.dto.ChatRequest;
+import com.ali.chatbotsb.dto.ChatStreamEvent;
+import com.ali.chatbotsb.event.ChatTurnPersistedEvent;
+import com.ali.chatbotsb.exceptions.APIException;
+import com.ali.chatbotsb.exceptions.ChatAccessDeniedException;
+import com.ali.chatbotsb.exceptions.ChatSessionConflictException;
+import com.ali.chatbotsb.exceptions.ChatSessionNotFoundException;
+import com.ali.chatbotsb.model.ChatMessage;
+import com.ali.chatbotsb.model.ChatSession;
+import com.ali.chatbotsb.model.User;
+import com.ali.chatbotsb.repository.reactive.ReactiveChatMessageRepository;
+import com.ali.chatbotsb.repository.reactive.ReactiveChatSessionRepository;
+import com.ali.chatbotsb.repository.reactive.ReactiveUserRepository;
+import com.ali.chatbotsb.utils.MedicalPromptTemplate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Streaming variant of {@link ChatService}: answer tokens are pushed to the client as the LLM produces them
+ * and no request thread is held while waiting on the model or the database.
+ * Spring AI has no non-blocking embedding or vector store API, so those calls run on the bounded elastic scheduler.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveChatService {
+
+    private static final String FAQ_SOURCE = "Curated Medical FAQ";
+
+    private final ChatClient chatClient;
+    private final RetrievalService retrievalService;
+    private final RetrievalPrefetchService retrievalPrefetchService;
+    private final FaqService faqService;
+    private final EmbeddingModel embeddingModel;
+    private final MedicalPromptTemplate promptTemplate;
+    private final ConversationMemoryService conversationMemoryService;
+    private final ChatMemoryProperties chatMemoryProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RetrievalProfileService retrievalProfileService;
+    private final ChatSessionLockRegistry sessionLockRegistry;
+    private final ChatQosService chatQosService;
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveChatSessionRepository chatSessionRepository;
+    private final ReactiveChatMessageRepository chatMessageRepository;
+    private final TransactionalOperator reactiveTransactionalOperator;
+
+    public Flux<ChatStreamEvent> streamChat(ChatRequest request, String email,
+                                            Collection<? extends GrantedAuthority> authorities) {
+        // Emergency guidance never waits for session ordering or chat capacity
+        if (promptTemplate.containsEmergencyKeywords(request.getMessage())) {
+            return Flux.just(
+                    ChatStreamEvent.token(promptTemplate.getEmergencyResponse()),
+                    ChatStreamEvent.builder().type(ChatStreamEvent.DONE).confidenceScore(1.0).build());
+        }
+
+        RetrievalProfile profile;
+        try {
+            profile = retrievalProfileService.resolve(request.getRetrievalProfile(), authorities);
+        } catch (APIException e) {
+            return Flux.error(e);
+        }
+
+        // Session ordering and QoS slots are held until the stream completes, fails or is cancelled
+        return Flux.usingWhen(
+                acquirePermit(request.getSessionId(), authorities),
+                permit -> runTurn(request, email, RetrievalScope.of(request, authorities), profile),
+                permit -> Mono.fromRunnable(permit::close));
+    }
+
+    private Mono<TurnPermit> acquirePermit(UUID sessionId, Collection<? extends GrantedAuthority> authorities) {
+        return Mono.fromCallable(() -> {
+            if (sessionId != null && !sessionLockRegistry.tryLock(sessionId)) {
+                throw new ChatSessionConflictException("A previous message in chat session " + sessionId + " is still being processed");
+            }
+            try {
+                return new TurnPermit(sessionId, chatQosService.admit(authorities));
+            } catch (RuntimeException e) {
+                if (sessionId != null) {
+                    sessionLockRegistry.unlock(sessionId);
+                }
+                throw e;
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Flux<ChatStreamEvent> runTurn(ChatRequest request, String email, RetrievalScope scope,
+                                          RetrievalProfile profile) {
+        return userRepository.findIdByEmail(email)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found")))
+                .flatMap(userId -> resolveSession(request, userId))
+                .flatMapMany(session -> {
+                    boolean newSession = request.getSessionId() == null;
+                    ChatStreamEvent opened = ChatStreamEvent.builder()
+                            .type(ChatStreamEvent.SESSION)
+                            .sessionId(session.getId())
+                            .sessionTitle(session.getTitle())
+                            .build();
+                    return recentHistory(session, newSession)
+                            .flatMap(recent -> Mono.fromCallable(() -> prepareTurn(request.getMessage(), email, scope, profile, session.getId(), recent))
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .flatMapMany(turn -> Flux.concat(Flux.just(opened), streamAnswer(request.getMessage(), session, newSession, turn)));
+                });
+    }
+
+    private Mono<ChatSession> resolveSession(ChatRequest request, UUID userId) {
+        if (request.getSessionId() == null) {
+            String title = request.getSessionTitle() != null
+                    ? request.getSessionTitle()
+                    : ChatService.generateSessionTitle(request.getMessage());
+            // Written together with the first message once the answer is complete
+            return Mono.just(ChatSession.builder()
+                    .id(UUID.randomUUID())
+                    .user(User.builder().id(userId).build())
+                    .title(title)
+                    .build());
+        }
+
+        return chatSessionRepository.findById(request.getSessionId())
+                .switchIfEmpty(Mono.error(() -> new ChatSessionNotFoundException("Chat session not found with ID: " + request.getSessionId())))
+                .flatMap(session -> session.getUser().getId().equals(userId)
+                        ? Mono.just(session)
+                        : Mono.error(new ChatAccessDeniedException("Access denied to chat session: " + request.getSessionId())));
+    }
+
+    private Mono<List<ChatMessage>> recentHistory(ChatSession session, boolean newSession) {
+        if (newSession) {
+            return Mono.just(List.of());
+        }
+        return chatMessageRepository.findRecentBySessionId(session.getId(), Math.max(1, chatMemoryProperties.getRecentExchanges()))
+                .collectList()
+                .map(messages -> {
+                    List<ChatMessage> ordered = new ArrayList<>(messages);
+                    Collections.reverse(ordered);
+                    return ordered;
+                });
+    }
+
+    /**
+     * Blocking part of the turn: prefetch lookup, FAQ match, memory recall and retrieval
+     */
+    private PreparedTurn prepareTurn(String question, String email, RetrievalScope scope, RetrievalProfile profile,
+                                     UUID sessionId, List<ChatMessage> recentMessages) {
+        RetrievalPrefetchService.PrefetchedRetrieval prefetched = retrievalPrefetchService
+                .take(email, question, scope, profile).orElse(null);
+        float[] questionEmbedding = prefetched != null ? prefetched.embeddingFor(question) : null;
+        if (questionEmbedding == null) {
+            questionEmbedding = embeddingModel.embed(question);
+        }
+
+        Optional<FaqService.FaqMatch> faqMatch = faqService.isActive()
+                ? faqService.match(questionEmbedding)
+                : Optional.empty();
+        if (faqMatch.isPresent()) {
+            FaqService.FaqMatch match = faqMatch.get();
+            return new PreparedTurn(null, match.answer(), match.score(), List.of(FAQ_SOURCE), "faq:" + match.faqId());
+        }
+
+        List<String> formattedHistory = new ArrayList<>();
+        if (!recentMessages.isEmpty()) {
+            List<UUID> recentIds = recentMessages.stream().map(ChatMessage::getId).toList();
+            try {
+                formattedHistory.addAll(conversationMemoryService.recall(sessionId, question, questionEmbedding, recentIds));
+            } catch (Exception e) {
+                // Recall is an enhancement, the latest exchange is still enough to answer
+            }
+        }
+        recentMessages.stream()
+                .map(msg -> "User: " + msg.getUserMessage() + "\nBot: " + msg.getBotResponse())
+                .forEach(formattedHistory::add);
+
+        List<Document> relevantDocs = prefetched != null ? prefetched.documents() : retrievalService.search(question, scope, profile);
+        String prompt = promptTemplate.generateMedicalPrompt(question, retrievalService.buildContext(relevantDocs),
+                promptTemplate.formatChatHistory(formattedHistory));
+        return new PreparedTurn(prompt, null, retrievalService.calculateConfidenceScore(relevantDocs),
+                retrievalService.extractSourceReferences(relevantDocs), "");
+    }
+
+    private Flux<ChatStreamEvent> streamAnswer(String question, ChatSession session, boolean newSession, PreparedTurn turn) {
+        return Flux.defer(() -> {
+            StringBuilder raw = new StringBuilder();
+            Flux<String> body = turn.prompt() == null
+                    ? Flux.just(turn.cannedAnswer())
+                    : chatClient.prompt().user(turn.prompt()).stream().content();
+
+            Flux<ChatStreamEvent> tokens = body
+                    .filter(chunk -> !chunk.isEmpty())
+                    .doOnNext(raw::append)
+                    .map(ChatStreamEvent::token);
+
+            // Confidence, references and disclaimer are appended once the whole answer is known
+            Flux<ChatStreamEvent> trailer = Mono.fromSupplier(() -> promptTemplate.enhanceFinalResponse(
+                            raw.toString(), turn.confidenceScore(), turn.sourceReferences()))
+                    .flatMapMany(enhanced -> Flux.concat(
+                            Mono.just(ChatStreamEvent.token(enhanced.substring(raw.length()))),
+                            persistTurn(session, newSession, question, enhanced, turn)
+                                    .map(saved -> ChatStreamEvent.builder()
+                                            .type(ChatStreamEvent.DONE)
+                                            .sessionId(session.getId())
+                                            .messageId(saved.getId())
+                                            .confidenceScore(turn.confidenceScore())
+                                            .sourceReferences(turn.sourceReferences())
+                                            .build())));
+
+            return Flux.concat(tokens, trailer);
+        });
+    }
+
+    private Mono<ChatMessage> persistTurn(ChatSession session, boolean newSession, String question, String answer,
+                                          PreparedTurn turn) {
+        LocalDateTime now = LocalDateTime.now();
+        ChatMessage message = ChatMessage.builder()
+                .chatSession(session)
+                .userMessage(question)
+                .botResponse(answer)
+                .contextUsed(turn.contextUsed())
+                .confidenceScore(turn.confidenceScore())
+                .createdAt(now)
+                .build();
+
+        Mono<Void> sessionWrite = newSession
+                ? chatSessionRepository.insert(session).then()
+                : chatSessionRepository.touch(session.getId(), session.getVersion(), now)
+                        .flatMap(updated -> updated
+                                ? Mono.<Void>empty()
+                                : Mono.error(new ChatSessionConflictException("Chat session " + session.getId()
+                                        + " was updated concurrently. Please resend the message.")));
+
+        return sessionWrite.then(chatMessageRepository.insert(message))
+                .as(reactiveTransactionalOperator::transactional)
+                .doOnNext(saved -> eventPublisher.publishEvent(new ChatTurnPersistedEvent(session.getId(), saved.getId(),
+                        saved.getUserMessage(), saved.getBotResponse(), saved.getCreatedAt())));
+    }
+
+    private record PreparedTurn(String prompt, String cannedAnswer, double confidenceScore,
+                                List<String> sourceReferences, String contextUsed) {
+    }
+
+    /**
+     * Session stripe and QoS slot held for the lifetime of one streamed turn
+     */
+    private final class TurnPermit implements AutoCloseable {
+
+        private final UUID sessionId;
+        private final ChatQosService.Admission admission;
+
+        private TurnPermit(UUID sessionId, ChatQosService.Admission admission) {
+            this.sessionId = sessionId;
+            this.admission = admission;
+        }
+
+        @Override
+        public void close() {
+            try {
+                admission.close();
+            } finally {
+                if (sessionId != null) {
+                    sessionLockRegistry.unlock(sessionId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.ReplicaProperties;
+import com.ali.chatbotsb.vectorstore.ReplicatedVectorStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.vectorstore.SpringAIVectorStoreTypes;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the local replica honest. The first run after startup bootstraps an empty replica; every run copies
+ * pending writes and compares the replica with Pinecone, rebuilding it when they disagree. Searches go to
+ * Pinecone while the replica is being rebuilt.
+ */
+@Service
+@ConditionalOnProperty(name = "app.vectorstore.replica.enabled", havingValue = "true")
+@ConditionalOnProperty(name = SpringAIVectorStoreTypes.TYPE, havingValue = "pinecone", matchIfMissing = true)
+@ConditionalOnProperty(name = "app.retrieval.sharding.enabled", havingValue = "false", matchIfMissing = true)
+@Slf4j
+public class ReplicaConsistencyService {
+
+    private final ReplicatedVectorStore vectorStore;
+    private final ReplicaProperties properties;
+
+    public ReplicaConsistencyService(ReplicatedVectorStore vectorStore, ReplicaProperties properties) {
+        this.vectorStore = vectorStore;
+        this.properties = properties;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.vectorstore.replica.check-interval-seconds:300}",
+            timeUnit = TimeUnit.SECONDS)
+    public void check() {
+        try {
+            if (vectorStore.state() == ReplicatedVectorStore.State.MISSING) {
+                vectorStore.bootstrap();
+                return;
+            }
+
+            ReplicatedVectorStore.Consistency consistency = vectorStore.checkConsistency(properties.getSampleSize(),
+                    properties.getTopK(), properties.getMinOverlap(), properties.getCountTolerance());
+            if (consistency.consistent()) {
+                log.debug("✅ Local replica consistent: {} chunks, overlap {} over {} queries",
+                        consistency.replicaCount(), consistency.overlap(), consistency.sampledQueries());
+                return;
+            }
+
+            log.warn("⚠️ Local replica diverged from Pinecone ({} vs {} chunks, overlap {} over {} queries), rebuilding",
+                    consistency.replicaCount(), consistency.primaryCount(), consistency.overlap(),
+                    consistency.sampledQueries());
+            vectorStore.bootstrap();
+        } catch (RuntimeException e) {
+            log.error("❌ Local replica consistency check failed", e);
+        }
+    }
+}
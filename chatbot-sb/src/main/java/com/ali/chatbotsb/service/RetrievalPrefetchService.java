@@ -0,0 +1,176 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.ChatPrefetchProperties;
+import com.ali.chatbotsb.config.EmbeddingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Speculatively runs the query embedding and vector search for a draft the user is still typing.
+ * Results are kept for a short time per user and handed to the chat turn when the final
+ * message matches the draft closely enough.
+ */
+@Service
+@Slf4j
+public class RetrievalPrefetchService {
+
+    private final RetrievalService retrievalService;
+    private final EmbeddingModel embeddingModel;
+    private final ChatPrefetchProperties properties;
+    private final Executor retrievalPrefetchExecutor;
+    private final boolean embeddingCached;
+
+    private final Map<String, PrefetchedRetrieval> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public RetrievalPrefetchService(RetrievalService retrievalService,
+                                    EmbeddingModel embeddingModel,
+                                    ChatPrefetchProperties properties,
+                                    @Qualifier("retrievalPrefetchExecutor") Executor retrievalPrefetchExecutor,
+                                    EmbeddingProperties embeddingProperties,
+                                    MeterRegistry meterRegistry) {
+        this.retrievalService = retrievalService;
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.retrievalPrefetchExecutor = retrievalPrefetchExecutor;
+        this.embeddingCached = embeddingProperties.getQueryCacheSize() > 0;
+        this.hits = Counter.builder("chat.prefetch.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.prefetch.lookups").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Schedule retrieval for a draft, returns false when the draft was ignored
+     */
+    public boolean prefetch(String userKey, String draft, RetrievalScope scope, RetrievalProfile profile) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+
+        String normalized = normalize(draft);
+        if (normalized.length() < properties.getMinDraftLength()) {
+            return false;
+        }
+
+        PrefetchedRetrieval current = entries.get(userKey);
+        if (current != null && !isExpired(current) && current.normalizedDraft().equals(normalized)
+                && current.scope().equals(scope) && current.profile().equals(profile)) {
+            return true; // Already warm for this draft
+        }
+        if (normalized.equals(inFlight.put(userKey, normalized))) {
+            return true; // Same draft is already being fetched
+        }
+
+        retrievalPrefetchExecutor.execute(() -> {
+            try {
+                // Skip drafts that were superseded while queued
+                if (!normalized.equals(inFlight.get(userKey))) {
+                    return;
+                }
+                // With the query embedding cache the search below reuses this embedding instead of calling the
+                // model again; without it the draft is only embedded by the search
+                float[] embedding = embeddingCached ? embeddingModel.embed(draft) : null;
+                List<Document> documents = retrievalService.speculativeSearch(draft, scope, profile);
+
+                if (entries.size() >= properties.getMaxEntries()) {
+                    entries.values().removeIf(this::isExpired);
+                }
+                entries.put(userKey, new PrefetchedRetrieval(normalized, scope, profile, embedding, documents,
+                        System.currentTimeMillis()));
+            } catch (Exception e) {
+                log.debug("Prefetch failed for draft of user {}: {}", userKey, e.getMessage());
+            } finally {
+                inFlight.remove(userKey, normalized);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Claim the prefetched retrieval if the final message matches the user's last draft and was asked in the same
+     * scope with the same retrieval profile
+     */
+    public Optional<PrefetchedRetrieval> take(String userKey, String message, RetrievalScope scope,
+                                              RetrievalProfile profile) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        PrefetchedRetrieval entry = entries.remove(userKey);
+        if (entry == null || isExpired(entry) || !entry.scope().equals(scope) || !entry.profile().equals(profile)
+                || similarity(entry.normalizedDraft(), normalize(message)) < properties.getMatchThreshold()) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(entry);
+    }
+
+    private boolean isExpired(PrefetchedRetrieval entry) {
+        return System.currentTimeMillis() - entry.createdAtMillis() > properties.getTtlSeconds() * 1000;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * Normalized Levenshtein similarity, 1.0 for identical strings
+     */
+    private static double similarity(String a, String b) {
+        if (a.equals(b)) {
+            return 1.0;
+        }
+        int maxLength = Math.max(a.length(), b.length());
+        if (maxLength == 0) {
+            return 1.0;
+        }
+
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return 1.0 - (double) previous[b.length()] / maxLength;
+    }
+
+    /**
+     * @param embedding embedding of the draft, {@code null} when the query embedding cache is disabled
+     */
+    public record PrefetchedRetrieval(String normalizedDraft, RetrievalScope scope, RetrievalProfile profile,
+                                      float[] embedding, List<Document> documents, long createdAtMillis) {
+
+        /**
+         * The draft's embedding if the message is the same text, {@code null} otherwise. Retrieved chunks may be
+         * reused for a near match, but an embedding decides FAQ answers and must be of the question actually sent.
+         */
+        public float[] embeddingFor(String message) {
+            return normalizedDraft.equals(normalize(message)) ? embedding : null;
+        }
+    }
+}
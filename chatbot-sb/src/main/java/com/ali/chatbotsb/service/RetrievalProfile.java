@@ -0,0 +1,16 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.RetrievalProfileProperties;
+
+/**
+ * The retrieval settings a question is answered with, chosen by {@link RetrievalProfileService}
+ */
+public record RetrievalProfile(String name, int topK, double similarityThreshold, int candidates, boolean hybrid,
+                               int hybridCandidates, boolean rerank, int rerankCandidates, int rerankTopN) {
+
+    public static RetrievalProfile of(String name, RetrievalProfileProperties.Profile config) {
+        return new RetrievalProfile(name, config.getTopK(), config.getSimilarityThreshold(), config.getCandidates(),
+                config.isHybrid(), config.getHybridCandidates(), config.isRerank(), config.getRerankCandidates(),
+                config.getRerankTopN());
+    }
+}
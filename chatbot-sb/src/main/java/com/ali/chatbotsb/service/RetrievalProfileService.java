@@ -0,0 +1,72 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.RetrievalProfileProperties;
+import com.ali.chatbotsb.exceptions.APIException;
+import com.ali.chatbotsb.model.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Picks the retrieval profile of a question: the one named in the request, else the highest-priority profile
+ * matching one of the user's roles, else the default profile.
+ */
+@Service
+@Slf4j
+public class RetrievalProfileService {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final RetrievalProfileProperties properties;
+    private final Map<String, RetrievalProfileProperties.Profile> configs = new LinkedHashMap<>();
+    private final Map<String, RetrievalProfile> profiles = new LinkedHashMap<>();
+
+    public RetrievalProfileService(RetrievalProfileProperties properties) {
+        this.properties = properties;
+        configs.putAll(properties.getProfiles());
+        // The default profile always exists, with the built-in settings unless configured
+        configs.computeIfAbsent(properties.getDefaultProfile(), name -> new RetrievalProfileProperties.Profile());
+        configs.forEach((name, config) -> profiles.put(name, RetrievalProfile.of(name, config)));
+        log.info("🔧 Retrieval profiles {} (default {})", profiles.keySet(), properties.getDefaultProfile());
+    }
+
+    public Collection<RetrievalProfile> profiles() {
+        return profiles.values();
+    }
+
+    public RetrievalProfile resolve(String requested, Collection<? extends GrantedAuthority> authorities) {
+        if (requested != null && !requested.isBlank()) {
+            RetrievalProfile profile = profiles.get(requested.trim());
+            if (profile == null) {
+                throw new APIException("Unknown retrieval profile '" + requested.trim() + "', expected one of "
+                        + profiles.keySet());
+            }
+            return profile;
+        }
+
+        String best = null;
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name == null || !name.startsWith(ROLE_PREFIX)) {
+                continue;
+            }
+            Role.RoleType roleType;
+            try {
+                roleType = Role.RoleType.valueOf(name.substring(ROLE_PREFIX.length()));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            for (Map.Entry<String, RetrievalProfileProperties.Profile> profile : configs.entrySet()) {
+                if (profile.getValue().getRoles().contains(roleType)
+                        && (best == null || profile.getValue().getPriority() > configs.get(best).getPriority())) {
+                    best = profile.getKey();
+                }
+            }
+        }
+        return profiles.get(best != null ? best : properties.getDefaultProfile());
+    }
+}
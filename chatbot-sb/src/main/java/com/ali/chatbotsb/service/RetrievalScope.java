@@ -0,0 +1,78 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.dto.ChatRequest;
+import com.ali.chatbotsb.model.Role;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The slice of the knowledge base a question may be answered from: an optional category and source document
+ * chosen by the user, and the roles that decide which restricted documents they can see. Translated into a
+ * metadata filter so the vector store only searches that subset.
+ *
+ * @param roles role names without the {@code ROLE_} prefix, or {@code null} for no role restriction
+ */
+public record RetrievalScope(String category, String documentId, Set<String> roles) {
+
+    private static final RetrievalScope UNRESTRICTED = new RetrievalScope(null, null, null);
+
+    public static RetrievalScope unrestricted() {
+        return UNRESTRICTED;
+    }
+
+    public static RetrievalScope of(ChatRequest request, Collection<? extends GrantedAuthority> authorities) {
+        return of(request.getCategory(), request.getDocumentId(), authorities);
+    }
+
+    public static RetrievalScope of(String category, String documentId, Collection<? extends GrantedAuthority> authorities) {
+        Set<String> roles = new TreeSet<>();
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith("ROLE_")) {
+                roles.add(name.substring("ROLE_".length()));
+            }
+        }
+        // Administrators manage every document, so they search the whole knowledge base
+        return new RetrievalScope(blankToNull(category), blankToNull(documentId),
+                roles.contains(Role.RoleType.ADMIN.name()) ? null : roles);
+    }
+
+    /**
+     * Filter for {@code SearchRequest.filterExpression}, {@code null} when nothing is restricted
+     */
+    public Filter.Expression toFilterExpression() {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        List<FilterExpressionBuilder.Op> conditions = new ArrayList<>();
+        if (category != null) {
+            conditions.add(b.eq(PdfIngestService.CATEGORY_METADATA_KEY, category));
+        }
+        if (documentId != null) {
+            conditions.add(b.eq(PdfIngestService.DOCUMENT_ID_METADATA_KEY, documentId));
+        }
+        if (roles != null) {
+            List<Object> visible = new ArrayList<>(roles);
+            visible.add(PdfIngestService.PUBLIC_ROLE);
+            conditions.add(b.in(PdfIngestService.ALLOWED_ROLES_METADATA_KEY, visible));
+        }
+        if (conditions.isEmpty()) {
+            return null;
+        }
+
+        FilterExpressionBuilder.Op filter = conditions.get(0);
+        for (int i = 1; i < conditions.size(); i++) {
+            filter = b.and(filter, conditions.get(i));
+        }
+        return filter.build();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,263 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.HybridRetrievalProperties;
+import com.ali.chatbotsb.config.ShardingProperties;
+import com.ali.chatbotsb.exceptions.VectorStoreException;
+import com.ali.chatbotsb.utils.MedicalPromptEnhancer;
+import com.ali.chatbotsb.vectorstore.Bm25Index;
+import com.ali.chatbotsb.vectorstore.HotChunkCache;
+import com.ali.chatbotsb.vectorstore.ShardedVectorStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Retrieves medical knowledge base chunks for a question. With hybrid retrieval enabled the BM25 keyword
+ * index is queried in parallel with the vector store and both rankings are merged with reciprocal rank
+ * fusion, so exact drug names, dosages and ICD codes are found even when no embedding clears the threshold.
+ * With reranking enabled a larger pool is retrieved and a cross-encoder picks the chunks for the prompt.
+ * Both retrievers only search the {@link RetrievalScope} of the question. With sharding enabled the vector search
+ * is routed to the shard of the question's specialty and the general shard, and widened to all shards when
+ * that finds nothing convincing. Near-duplicate chunks are removed and the rest diversified before the prompt.
+ * Pool sizes, thresholds and which stages run come from the question's {@link RetrievalProfile}.
+ */
+@Service
+@Slf4j
+public class RetrievalService {
+
+    public static final String RRF_SCORE_METADATA_KEY = "rrf_score";
+
+    private final VectorStore vectorStore;
+    private final Bm25Index bm25Index;
+    private final HotChunkCache hotChunkCache;
+    private final Executor retrievalExecutor;
+    private final CrossEncoderRerankService rerankService;
+    private final MedicalPromptEnhancer promptEnhancer;
+    private final ShardingProperties shardingProperties;
+    private final ContextSelectionService contextSelectionService;
+    private final int rrfK;
+    private final Map<String, Timer> latency = new HashMap<>();
+    private final Map<String, DistributionSummary> results = new HashMap<>();
+
+    public RetrievalService(VectorStore vectorStore,
+                            ObjectProvider<Bm25Index> bm25Index,
+                            ObjectProvider<HotChunkCache> hotChunkCache,
+                            HybridRetrievalProperties hybridProperties,
+                            @Qualifier("retrievalExecutor") Executor retrievalExecutor,
+                            ObjectProvider<CrossEncoderRerankService> rerankService,
+                            MedicalPromptEnhancer promptEnhancer,
+                            ShardingProperties shardingProperties,
+                            ContextSelectionService contextSelectionService,
+                            RetrievalProfileService profileService,
+                            MeterRegistry meterRegistry) {
+        this.vectorStore = vectorStore;
+        this.bm25Index = bm25Index.getIfAvailable();
+        this.hotChunkCache = hotChunkCache.getIfAvailable();
+        this.rrfK = hybridProperties.getRrfK();
+        this.retrievalExecutor = retrievalExecutor;
+        this.rerankService = rerankService.getIfAvailable();
+        this.promptEnhancer = promptEnhancer;
+        this.shardingProperties = shardingProperties;
+        this.contextSelectionService = contextSelectionService;
+        for (RetrievalProfile profile : profileService.profiles()) {
+            latency.put(profile.name(), Timer.builder("retrieval.latency")
+                    .description("Time to retrieve the prompt chunks of a question")
+                    .tag("profile", profile.name())
+                    .register(meterRegistry));
+            results.put(profile.name(), DistributionSummary.builder("retrieval.results")
+                    .description("Chunks retrieved for the prompt per question")
+                    .tag("profile", profile.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public List<Document> search(String query, RetrievalScope scope, RetrievalProfile profile) {
+        long start = System.nanoTime();
+        List<Document> documents = doSearch(query, scope.toFilterExpression(), profile, false);
+        latency.get(profile.name()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        results.get(profile.name()).record(documents.size());
+        return documents;
+    }
+
+    /**
+     * Search for a draft that may never be sent: same results as {@link #search}, but left out of the retrieval
+     * metrics and the hot-chunk access counts
+     */
+    public List<Document> speculativeSearch(String query, RetrievalScope scope, RetrievalProfile profile) {
+        return doSearch(query, scope.toFilterExpression(), profile, true);
+    }
+
+    private List<Document> doSearch(String query, Filter.Expression filter, RetrievalProfile profile,
+                                    boolean speculative) {
+        int topK = profile.topK();
+        if (rerankService == null || !profile.rerank()) {
+            return contextSelectionService.select(retrieve(query, contextSelectionService.candidates(topK,
+                    profile.candidates()), filter, profile, speculative), topK);
+        }
+
+        List<Document> candidates = retrieve(query, Math.max(topK, profile.rerankCandidates()), filter, profile,
+                speculative);
+        int topN = profile.rerankTopN();
+        try {
+            return contextSelectionService.select(
+                    rerankService.rerank(query, candidates, contextSelectionService.candidates(topN, profile.candidates())),
+                    topN);
+        } catch (CompletionException e) {
+            log.warn("⚠️ Reranking failed, using retrieval order: {}", e.getCause().getMessage());
+            return contextSelectionService.select(candidates, topK);
+        }
+    }
+
+    private List<Document> retrieve(String query, int topK, Filter.Expression filter, RetrievalProfile profile,
+                                    boolean speculative) {
+        if (bm25Index == null || !profile.hybrid()) {
+            return vectorSearch(query, topK, filter, profile.similarityThreshold(), speculative);
+        }
+
+        int candidates = Math.max(topK, profile.hybridCandidates());
+        CompletableFuture<List<Document>> keywordResults = CompletableFuture.supplyAsync(
+                () -> bm25Index.search(query, candidates, filter), retrievalExecutor);
+        List<Document> vectorResults = vectorSearch(query, candidates, filter, profile.similarityThreshold(),
+                speculative);
+
+        List<Document> keywordDocuments;
+        try {
+            keywordDocuments = keywordResults.join();
+        } catch (CompletionException e) {
+            // The vector results alone are still a valid answer
+            log.warn("⚠️ Keyword search failed, using vector results only: {}", e.getCause().getMessage());
+            keywordDocuments = List.of();
+        }
+        return fuse(vectorResults, keywordDocuments, topK);
+    }
+
+    private List<Document> vectorSearch(String query, int topK, Filter.Expression filter, double threshold,
+                                        boolean speculative) {
+        String specialty = shardingProperties.isEnabled() ? promptEnhancer.detectSpecialty(query).orElse(null) : null;
+        if (specialty == null) {
+            return searchVectorStore(query, topK, filter, threshold, speculative);
+        }
+
+        Filter.Expression shards = new Filter.Expression(Filter.ExpressionType.IN,
+                new Filter.Key(ShardedVectorStore.SHARD_METADATA_KEY),
+                new Filter.Value(List.of(specialty, shardingProperties.getGeneralShard())));
+        List<Document> routed = searchVectorStore(query, topK,
+                filter != null ? new Filter.Expression(Filter.ExpressionType.AND, shards, filter) : shards, threshold,
+                speculative);
+        double bestScore = routed.stream()
+                .mapToDouble(document -> document.getScore() != null ? document.getScore() : 0.0)
+                .max()
+                .orElse(0.0);
+        if (bestScore >= shardingProperties.getFallbackScore()) {
+            return routed;
+        }
+
+        log.debug("🔄 Best {} shard score {} is low, searching all shards", specialty, bestScore);
+        return searchVectorStore(query, topK, filter, threshold, speculative);
+    }
+
+    private List<Document> searchVectorStore(String query, int topK, Filter.Expression filter, double threshold,
+                                             boolean speculative) {
+        try {
+            SearchRequest searchRequest = SearchRequest.builder()
+                    .query(query)
+                    .topK(topK)
+                    .similarityThreshold(threshold)
+                    .filterExpression(filter)
+                    .build();
+
+            List<Document> results = vectorStore.similaritySearch(searchRequest);
+            if (hotChunkCache != null && !speculative) {
+                hotChunkCache.recordAccess(results);
+            }
+            return results;
+        } catch (Exception e) {
+            throw new VectorStoreException("Failed to search medical knowledge base", e);
+        }
+    }
+
+    /**
+     * Reciprocal rank fusion: each chunk scores the sum of 1 / (k + rank) over the rankings it appears in.
+     * Chunks found by both retrievers keep the vector store's document, which carries the similarity score.
+     */
+    private List<Document> fuse(List<Document> vectorResults, List<Document> keywordResults, int topK) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (List<Document> ranking : List.of(vectorResults, keywordResults)) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                Document document = ranking.get(rank);
+                documents.putIfAbsent(document.getId(), document);
+                scores.merge(document.getId(), 1.0 / (rrfK + rank + 1), Double::sum);
+            }
+        }
+
+        List<Document> fused = new ArrayList<>(documents.values());
+        fused.sort((a, b) -> Double.compare(scores.get(b.getId()), scores.get(a.getId())));
+        return fused.stream()
+                .limit(topK)
+                .map(document -> document.mutate()
+                        .metadata(RRF_SCORE_METADATA_KEY, scores.get(document.getId()))
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Join retrieved chunks into the context section of the prompt
+     */
+    public String buildContext(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return "No relevant medical information found in the knowledge base.";
+        }
+
+        return documents.stream()
+                .map(Document::getText)
+                .collect(Collectors.joining("\n\n---\n\n"));
+    }
+
+    public Double calculateConfidenceScore(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return 0.1; // Very low confidence with no context
+        }
+
+        // Calculate average similarity score
+        double avgScore = documents.stream()
+                .mapToDouble(doc -> {
+                    // Assuming similarity score is available in metadata
+                    Object score = doc.getMetadata().get("similarity_score");
+                    return score instanceof Number ? ((Number) score).doubleValue() : 0.5;
+                })
+                .average()
+                .orElse(0.5);
+
+        return Math.min(1.0, Math.max(0.0, avgScore));
+    }
+
+    public List<String> extractSourceReferences(List<Document> documents) {
+        return documents.stream()
+                .map(doc -> {
+                    Object source = doc.getMetadata().get("source");
+                    return source != null ? source.toString() : "Medical Knowledge Base";
+                })
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
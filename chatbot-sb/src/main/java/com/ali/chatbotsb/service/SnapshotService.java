@@ -0,0 +1,275 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.SnapshotProperties;
+import com.ali.chatbotsb.dto.response.SnapshotResponse;
+import com.ali.chatbotsb.vectorstore.Bm25Index;
+import com.ali.chatbotsb.vectorstore.EmbeddedVectorStore;
+import com.ali.chatbotsb.vectorstore.PineconeEmbeddedVectorStore;
+import com.ali.chatbotsb.vectorstore.PineconeExporter;
+import com.ali.chatbotsb.vectorstore.VectorSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.pinecone.clients.Pinecone;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+import org.springframework.ai.vectorstore.pinecone.autoconfigure.PineconeVectorStoreProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Exports the knowledge base to a {@link VectorSnapshot} and bulk-loads one into the configured vector store.
+ * Chunks keep their ids and embeddings, so an import calls no embedding model and a new node can be seeded from
+ * a file instead of re-ingesting every PDF.
+ */
+@Service
+@Slf4j
+public class SnapshotService {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final DateTimeFormatter DEFAULT_NAME = DateTimeFormatter.ofPattern("'kb-'yyyyMMdd-HHmmss");
+    private static final String BACKFILL_NAME = "allowed-roles-backfill";
+
+    private final VectorStore vectorStore;
+    private final ObjectProvider<PineconeVectorStoreProperties> pineconeProperties;
+    private final Bm25Index bm25Index;
+    private final SnapshotProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock running = new ReentrantLock();
+
+    private PineconeEmbeddedVectorStore pineconeAdapter;
+
+    public SnapshotService(VectorStore vectorStore, ObjectProvider<PineconeVectorStoreProperties> pineconeProperties,
+                           ObjectProvider<Bm25Index> bm25Index, SnapshotProperties properties,
+                           ObjectMapper objectMapper) {
+        this.vectorStore = vectorStore;
+        this.pineconeProperties = pineconeProperties;
+        this.bm25Index = bm25Index.getIfAvailable();
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every chunk of the configured vector store to {@code <directory>/<name>.kbsnap}
+     */
+    public SnapshotResponse export(String name) {
+        String snapshotName = name != null && !name.isBlank() ? name : LocalDateTime.now().format(DEFAULT_NAME);
+        Path path = path(snapshotName);
+        if (Files.exists(path)) {
+            throw new IllegalStateException("Snapshot " + snapshotName + " already exists");
+        }
+
+        return exclusively(() -> {
+            EmbeddedVectorStore store = target();
+            long start = System.currentTimeMillis();
+            log.info("🔄 Exporting knowledge base from {} to {}", store.getClass().getSimpleName(), path);
+            try (VectorSnapshot.Writer writer = VectorSnapshot.writer(path, objectMapper)) {
+                store.exportEmbedded(properties.getBatchSize(), batch -> {
+                    try {
+                        writer.write(batch.documents(), batch.embeddings());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                VectorSnapshot.Summary summary = writer.finish();
+                long elapsedMs = System.currentTimeMillis() - start;
+                log.info("✅ Exported {} chunks ({} bytes, checksum {}) in {} ms", summary.count(), summary.bytes(),
+                        summary.checksum(), elapsedMs);
+                return response(snapshotName, summary, elapsedMs);
+            }
+        });
+    }
+
+    /**
+     * Verify a snapshot and add its chunks, with their stored embeddings, to the configured vector store
+     */
+    public SnapshotResponse importSnapshot(String name) {
+        Path path = path(name);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalStateException("No snapshot named " + name);
+        }
+
+        return exclusively(() -> {
+            EmbeddedVectorStore store = target();
+            long start = System.currentTimeMillis();
+            log.info("🔄 Importing snapshot {} into {}", path, store.getClass().getSimpleName());
+            VectorSnapshot.Summary summary = VectorSnapshot.read(path, properties.getBatchSize(), objectMapper,
+                    batch -> load(store, batch));
+            long elapsedMs = System.currentTimeMillis() - start;
+            log.info("✅ Imported {} chunks from snapshot {} in {} ms", summary.count(), name, elapsedMs);
+            return response(name, summary, elapsedMs);
+        });
+    }
+
+    /**
+     * Give every chunk stored without {@code allowed_roles} the public role. Chunks ingested before retrieval was
+     * scoped by role are otherwise hidden from everyone but administrators. The chunks are collected in a
+     * temporary snapshot and written back with their stored embeddings, so running it again changes nothing.
+     */
+    public SnapshotResponse backfillAllowedRoles() {
+        return exclusively(() -> {
+            EmbeddedVectorStore store = target();
+            long start = System.currentTimeMillis();
+            Path path = Paths.get(properties.getDirectory(), BACKFILL_NAME + ".tmp");
+            log.info("🔄 Backfilling {} on chunks in {}", PdfIngestService.ALLOWED_ROLES_METADATA_KEY,
+                    store.getClass().getSimpleName());
+            try {
+                try (VectorSnapshot.Writer writer = VectorSnapshot.writer(path, objectMapper)) {
+                    store.exportEmbedded(properties.getBatchSize(), batch -> {
+                        try {
+                            writeWithoutAllowedRoles(writer, batch);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    writer.finish();
+                }
+                VectorSnapshot.Summary summary = VectorSnapshot.read(path, properties.getBatchSize(), objectMapper,
+                        batch -> load(store, batch));
+                long elapsedMs = System.currentTimeMillis() - start;
+                log.info("✅ Made {} chunks public in {} ms", summary.count(), elapsedMs);
+                return response(BACKFILL_NAME, summary, elapsedMs);
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        });
+    }
+
+    /**
+     * Snapshots in the snapshot directory, newest first, described from their headers
+     */
+    public List<SnapshotResponse> list() throws IOException {
+        Path directory = Paths.get(properties.getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<SnapshotResponse> snapshots = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.filter(p -> p.getFileName().toString().endsWith(VectorSnapshot.EXTENSION))
+                    .sorted(Comparator.comparing(SnapshotService::lastModified).reversed())
+                    .toList()) {
+                String fileName = path.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - VectorSnapshot.EXTENSION.length());
+                try {
+                    snapshots.add(response(name, VectorSnapshot.describe(path), null));
+                } catch (IOException e) {
+                    log.warn("⚠️ Skipping unreadable snapshot {}: {}", path, e.getMessage());
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (pineconeAdapter != null) {
+            pineconeAdapter.close();
+        }
+    }
+
+    private void load(EmbeddedVectorStore store, EmbeddedVectorStore.Batch batch) {
+        store.addEmbedded(batch.documents(), batch.embeddings());
+        if (bm25Index != null) {
+            bm25Index.add(batch.documents());
+        }
+    }
+
+    private static void writeWithoutAllowedRoles(VectorSnapshot.Writer writer, EmbeddedVectorStore.Batch batch)
+            throws IOException {
+        List<Document> documents = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < batch.documents().size(); i++) {
+            Document document = batch.documents().get(i);
+            if (document.getMetadata().get(PdfIngestService.ALLOWED_ROLES_METADATA_KEY) == null) {
+                Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+                metadata.put(PdfIngestService.ALLOWED_ROLES_METADATA_KEY, List.of(PdfIngestService.PUBLIC_ROLE));
+                documents.add(Document.builder().id(document.getId()).text(document.getText()).metadata(metadata)
+                        .build());
+                embeddings.add(batch.embeddings().get(i));
+            }
+        }
+        writer.write(documents, embeddings);
+    }
+
+    /**
+     * The configured store if it takes precomputed vectors, or a plain Pinecone store adapted to do so
+     */
+    private synchronized EmbeddedVectorStore target() {
+        if (vectorStore instanceof EmbeddedVectorStore embedded) {
+            return embedded;
+        }
+        PineconeVectorStoreProperties pinecone = pineconeProperties.getIfAvailable();
+        if (vectorStore instanceof PineconeVectorStore pineconeVectorStore && pinecone != null) {
+            if (pineconeAdapter == null) {
+                PineconeExporter exporter = new PineconeExporter(new Pinecone.Builder(pinecone.getApiKey()).build()
+                        .getIndexConnection(pinecone.getIndexName()), pinecone.getNamespace(),
+                        pinecone.getContentFieldName(), objectMapper);
+                pineconeAdapter = new PineconeEmbeddedVectorStore(pineconeVectorStore, exporter);
+            }
+            return pineconeAdapter;
+        }
+        throw new IllegalStateException("Snapshots are not supported by the configured vector store "
+                + vectorStore.getClass().getSimpleName());
+    }
+
+    private Path path(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalStateException("Snapshot names may only contain letters, digits, '.', '_' and '-'");
+        }
+        return Paths.get(properties.getDirectory(), name + VectorSnapshot.EXTENSION);
+    }
+
+    private SnapshotResponse exclusively(SnapshotTask task) {
+        if (!running.tryLock()) {
+            throw new IllegalStateException("A snapshot export or import is already running");
+        }
+        try {
+            return task.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private static SnapshotResponse response(String name, VectorSnapshot.Summary summary, Long elapsedMs) {
+        return SnapshotResponse.builder()
+                .name(name)
+                .documents(summary.count())
+                .dimensions(summary.dimensions())
+                .bytes(summary.bytes())
+                .checksum(summary.checksum())
+                .elapsedMs(elapsedMs)
+                .build();
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SnapshotTask {
+        SnapshotResponse run() throws IOException;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ali.chatbotsb.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports {@code warmup} as out of service until {@link WarmupService} has run all its steps. Part of the
+ * readiness group, so a load balancer only sends traffic to a warmed-up node.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupService warmupService;
+
+    public WarmupHealthIndicator(WarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> steps = new LinkedHashMap<>();
+        for (WarmupService.Step step : warmupService.steps()) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("elapsedMs", step.elapsedMs());
+            if (step.error() != null) {
+                details.put("error", step.error());
+            }
+            steps.put(step.name(), details);
+        }
+
+        WarmupService.State state = warmupService.state();
+        Health.Builder health = state == WarmupService.State.COMPLETE ? Health.up() : Health.outOfService();
+        health.withDetail("state", state).withDetail("steps", steps);
+        if (state == WarmupService.State.COMPLETE) {
+            health.withDetail("elapsedMs", warmupService.elapsedMs());
+        }
+        return health.build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.config.WarmupProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes the cold start off the first chat after a deploy. Once the application is up it embeds a few synthetic
+ * questions (loading the embedding model and caching their vectors), searches the vector store and runs every
+ * retrieval profile (opening the vector store connections, keyword index and reranker), opens the LLM connection
+ * with a one-token completion and makes sure the FAQ index is loaded. Readiness stays down until all steps have
+ * run; a failing step is logged and reported but does not hold the node out of rotation.
+ */
+@Service
+@Slf4j
+public class WarmupService {
+
+    public enum State { PENDING, RUNNING, COMPLETE }
+
+    /**
+     * @param error message of the failure, {@code null} when the step succeeded
+     */
+    public record Step(String name, long elapsedMs, String error) {
+    }
+
+    private final WarmupProperties properties;
+    private final EmbeddingModel embeddingModel;
+    private final VectorStore vectorStore;
+    private final RetrievalService retrievalService;
+    private final RetrievalProfileService profileService;
+    private final ChatModel chatModel;
+    private final FaqService faqService;
+    private final MeterRegistry meterRegistry;
+
+    private final List<Step> steps = new CopyOnWriteArrayList<>();
+    private volatile State state = State.PENDING;
+    private volatile long elapsedMs;
+
+    public WarmupService(WarmupProperties properties,
+                         EmbeddingModel embeddingModel,
+                         VectorStore vectorStore,
+                         RetrievalService retrievalService,
+                         RetrievalProfileService profileService,
+                         ChatModel chatModel,
+                         FaqService faqService,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.embeddingModel = embeddingModel;
+        this.vectorStore = vectorStore;
+        this.retrievalService = retrievalService;
+        this.profileService = profileService;
+        this.chatModel = chatModel;
+        this.faqService = faqService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            state = State.COMPLETE;
+            return;
+        }
+        state = State.RUNNING;
+        // Off the main thread, so liveness and the other ready listeners are not held up
+        Thread.ofPlatform().name("warmup").daemon().start(this::run);
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public List<Step> steps() {
+        return List.copyOf(steps);
+    }
+
+    public long elapsedMs() {
+        return elapsedMs;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        List<String> queries = properties.getQueries();
+        log.info("🔄 Warming up before accepting traffic");
+
+        if (!queries.isEmpty()) {
+            step("embedding", () -> queries.forEach(embeddingModel::embed));
+            step("vector-search", () -> queries.forEach(query ->
+                    vectorStore.similaritySearch(SearchRequest.builder().query(query).build())));
+            // Speculative, so synthetic queries stay out of the retrieval metrics and hot-chunk counts
+            step("retrieval", () -> profileService.profiles().forEach(profile ->
+                    retrievalService.speculativeSearch(queries.get(0), RetrievalScope.unrestricted(), profile)));
+        }
+        if (properties.isChat()) {
+            step("chat", () -> chatModel.call(new Prompt("ping", ChatOptions.builder().maxTokens(1).build())));
+        }
+        step("faq", () -> {
+            if (!faqService.isActive()) {
+                faqService.reloadIndex();
+            }
+        });
+
+        elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        state = State.COMPLETE;
+        long failed = steps.stream().filter(step -> step.error() != null).count();
+        if (failed > 0) {
+            log.warn("⚠️ Warm-up finished in {} ms with {} of {} steps failed", elapsedMs, failed, steps.size());
+        } else {
+            log.info("✅ Warm-up finished in {} ms", elapsedMs);
+        }
+    }
+
+    private void step(String name, Runnable action) {
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            action.run();
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Timer.builder("warmup.step")
+                .description("Time taken by a startup warm-up step")
+                .tag("step", name)
+                .tag("outcome", error == null ? "success" : "failure")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        Step step = new Step(name, TimeUnit.NANOSECONDS.toMillis(elapsed), error);
+        steps.add(step);
+        if (error == null) {
+            log.info("🔥 Warm-up step {} took {} ms", name, step.elapsedMs());
+        } else {
+            log.warn("⚠️ Warm-up step {} failed after {} ms: {}", name, step.elapsedMs(), error);
+        }
+    }
+}
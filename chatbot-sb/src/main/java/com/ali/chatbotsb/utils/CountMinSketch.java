@@ -0,0 +1,78 @@
+package com.ali.chatbotsb.utils;
+
+/**
+ * Approximate frequency counts for an unbounded set of keys in fixed memory. Each key maps to one counter per
+ * row and its estimate is the smallest of them, so collisions only ever overestimate. Increments are
+ * conservative (only the minimal counters grow) to keep that error small, and all counters are halved after
+ * {@code resetAfter} increments so the counts follow what is popular now rather than since startup.
+ */
+public class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int[][] counters;
+    private final int mask;
+    private final long resetAfter;
+    private long increments;
+
+    /**
+     * @param width      counters per row, rounded up to a power of two
+     * @param resetAfter increments between two halvings
+     */
+    public CountMinSketch(int width, long resetAfter) {
+        int size = Integer.highestOneBit(Math.max(16, width - 1)) << 1;
+        this.counters = new int[SEEDS.length][size];
+        this.mask = size - 1;
+        this.resetAfter = resetAfter;
+    }
+
+    /**
+     * Count one occurrence of the key
+     *
+     * @return the key's estimate after counting
+     */
+    public synchronized int increment(Object key) {
+        int hash = key.hashCode();
+        int estimate = estimateLocked(hash);
+        for (int row = 0; row < SEEDS.length; row++) {
+            int[] counter = counters[row];
+            int index = index(hash, row);
+            if (counter[index] == estimate) {
+                counter[index]++;
+            }
+        }
+        if (++increments >= resetAfter) {
+            halve();
+        }
+        return estimate + 1;
+    }
+
+    public synchronized int estimate(Object key) {
+        return estimateLocked(key.hashCode());
+    }
+
+    private int estimateLocked(int hash) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            estimate = Math.min(estimate, counters[row][index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    private int index(int hash, int row) {
+        long mixed = (hash + SEEDS[row]) * 0xBF58476D1CE4E5B9L;
+        mixed ^= mixed >>> 31;
+        return (int) mixed & mask;
+    }
+
+    private void halve() {
+        for (int[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        increments /= 2;
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Optional;
+import java.util.Set;
 
 @Component
 public class MedicalPromptEnhancer {
@@ -50,6 +52,46 @@ public class MedicalPromptEnhancer {
         return "**GENERAL MEDICAL INQUIRY**\nProvide comprehensive medical information covering all relevant aspects.";
     }
 
+    /**
+     * Specialty a question is about, used to route retrieval to that specialty's shard
+     */
+    public Optional<String> detectSpecialty(String query) {
+        return Optional.ofNullable(detectMedicalSpecialty(query.toLowerCase()));
+    }
+
+    /**
+     * Classify a knowledge base chunk by the specialty whose keywords it mentions most often,
+     * empty when no specialty reaches {@code minHits} mentions
+     */
+    public Optional<String> classifySpecialty(String text, int minHits) {
+        String lowerText = text.toLowerCase();
+        String best = null;
+        int bestHits = 0;
+        for (Map.Entry<String, String> entry : MEDICAL_SPECIALTIES.entrySet()) {
+            int hits = countOccurrences(lowerText, entry.getKey());
+            for (String keyword : entry.getValue().split(", ")) {
+                hits += countOccurrences(lowerText, keyword);
+            }
+            if (hits > bestHits) {
+                best = entry.getKey();
+                bestHits = hits;
+            }
+        }
+        return bestHits >= minHits ? Optional.of(best) : Optional.empty();
+    }
+
+    public static Set<String> specialties() {
+        return MEDICAL_SPECIALTIES.keySet();
+    }
+
+    private static int countOccurrences(String text, String keyword) {
+        int count = 0;
+        for (int index = text.indexOf(keyword); index >= 0; index = text.indexOf(keyword, index + keyword.length())) {
+            count++;
+        }
+        return count;
+    }
+
     /**
      * Detect medical specialty based on keywords in the query
      */
@@ -0,0 +1,366 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted BM25 index over chunk text, the keyword half of hybrid retrieval. Postings are primitive
+ * (document, term frequency) pairs appended in document order, so ingestion only ever extends them.
+ * Documents go to an append-only log and the postings to a varint delta-encoded snapshot that is rewritten
+ * after every batch; a missing or stale snapshot is rebuilt from the log on startup. Re-adding an id retires
+ * its old slot, whose postings stay behind and are skipped until the index is next rebuilt.
+ */
+@Slf4j
+public class Bm25Index implements AutoCloseable {
+
+    public static final String SCORE_METADATA_KEY = "bm25_score";
+
+    private static final int MAGIC = 0x424D3235; // "BM25"
+
+    private final Path postingsPath;
+    private final float k1;
+    private final float b;
+    private final DocumentLog documentLog;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object writeMonitor = new Object();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private DocumentLog.StoredDocument[] documents = new DocumentLog.StoredDocument[0];
+    private int[] lengths = new int[0];
+    private int slotCount;
+    private int documentCount;
+    private long totalLength;
+
+    public Bm25Index(Path dataDirectory, float k1, float b, ObjectMapper objectMapper) {
+        this.postingsPath = dataDirectory.resolve("postings.bin");
+        this.k1 = k1;
+        this.b = b;
+        try {
+            Files.createDirectories(dataDirectory);
+            this.documentLog = new DocumentLog(dataDirectory.resolve("documents.log"), objectMapper);
+            load(documentLog.replay(Integer.MAX_VALUE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open BM25 index in " + dataDirectory, e);
+        }
+        log.info("📂 BM25 index opened at {} with {} documents and {} terms",
+                dataDirectory, documentCount, postings.size());
+    }
+
+    /**
+     * Index a batch of chunks, keeping their ids so results fuse with the vector store's. A chunk whose id is
+     * already indexed replaces the earlier version.
+     */
+    public void add(List<Document> batch) {
+        synchronized (writeMonitor) {
+            try {
+                lock.writeLock().lock();
+                try {
+                    for (Document document : batch) {
+                        Integer previous = slotsById.get(document.getId());
+                        if (previous != null) {
+                            documentLog.appendDelete(previous);
+                            retire(previous);
+                        }
+                        DocumentLog.StoredDocument stored = new DocumentLog.StoredDocument(document.getId(),
+                                document.getText(), new HashMap<>(document.getMetadata()));
+                        documentLog.appendAdd(slotCount, stored);
+                        index(slotCount, stored);
+                    }
+                    documentLog.sync();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                // Searches may run while the snapshot is written, only other writers wait
+                lock.readLock().lock();
+                try {
+                    writeSnapshot();
+                } finally {
+                    lock.readLock().unlock();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write BM25 index", e);
+            }
+        }
+    }
+
+    /**
+     * Best {@code topK} chunks for the query terms, scored with Okapi BM25
+     */
+    public List<Document> search(String query, int topK) {
+        return search(query, topK, null);
+    }
+
+    /**
+     * Best {@code topK} chunks for the query terms whose metadata matches the filter, {@code null} for all
+     */
+    public List<Document> search(String query, int topK, Filter.Expression filter) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(KeywordTokenizer.tokenize(query)));
+        lock.readLock().lock();
+        try {
+            if (terms.isEmpty() || documentCount == 0) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / documentCount;
+            float[] scores = new float[slotCount];
+            int[] touched = new int[Math.min(slotCount, 1024)];
+            int touchedCount = 0;
+
+            // Term-at-a-time accumulation over the postings of each query term
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                int frequency = list.live;
+                float idf = (float) Math.log(1 + (documentCount - frequency + 0.5) / (frequency + 0.5));
+                for (int i = 0; i < list.size; i += 2) {
+                    int document = list.data[i];
+                    int tf = list.data[i + 1];
+                    if (documents[document] == null) {
+                        continue; // Replaced by a later version
+                    }
+                    float norm = k1 * (1 - b + b * lengths[document] / averageLength);
+                    if (scores[document] == 0f) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, Math.min(slotCount, touched.length * 2));
+                        }
+                        touched[touchedCount++] = document;
+                    }
+                    scores[document] += idf * tf * (k1 + 1) / (tf + norm);
+                }
+            }
+
+            TopK top = new TopK(topK);
+            for (int i = 0; i < touchedCount; i++) {
+                if (filter == null || FilterExpressionEvaluator.matches(filter, documents[touched[i]].metadata())) {
+                    top.offer(touched[i], scores[touched[i]]);
+                }
+            }
+            List<Document> results = new ArrayList<>(top.size());
+            for (TopK.Hit hit : top.descending()) {
+                DocumentLog.StoredDocument document = documents[hit.row()];
+                Map<String, Object> metadata = new HashMap<>(document.metadata());
+                metadata.put(SCORE_METADATA_KEY, hit.score());
+                results.add(Document.builder()
+                        .id(document.id())
+                        .text(document.text())
+                        .metadata(metadata)
+                        .score((double) hit.score())
+                        .build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeMonitor) {
+            documentLog.close();
+        }
+    }
+
+    private void index(int document, DocumentLog.StoredDocument stored) {
+        if (document >= documents.length) {
+            int capacity = Math.max(document + 1, documents.length * 2);
+            documents = Arrays.copyOf(documents, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        List<String> terms = KeywordTokenizer.tokenize(stored.text());
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new PostingList()).append(document, tf));
+
+        documents[document] = stored;
+        lengths[document] = terms.size();
+        totalLength += terms.size();
+        slotsById.put(stored.id(), document);
+        slotCount = document + 1;
+        documentCount++;
+    }
+
+    private void retire(int document) {
+        for (String term : new HashSet<>(KeywordTokenizer.tokenize(documents[document].text()))) {
+            postings.get(term).live--;
+        }
+        slotsById.remove(documents[document].id());
+        documents[document] = null;
+        totalLength -= lengths[document];
+        lengths[document] = 0;
+        documentCount--;
+    }
+
+    private void load(Map<Integer, DocumentLog.StoredDocument> stored) throws IOException {
+        int count = stored.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        if (count == 0) {
+            return;
+        }
+        if (readSnapshot(count)) {
+            for (Map.Entry<Integer, DocumentLog.StoredDocument> entry : stored.entrySet()) {
+                documents[entry.getKey()] = entry.getValue();
+                slotsById.put(entry.getValue().id(), entry.getKey());
+            }
+            documentCount = stored.size();
+            if (documentCount < slotCount) {
+                postings.values().forEach(list -> list.countLive(documents));
+            }
+            return;
+        }
+        log.info("🔄 Rebuilding BM25 postings for {} documents", stored.size());
+        documents = new DocumentLog.StoredDocument[count];
+        lengths = new int[count];
+        for (int document = 0; document < count; document++) {
+            DocumentLog.StoredDocument entry = stored.get(document);
+            if (entry != null) {
+                index(document, entry);
+            }
+        }
+        slotCount = count;
+        writeSnapshot();
+    }
+
+    private boolean readSnapshot(int expectedSlots) throws IOException {
+        if (!Files.exists(postingsPath)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(postingsPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != expectedSlots) {
+                return false; // Written before the last batch reached the log, rebuild
+            }
+            slotCount = expectedSlots;
+            totalLength = in.readLong();
+            documents = new DocumentLog.StoredDocument[expectedSlots];
+            lengths = new int[expectedSlots];
+            for (int i = 0; i < expectedSlots; i++) {
+                lengths[i] = readVarInt(in);
+            }
+            int terms = in.readInt();
+            for (int t = 0; t < terms; t++) {
+                String term = in.readUTF();
+                int entries = readVarInt(in);
+                PostingList list = new PostingList(entries * 2);
+                int document = 0;
+                for (int i = 0; i < entries; i++) {
+                    document += readVarInt(in);
+                    list.append(document, readVarInt(in));
+                }
+                postings.put(term, list);
+            }
+            return true;
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        Path temp = postingsPath.resolveSibling(postingsPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(slotCount);
+            out.writeLong(totalLength);
+            for (int i = 0; i < slotCount; i++) {
+                writeVarInt(out, lengths[i]);
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                PostingList list = entry.getValue();
+                out.writeUTF(entry.getKey());
+                writeVarInt(out, list.size / 2);
+                int previous = 0;
+                for (int i = 0; i < list.size; i += 2) {
+                    writeVarInt(out, list.data[i] - previous);
+                    writeVarInt(out, list.data[i + 1]);
+                    previous = list.data[i];
+                }
+            }
+        }
+        Files.move(temp, postingsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte next = in.readByte();
+            value |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Interleaved (document, term frequency) pairs in ascending document order
+     */
+    private static final class PostingList {
+
+        private int[] data;
+        private int size;
+        private int live; // Entries whose document has not been replaced, the term's document frequency
+
+        private PostingList() {
+            this(4);
+        }
+
+        private PostingList(int capacity) {
+            this.data = new int[Math.max(2, capacity)];
+        }
+
+        private void append(int document, int tf) {
+            if (size + 2 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = document;
+            data[size++] = tf;
+            live++;
+        }
+
+        private void countLive(DocumentLog.StoredDocument[] documents) {
+            live = 0;
+            for (int i = 0; i < size; i += 2) {
+                if (documents[data[i]] != null) {
+                    live++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.ali.chatbotsb.vectorstore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Knowledge base partitioned across application nodes by a hash of the chunk id, each node owning one shard in
+ * its local vector store. The node that receives a request coordinates it: uploads are embedded once and sent to
+ * the owning shards with their vectors, and searches embed the question once and scatter it to every shard in
+ * parallel. Each remote shard has a deadline; a shard that misses it or fails is left out and the merged top-k of
+ * the others is returned, so a slow node degrades recall instead of latency.
+ */
+@Slf4j
+public class ClusterVectorStore implements EmbeddedVectorStore {
+
+    /**
+     * One partition of the knowledge base
+     */
+    public interface Shard {
+
+        String name();
+
+        List<Document> search(SearchRequest request, float[] embedding);
+
+        void add(List<Document> documents, List<float[]> embeddings);
+
+        void delete(List<String> ids);
+
+        void delete(Filter.Expression filterExpression);
+    }
+
+    /**
+     * The shard in this node's own vector store
+     */
+    public record LocalShard(LocalVectorStore store) implements Shard {
+
+        @Override
+        public String name() {
+            return "local";
+        }
+
+        @Override
+        public List<Document> search(SearchRequest request, float[] embedding) {
+            return store.searchEmbedded(request, embedding);
+        }
+
+        @Override
+        public void add(List<Document> documents, List<float[]> embeddings) {
+            store.addEmbedded(documents, embeddings);
+        }
+
+        @Override
+        public void delete(List<String> ids) {
+            store.delete(ids);
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            store.delete(filterExpression);
+        }
+    }
+
+    private final List<Shard> shards;
+    private final int localIndex;
+    private final EmbeddingModel embeddingModel;
+    private final BatchingStrategy batchingStrategy = new TokenCountBatchingStrategy();
+    private final Duration shardTimeout;
+    private final Executor executor;
+
+    private final Counter partialSearches;
+    private final List<Counter> missedShards = new ArrayList<>();
+
+    /**
+     * @param shards     all shards in partition order, the local one at {@code localIndex}
+     * @param localIndex partition owned by this node
+     */
+    public ClusterVectorStore(List<Shard> shards, int localIndex, EmbeddingModel embeddingModel, Duration shardTimeout,
+                              Executor executor, MeterRegistry meterRegistry) {
+        if (localIndex < 0 || localIndex >= shards.size() || !(shards.get(localIndex) instanceof LocalShard)) {
+            throw new IllegalArgumentException("Shard " + localIndex + " must be the local shard of " + shards.size());
+        }
+        this.shards = List.copyOf(shards);
+        this.localIndex = localIndex;
+        this.embeddingModel = embeddingModel;
+        this.shardTimeout = shardTimeout;
+        this.executor = executor;
+
+        this.partialSearches = Counter.builder("vectorstore.cluster.partial")
+                .description("Searches answered without every shard")
+                .register(meterRegistry);
+        for (int i = 0; i < shards.size(); i++) {
+            missedShards.add(Counter.builder("vectorstore.cluster.shard.missed")
+                    .description("Searches a shard did not answer within its deadline or failed")
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry));
+        }
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int localIndex() {
+        return localIndex;
+    }
+
+    /**
+     * Partition that owns a chunk id
+     */
+    public int shardOf(String id) {
+        return Math.floorMod(id.hashCode(), shards.size());
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        addEmbedded(documents, embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy));
+    }
+
+    @Override
+    public void addEmbedded(List<Document> documents, List<float[]> embeddings) {
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            byShard.computeIfAbsent(shardOf(documents.get(i).getId()), shard -> new ArrayList<>()).add(i);
+        }
+        byShard.forEach((shard, positions) -> {
+            log.debug("📦 Writing {} chunks to shard {}", positions.size(), shard);
+            shards.get(shard).add(positions.stream().map(documents::get).toList(),
+                    positions.stream().map(embeddings::get).toList());
+        });
+    }
+
+    /**
+     * Exports this node's shard only; every node exports its own and any of the snapshots can be imported into
+     * a cluster of a different size, since imports are routed by chunk id again
+     */
+    @Override
+    public long exportEmbedded(int batchSize, Consumer<Batch> consumer) {
+        return ((LocalShard) shards.get(localIndex)).store().exportEmbedded(batchSize, consumer);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        Map<Integer, List<String>> byShard = new TreeMap<>();
+        idList.forEach(id -> byShard.computeIfAbsent(shardOf(id), shard -> new ArrayList<>()).add(id));
+        byShard.forEach((shard, ids) -> shards.get(shard).delete(ids));
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        shards.forEach(shard -> shard.delete(filterExpression));
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] embedding = embeddingModel.embed(request.getQuery());
+
+        List<CompletableFuture<List<Document>>> pending = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            if (i == localIndex) {
+                pending.add(null);
+                continue;
+            }
+            Shard shard = shards.get(i);
+            int index = i;
+            CompletableFuture<List<Document>> call;
+            try {
+                call = CompletableFuture.supplyAsync(() -> shard.search(request, embedding), executor);
+            } catch (RejectedExecutionException e) {
+                call = CompletableFuture.failedFuture(e); // Every shard call thread busy
+            }
+            pending.add(call.orTimeout(shardTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .exceptionally(e -> {
+                        log.warn("⚠️ Shard {} ({}) left out of search: {}", index, shard.name(), e.toString());
+                        return null;
+                    }));
+        }
+
+        // The calling thread searches the local shard while the remote ones answer
+        List<Document> merged = new ArrayList<>(shards.get(localIndex).search(request, embedding));
+        int missing = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            if (pending.get(i) == null) {
+                continue;
+            }
+            List<Document> results = pending.get(i).join();
+            if (results == null) {
+                missedShards.get(i).increment();
+                missing++;
+            } else {
+                merged.addAll(results);
+            }
+        }
+        if (missing > 0) {
+            partialSearches.increment();
+        }
+
+        return merged.stream()
+                .sorted(Comparator.comparing((Document document) -> document.getScore() != null ? document.getScore() : 0.0)
+                        .reversed())
+                .limit(request.getTopK())
+                .toList();
+    }
+
+    /**
+     * Search this node's shard for a coordinator
+     */
+    public List<ShardProtocol.ShardDocument> searchLocal(ShardProtocol.SearchCall call) {
+        SearchRequest.Builder request = SearchRequest.builder()
+                .query(call.query())
+                .topK(call.topK())
+                .similarityThreshold(call.similarityThreshold());
+        Filter.Expression filter = ShardProtocol.fromMap(call.filter());
+        if (filter != null) {
+            request.filterExpression(filter);
+        }
+        return shards.get(localIndex).search(request.build(), call.embedding()).stream()
+                .map(ShardProtocol.ShardDocument::of)
+                .toList();
+    }
+
+    /**
+     * Store chunks a coordinator routed to this node's shard
+     */
+    public void addLocal(ShardProtocol.AddCall call) {
+        shards.get(localIndex).add(call.documents().stream().map(ShardProtocol.ShardDocument::toDocument).toList(),
+                call.embeddings());
+    }
+
+    public void deleteLocal(ShardProtocol.DeleteCall call) {
+        if (call.ids() != null && !call.ids().isEmpty()) {
+            shards.get(localIndex).delete(call.ids());
+        }
+        Filter.Expression filter = ShardProtocol.fromMap(call.filter());
+        if (filter != null) {
+            shards.get(localIndex).delete(filter);
+        }
+    }
+}
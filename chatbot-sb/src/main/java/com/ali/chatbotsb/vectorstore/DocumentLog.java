@@ -0,0 +1,127 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only log of the documents held by a local vector store, keyed by the slot their vector occupies.
+ * Replaying it rebuilds the id, text and metadata of every live slot; a torn record at the end is ignored.
+ */
+final class DocumentLog implements Closeable {
+
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private FileOutputStream file;
+    private DataOutputStream out;
+
+    DocumentLog(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read back the live documents of all slots below {@code slotLimit} and open the log for appending
+     */
+    Map<Integer, StoredDocument> replay(int slotLimit) throws IOException {
+        Map<Integer, StoredDocument> documents = new HashMap<>();
+        long validLength = 0;
+        if (Files.exists(path)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                while (true) {
+                    byte type = in.readByte();
+                    int slot = in.readInt();
+                    long recordLength = 1 + Integer.BYTES;
+                    if (type == ADD) {
+                        byte[] id = readBytes(in);
+                        byte[] text = readBytes(in);
+                        byte[] metadata = readBytes(in);
+                        recordLength += 3L * Integer.BYTES + id.length + text.length + metadata.length;
+                        if (slot < slotLimit) {
+                            documents.put(slot, new StoredDocument(new String(id, StandardCharsets.UTF_8),
+                                    new String(text, StandardCharsets.UTF_8),
+                                    objectMapper.readValue(metadata, METADATA_TYPE)));
+                        }
+                    } else if (type == DELETE) {
+                        documents.remove(slot);
+                    } else {
+                        throw new IOException("Corrupt document log record type " + type + " in " + path);
+                    }
+                    validLength += recordLength;
+                }
+            } catch (EOFException e) {
+                // End of log, drop a record torn by a crash so new appends start on a record boundary
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+        }
+        file = new FileOutputStream(path.toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(file));
+        return documents;
+    }
+
+    void appendAdd(int slot, StoredDocument document) throws IOException {
+        out.writeByte(ADD);
+        out.writeInt(slot);
+        writeString(document.id());
+        writeString(document.text());
+        writeString(objectMapper.writeValueAsString(document.metadata()));
+    }
+
+    void appendDelete(int slot) throws IOException {
+        out.writeByte(DELETE);
+        out.writeInt(slot);
+    }
+
+    /**
+     * Make everything appended so far durable
+     */
+    void sync() throws IOException {
+        out.flush();
+        file.getFD().sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            sync();
+            out.close();
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    record StoredDocument(String id, String text, Map<String, Object> metadata) {
+    }
+}
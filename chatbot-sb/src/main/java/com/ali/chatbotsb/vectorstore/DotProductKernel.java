@@ -0,0 +1,27 @@
+package com.ali.chatbotsb.vectorstore;
+
+/**
+ * Dot product of a query against one row of a flat float matrix.
+ * {@link #best()} picks the SIMD implementation when the JVM was started with the Vector API module.
+ */
+public interface DotProductKernel {
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    float dot(float[] matrix, int offset, float[] query);
+
+    /**
+     * Dot product of a row of int8 codes with a float query, the caller applies the row's scale
+     */
+    float dot(byte[] codes, int offset, float[] query);
+
+    String name();
+
+    static DotProductKernel best() {
+        return isSimdAvailable() ? new SimdDotProductKernel() : new ScalarDotProductKernel();
+    }
+
+    static boolean isSimdAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+}
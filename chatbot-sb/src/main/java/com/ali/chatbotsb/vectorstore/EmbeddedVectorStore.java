@@ -0,0 +1,33 @@
+package com.ali.chatbotsb.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A vector store that takes and hands out documents together with their embeddings, so a whole knowledge base
+ * can be copied between stores and environments without calling the embedding model
+ */
+public interface EmbeddedVectorStore extends VectorStore {
+
+    /**
+     * Documents with the embedding of each, in the same order
+     */
+    record Batch(List<Document> documents, List<float[]> embeddings) {
+    }
+
+    /**
+     * Add documents with their embeddings, replacing documents with the same id
+     */
+    void addEmbedded(List<Document> documents, List<float[]> embeddings);
+
+    /**
+     * Hand every live document with its embedding to the consumer, up to {@code batchSize} at a time. Local
+     * stores hand out the unit-length vectors they keep, which score the same under cosine similarity.
+     *
+     * @return number of exported documents
+     */
+    long exportEmbedded(int batchSize, Consumer<Batch> consumer);
+}
@@ -0,0 +1,28 @@
+package com.ali.chatbotsb.vectorstore;
+
+/**
+ * In-memory representation of the stored embeddings that the exact store scans.
+ * Approximate encodings are followed by a full-precision rescoring of the best candidates.
+ */
+interface EncodedRows {
+
+    void ensureRows(int rows);
+
+    void set(int row, float[] normalized);
+
+    /**
+     * Per-query state, e.g. distance tables for product quantization
+     */
+    Scorer prepare(float[] query);
+
+    boolean approximate();
+
+    long bytesPerRow();
+
+    String name();
+
+    @FunctionalInterface
+    interface Scorer {
+        float score(int row);
+    }
+}
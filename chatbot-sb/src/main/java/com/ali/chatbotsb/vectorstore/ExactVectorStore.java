@@ -0,0 +1,630 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.ali.chatbotsb.utils.VectorMath;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Brute-force {@link org.springframework.ai.vectorstore.VectorStore}: every query is scored against all
+ * stored embeddings. Normalized embeddings are kept in large contiguous blocks and scored with SIMD dot products,
+ * split across cores with fork/join and merged through bounded top-K heaps. With {@link Quantization#INT8} or
+ * {@link Quantization#PQ} the blocks hold compressed codes instead; the code scan keeps
+ * {@code topK * rescoreMultiplier} candidates which are rescored against the full-precision vectors.
+ * Vectors are persisted to a memory-mapped file and documents to an append-only log.
+ */
+@Slf4j
+public class ExactVectorStore extends AbstractObservationVectorStore implements LocalVectorStore, AutoCloseable {
+
+    public static final String DB_SYSTEM = "exact";
+
+    private static final int PQ_ITERATIONS = 10;
+
+    private final Path dataDirectory;
+    private final int dimensions;
+    private final int parallelThreshold;
+    private final int rescoreMultiplier;
+    private final int pqTrainingThreshold;
+    private final int pqTrainingSample;
+    private final DotProductKernel kernel;
+    private final ForkJoinPool pool;
+    private final EncodedRows rows;
+    private final AtomicBoolean training = new AtomicBoolean();
+
+    private final MappedSlotFile vectorFile;
+    private final DocumentLog documentLog;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private DocumentLog.StoredDocument[] documents = new DocumentLog.StoredDocument[0];
+    private final Map<String, Integer> rowsById = new HashMap<>();
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+    private int rowCount;
+
+    protected ExactVectorStore(Builder builder) {
+        super(builder);
+        this.dataDirectory = builder.dataDirectory;
+        this.dimensions = builder.dimensions;
+        this.parallelThreshold = builder.parallelThreshold;
+        this.rescoreMultiplier = Math.max(1, builder.rescoreMultiplier);
+        this.pqTrainingThreshold = Math.max(ProductQuantizedRows.CENTROIDS, builder.pqTrainingThreshold);
+        this.pqTrainingSample = Math.max(pqTrainingThreshold, builder.pqTrainingSample);
+        this.kernel = builder.kernel != null ? builder.kernel : DotProductKernel.best();
+        this.pool = ForkJoinPool.commonPool();
+        try {
+            Files.createDirectories(dataDirectory);
+            this.rows = switch (builder.quantization) {
+                case NONE -> new FloatRows(dimensions, kernel);
+                case INT8 -> new Int8Rows(dimensions, kernel);
+                case PQ -> new ProductQuantizedRows(dimensions, builder.pqSubspaces,
+                        dataDirectory.resolve("pq.codebook"), kernel);
+            };
+            this.vectorFile = new MappedSlotFile(dataDirectory.resolve("vectors.bin"), dimensions * Float.BYTES,
+                    Math.max(1, (256 * 1024 * 1024) / (dimensions * Float.BYTES)));
+            this.documentLog = new DocumentLog(dataDirectory.resolve("documents.log"), builder.objectMapper);
+            load(documentLog.replay(Integer.MAX_VALUE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open exact vector store in " + dataDirectory, e);
+        }
+        log.info("📂 Exact vector store opened at {} with {} documents, {} kernel, {} encoding ({} bytes per vector)",
+                dataDirectory, rowsById.size(), kernel.name(), rows.name(), rows.bytesPerRow());
+        if (!(kernel instanceof SimdDotProductKernel)) {
+            log.warn("⚠️ Vector API not available, start the JVM with --add-modules {} for SIMD scoring",
+                    DotProductKernel.VECTOR_MODULE);
+        }
+        trainProductQuantizerIfDue();
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void doAdd(List<Document> documentsToAdd) {
+        addEmbedded(documentsToAdd, embeddingModel.embed(documentsToAdd, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy));
+    }
+
+    @Override
+    public void addEmbedded(List<Document> documentsToAdd, List<float[]> embeddings) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documentsToAdd.size(); i++) {
+                Document document = documentsToAdd.get(i);
+                float[] embedding = embeddings.get(i);
+                if (embedding.length != dimensions) {
+                    throw new IllegalArgumentException("Embedding has " + embedding.length
+                            + " dimensions but the exact store was created with " + dimensions);
+                }
+                removeLocked(document.getId());
+
+                int row = freeRows.isEmpty() ? rowCount : freeRows.pop();
+                float[] normalized = VectorMath.normalize(embedding);
+                writeRow(row, normalized);
+
+                DocumentLog.StoredDocument stored = new DocumentLog.StoredDocument(document.getId(),
+                        document.getText(), new HashMap<>(document.getMetadata()));
+                documents[row] = stored;
+                rowsById.put(document.getId(), row);
+                documentLog.appendAdd(row, stored);
+            }
+            // Vectors before the log, so every logged row has its vector on disk
+            vectorFile.force();
+            documentLog.sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write exact vector store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        trainProductQuantizerIfDue();
+    }
+
+    /**
+     * Rows are read under the read lock one batch at a time, so uploads are only held up for the copy of a batch
+     */
+    @Override
+    public long exportEmbedded(int batchSize, Consumer<Batch> consumer) {
+        long exported = 0;
+        int row = 0;
+        while (true) {
+            List<Document> batch = new ArrayList<>(batchSize);
+            List<float[]> embeddings = new ArrayList<>(batchSize);
+            lock.readLock().lock();
+            try {
+                for (; row < rowCount && batch.size() < batchSize; row++) {
+                    DocumentLog.StoredDocument document = documents[row];
+                    if (document != null) {
+                        batch.add(Document.builder()
+                                .id(document.id())
+                                .text(document.text() != null ? document.text() : "")
+                                .metadata(new HashMap<>(document.metadata()))
+                                .build());
+                        embeddings.add(readRow(row));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (batch.isEmpty()) {
+                return exported;
+            }
+            consumer.accept(new Batch(batch, embeddings));
+            exported += batch.size();
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                removeLocked(id);
+            }
+            documentLog.sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write exact vector store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void doDelete(Filter.Expression filterExpression) {
+        List<String> matching = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < rowCount; row++) {
+                DocumentLog.StoredDocument document = documents[row];
+                if (document != null && FilterExpressionEvaluator.matches(filterExpression, document.metadata())) {
+                    matching.add(document.id());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        doDelete(matching);
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        return searchEmbedded(request, embeddingModel.embed(request.getQuery()));
+    }
+
+    @Override
+    public List<Document> searchEmbedded(SearchRequest request, float[] embedding) {
+        float[] query = VectorMath.normalize(embedding);
+        Filter.Expression filter = request.hasFilterExpression() ? request.getFilterExpression() : null;
+
+        lock.readLock().lock();
+        try {
+            TopK top = search(query, request.getTopK(), filter);
+            List<Document> results = new ArrayList<>(top.size());
+            for (TopK.Hit hit : top.descending()) {
+                if (hit.score() < request.getSimilarityThreshold()) {
+                    continue;
+                }
+                DocumentLog.StoredDocument document = documents[hit.row()];
+                Map<String, Object> metadata = new HashMap<>(document.metadata());
+                metadata.put(DocumentMetadata.DISTANCE.value(), 1.0f - hit.score());
+                results.add(Document.builder()
+                        .id(document.id())
+                        .text(document.text())
+                        .metadata(metadata)
+                        .score((double) hit.score())
+                        .build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder(DB_SYSTEM, operationName)
+                .collectionName(dataDirectory.toString())
+                .dimensions(dimensions)
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> ids() {
+        lock.readLock().lock();
+        try {
+            return Set.copyOf(rowsById.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String kernelName() {
+        return kernel.name();
+    }
+
+    /**
+     * Memory footprint of the in-memory encoding and its recall@k against exact full-precision search, using
+     * up to {@code sampleSize} stored vectors as queries. Recall is reported for the code scan alone and after
+     * rescoring, which is what searches return.
+     */
+    public QuantizationReport quantizationReport(int sampleSize, int k) {
+        lock.readLock().lock();
+        try {
+            List<Integer> live = new ArrayList<>(rowsById.values());
+            Collections.sort(live);
+            int queries = Math.min(sampleSize, live.size());
+            double codeRecall = 0;
+            double rescoredRecall = 0;
+            for (int q = 0; q < queries; q++) {
+                // Spread the sample over the whole store
+                float[] query = readRow(live.get((int) ((long) q * live.size() / queries)));
+                Set<Integer> truth = rowSet(exactScan(query, k));
+                TopK codes = search(rows.prepare(query), k * rescoreMultiplier, null);
+                codeRecall += overlap(truth, firstRows(codes, k)) / (double) k;
+                rescoredRecall += overlap(truth, rowSet(rows.approximate() ? rescore(codes, query, k) : codes))
+                        / (double) k;
+            }
+            long fullBytes = (long) dimensions * Float.BYTES;
+            return new QuantizationReport(rows.name(), live.size(), dimensions, rows.bytesPerRow(), fullBytes,
+                    rows.bytesPerRow() * (long) rowCount, (double) fullBytes / rows.bytesPerRow(), k,
+                    rows.approximate() ? rescoreMultiplier : 1, queries,
+                    queries == 0 ? 0 : codeRecall / queries, queries == 0 ? 0 : rescoredRecall / queries);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            documentLog.close();
+            vectorFile.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Scan the in-memory rows and, for compressed encodings, rescore the candidates at full precision.
+     * Caller holds the read lock.
+     */
+    private TopK search(float[] query, int topK, Filter.Expression filter) {
+        if (!rows.approximate()) {
+            return search(rows.prepare(query), topK, filter);
+        }
+        return rescore(search(rows.prepare(query), topK * rescoreMultiplier, filter), query, topK);
+    }
+
+    /**
+     * Score all rows, in parallel slices once the matrix is large enough
+     */
+    private TopK search(EncodedRows.Scorer scorer, int topK, Filter.Expression filter) {
+        int count = rowCount;
+        if (count < parallelThreshold) {
+            return scan(scorer, topK, filter, 0, count);
+        }
+        return pool.invoke(new ScanTask(scorer, topK, filter, 0, count));
+    }
+
+    private TopK rescore(TopK candidates, float[] query, int topK) {
+        TopK top = new TopK(topK);
+        for (TopK.Hit hit : candidates.descending()) {
+            top.offer(hit.row(), vectorFile.dot(hit.row(), query));
+        }
+        return top;
+    }
+
+    private TopK scan(EncodedRows.Scorer scorer, int topK, Filter.Expression filter, int from, int to) {
+        TopK top = new TopK(topK);
+        for (int row = from; row < to; row++) {
+            DocumentLog.StoredDocument document = documents[row];
+            if (document == null) {
+                continue;
+            }
+            float score = scorer.score(row);
+            // The filter is only evaluated for rows that would make it into the result
+            if (score > top.threshold()
+                    && (filter == null || FilterExpressionEvaluator.matches(filter, document.metadata()))) {
+                top.offer(row, score);
+            }
+        }
+        return top;
+    }
+
+    private final class ScanTask extends RecursiveTask<TopK> {
+
+        private final EncodedRows.Scorer scorer;
+        private final int topK;
+        private final Filter.Expression filter;
+        private final int from;
+        private final int to;
+
+        private ScanTask(EncodedRows.Scorer scorer, int topK, Filter.Expression filter, int from, int to) {
+            this.scorer = scorer;
+            this.topK = topK;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= parallelThreshold) {
+                return scan(scorer, topK, filter, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(scorer, topK, filter, from, middle);
+            left.fork();
+            TopK right = new ScanTask(scorer, topK, filter, middle, to).compute();
+            TopK merged = left.join();
+            merged.addAll(right);
+            return merged;
+        }
+    }
+
+    /**
+     * Train the product quantizer once enough rows exist. The sample is taken under the read lock and k-means
+     * runs without holding any lock; only installing the codebook and re-encoding blocks writers.
+     */
+    private void trainProductQuantizerIfDue() {
+        if (!(rows instanceof ProductQuantizedRows pq) || pq.isTrained() || size() < pqTrainingThreshold
+                || !training.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<float[]> sample = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                List<Integer> live = new ArrayList<>(rowsById.values());
+                Collections.shuffle(live, new Random(42));
+                for (int row : live.subList(0, Math.min(pqTrainingSample, live.size()))) {
+                    sample.add(readRow(row));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            long start = System.currentTimeMillis();
+            float[][] codebook = pq.train(sample, PQ_ITERATIONS, 42);
+
+            lock.writeLock().lock();
+            try {
+                pq.install(codebook);
+                for (int row : rowsById.values()) {
+                    pq.set(row, readRow(row));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("✅ Product quantizer trained on {} vectors in {} ms, {} bytes per vector",
+                    sample.size(), System.currentTimeMillis() - start, pq.bytesPerRow());
+        } catch (IOException e) {
+            log.error("❌ Failed to persist product quantizer codebook: {}", e.getMessage());
+        } finally {
+            training.set(false);
+        }
+    }
+
+    private void load(Map<Integer, DocumentLog.StoredDocument> stored) throws IOException {
+        int count = stored.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        ensureRows(count);
+        vectorFile.ensureCapacity(count);
+        for (int row = 0; row < count; row++) {
+            DocumentLog.StoredDocument document = stored.get(row);
+            if (document == null) {
+                freeRows.push(row);
+                continue;
+            }
+            rows.set(row, readRow(row));
+            documents[row] = document;
+            rowsById.put(document.id(), row);
+        }
+        rowCount = count;
+    }
+
+    private float[] readRow(int row) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = vectorFile.getFloat(row, i);
+        }
+        return vector;
+    }
+
+    private void writeRow(int row, float[] vector) throws IOException {
+        if (row >= rowCount) {
+            ensureRows(row + 1);
+            vectorFile.ensureCapacity(row + 1);
+            rowCount = row + 1;
+        }
+        rows.set(row, vector);
+        for (int i = 0; i < dimensions; i++) {
+            vectorFile.putFloat(row, i, vector[i]);
+        }
+    }
+
+    private void ensureRows(int count) {
+        rows.ensureRows(count);
+        if (count > documents.length) {
+            documents = Arrays.copyOf(documents, Math.max(count, documents.length * 2));
+        }
+    }
+
+    private TopK exactScan(float[] query, int k) {
+        TopK top = new TopK(k);
+        for (int row : rowsById.values()) {
+            top.offer(row, vectorFile.dot(row, query));
+        }
+        return top;
+    }
+
+    private static Set<Integer> rowSet(TopK top) {
+        Set<Integer> result = new HashSet<>();
+        for (TopK.Hit hit : top.descending()) {
+            result.add(hit.row());
+        }
+        return result;
+    }
+
+    private static Set<Integer> firstRows(TopK top, int k) {
+        Set<Integer> result = new HashSet<>();
+        for (TopK.Hit hit : top.descending()) {
+            if (result.size() == k) {
+                break;
+            }
+            result.add(hit.row());
+        }
+        return result;
+    }
+
+    private static int overlap(Set<Integer> truth, Set<Integer> found) {
+        int hits = 0;
+        for (int row : found) {
+            if (truth.contains(row)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Footprint and recall of the in-memory encoding, see {@link #quantizationReport(int, int)}
+     */
+    public record QuantizationReport(String encoding, int vectors, int dimensions, long bytesPerVector,
+                                     long fullPrecisionBytesPerVector, long memoryBytes, double compressionRatio,
+                                     int k, int rescoreMultiplier, int queries, double codeRecall,
+                                     double rescoredRecall) {
+    }
+
+    private void removeLocked(String id) throws IOException {
+        Integer row = rowsById.remove(id);
+        if (row != null) {
+            documents[row] = null;
+            freeRows.push(row);
+            documentLog.appendDelete(row);
+        }
+    }
+
+    public static class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+        private Path dataDirectory = Path.of("data", "exact");
+        private int dimensions = 1024;
+        private int parallelThreshold = 16_384;
+        private Quantization quantization = Quantization.NONE;
+        private int rescoreMultiplier = 4;
+        private int pqSubspaces = 256;
+        private int pqTrainingThreshold = 4096;
+        private int pqTrainingSample = 16_384;
+        private DotProductKernel kernel;
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        public Builder dataDirectory(Path dataDirectory) {
+            this.dataDirectory = dataDirectory;
+            return this;
+        }
+
+        public Builder dimensions(int dimensions) {
+            this.dimensions = dimensions;
+            return this;
+        }
+
+        /**
+         * Rows scored per fork/join task, smaller matrices are scanned on the calling thread
+         */
+        public Builder parallelThreshold(int parallelThreshold) {
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
+        public Builder quantization(Quantization quantization) {
+            this.quantization = quantization;
+            return this;
+        }
+
+        /**
+         * With compressed encodings the code scan keeps {@code topK * rescoreMultiplier} candidates for rescoring
+         */
+        public Builder rescoreMultiplier(int rescoreMultiplier) {
+            this.rescoreMultiplier = rescoreMultiplier;
+            return this;
+        }
+
+        /**
+         * Product quantization subspaces, must divide the dimensions; each costs one byte per vector
+         */
+        public Builder pqSubspaces(int pqSubspaces) {
+            this.pqSubspaces = pqSubspaces;
+            return this;
+        }
+
+        /**
+         * Live vectors needed before the codebook is trained; until then rows are held as int8
+         */
+        public Builder pqTrainingThreshold(int pqTrainingThreshold) {
+            this.pqTrainingThreshold = pqTrainingThreshold;
+            return this;
+        }
+
+        public Builder pqTrainingSample(int pqTrainingSample) {
+            this.pqTrainingSample = pqTrainingSample;
+            return this;
+        }
+
+        public Builder kernel(DotProductKernel kernel) {
+            this.kernel = kernel;
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        @Override
+        public ExactVectorStore build() {
+            return new ExactVectorStore(this);
+        }
+    }
+}
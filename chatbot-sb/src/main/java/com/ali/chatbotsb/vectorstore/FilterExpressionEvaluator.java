@@ -0,0 +1,106 @@
+package com.ali.chatbotsb.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates Spring AI portable filter expressions directly against a document's metadata map,
+ * for the vector stores that keep documents in process.
+ * A collection-valued metadata entry matches EQ / IN when any of its elements does.
+ */
+public final class FilterExpressionEvaluator {
+
+    private FilterExpressionEvaluator() {
+    }
+
+    public static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+        if (expression == null) {
+            return true;
+        }
+        return switch (expression.type()) {
+            case AND -> matchesOperand(expression.left(), metadata) && matchesOperand(expression.right(), metadata);
+            case OR -> matchesOperand(expression.left(), metadata) || matchesOperand(expression.right(), metadata);
+            case NOT -> !matchesOperand(expression.left(), metadata);
+            case EQ -> anyValue(lookup(expression, metadata), value -> valueEquals(value, operandValue(expression)));
+            case NE -> noneValue(lookup(expression, metadata), value -> valueEquals(value, operandValue(expression)));
+            case GT -> anyValue(lookup(expression, metadata), value -> compare(value, operandValue(expression)) > 0);
+            case GTE -> anyValue(lookup(expression, metadata), value -> compare(value, operandValue(expression)) >= 0);
+            case LT -> anyValue(lookup(expression, metadata), value -> compare(value, operandValue(expression)) < 0);
+            case LTE -> anyValue(lookup(expression, metadata), value -> compare(value, operandValue(expression)) <= 0);
+            case IN -> anyValue(lookup(expression, metadata), value -> inList(value, operandValue(expression)));
+            case NIN -> noneValue(lookup(expression, metadata), value -> inList(value, operandValue(expression)));
+        };
+    }
+
+    private static boolean matchesOperand(Filter.Operand operand, Map<String, Object> metadata) {
+        if (operand instanceof Filter.Group group) {
+            return matches(group.content(), metadata);
+        }
+        if (operand instanceof Filter.Expression expression) {
+            return matches(expression, metadata);
+        }
+        throw new IllegalArgumentException("Expected a filter expression but got: " + operand);
+    }
+
+    private static Object lookup(Filter.Expression expression, Map<String, Object> metadata) {
+        if (!(expression.left() instanceof Filter.Key key)) {
+            throw new IllegalArgumentException("Left side of " + expression.type() + " must be a metadata key");
+        }
+        return metadata.get(unquote(key.key()));
+    }
+
+    private static Object operandValue(Filter.Expression expression) {
+        if (!(expression.right() instanceof Filter.Value value)) {
+            throw new IllegalArgumentException("Right side of " + expression.type() + " must be a value");
+        }
+        return value.value();
+    }
+
+    private static boolean anyValue(Object metadataValue, Predicate<Object> test) {
+        if (metadataValue == null) {
+            return false;
+        }
+        if (metadataValue instanceof Collection<?> values) {
+            return values.stream().anyMatch(test);
+        }
+        return test.test(metadataValue);
+    }
+
+    private static boolean noneValue(Object metadataValue, Predicate<Object> test) {
+        return !anyValue(metadataValue, test);
+    }
+
+    private static boolean inList(Object value, Object list) {
+        if (list instanceof List<?> candidates) {
+            return candidates.stream().anyMatch(candidate -> valueEquals(value, candidate));
+        }
+        return valueEquals(value, list);
+    }
+
+    private static boolean valueEquals(Object left, Object right) {
+        if (left instanceof Number l && right instanceof Number r) {
+            return Double.compare(l.doubleValue(), r.doubleValue()) == 0;
+        }
+        return Objects.equals(String.valueOf(left), String.valueOf(right));
+    }
+
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number l && right instanceof Number r) {
+            return Double.compare(l.doubleValue(), r.doubleValue());
+        }
+        return String.valueOf(left).compareTo(String.valueOf(right));
+    }
+
+    private static String unquote(String key) {
+        if (key.length() >= 2
+                && ((key.startsWith("'") && key.endsWith("'")) || (key.startsWith("\"") && key.endsWith("\"")))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+}
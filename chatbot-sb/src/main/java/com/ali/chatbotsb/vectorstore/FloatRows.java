@@ -0,0 +1,60 @@
+package com.ali.chatbotsb.vectorstore;
+
+import java.util.Arrays;
+
+/**
+ * Full-precision rows in contiguous float blocks
+ */
+final class FloatRows implements EncodedRows {
+
+    private static final int BLOCK_FLOATS = 1 << 22; // 16 MB per block
+
+    private final int dimensions;
+    private final int rowsPerBlock;
+    private final DotProductKernel kernel;
+    private float[][] blocks = new float[0][];
+
+    FloatRows(int dimensions, DotProductKernel kernel) {
+        this.dimensions = dimensions;
+        this.rowsPerBlock = Math.max(1, BLOCK_FLOATS / dimensions);
+        this.kernel = kernel;
+    }
+
+    @Override
+    public void ensureRows(int rows) {
+        int needed = (rows + rowsPerBlock - 1) / rowsPerBlock;
+        if (needed > blocks.length) {
+            float[][] grown = Arrays.copyOf(blocks, needed);
+            for (int i = blocks.length; i < needed; i++) {
+                grown[i] = new float[rowsPerBlock * dimensions];
+            }
+            blocks = grown;
+        }
+    }
+
+    @Override
+    public void set(int row, float[] normalized) {
+        System.arraycopy(normalized, 0, blocks[row / rowsPerBlock], (row % rowsPerBlock) * dimensions, dimensions);
+    }
+
+    @Override
+    public Scorer prepare(float[] query) {
+        float[][] snapshot = blocks;
+        return row -> kernel.dot(snapshot[row / rowsPerBlock], (row % rowsPerBlock) * dimensions, query);
+    }
+
+    @Override
+    public boolean approximate() {
+        return false;
+    }
+
+    @Override
+    public long bytesPerRow() {
+        return (long) dimensions * Float.BYTES;
+    }
+
+    @Override
+    public String name() {
+        return Quantization.NONE.name();
+    }
+}
@@ -0,0 +1,553 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.ali.chatbotsb.utils.VectorMath;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over unit-length vectors, scored by dot product (cosine similarity).
+ * Vectors and the dense bottom layer live in memory-mapped files; the sparse upper layers are kept on the heap
+ * and written next to them on {@link #flush()}.
+ * <p>
+ * Inserts must be serialized by the caller; a {@link #bulkInsert bulk insert} parallelizes one batch internally.
+ * Searches run concurrently with both and only see nodes published through {@code size}.
+ */
+final class HnswIndex implements Closeable {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int MAX_LEVEL = 16;
+    private static final long SEGMENT_BYTES = 256L * 1024 * 1024;
+    private static final int LOCK_STRIPES = 1024;
+    private static final int BULK_SLICE = 256;
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final Path headerPath;
+    private final Path upperLayersPath;
+    private final MappedSlotFile vectors;
+    private final MappedSlotFile bottomLayer;
+    private final Map<Integer, AtomicReferenceArray<int[]>> upperLayers = new ConcurrentHashMap<>();
+    // Guard the link lists of a node while a bulk insert links several nodes at once
+    private final Object[] linkLocks = new Object[LOCK_STRIPES];
+
+    private volatile int size;
+    private volatile int entryPoint = -1;
+
+    HnswIndex(Path directory, int dimensions, int m, int efConstruction) throws IOException {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            linkLocks[i] = new Object();
+        }
+
+        Files.createDirectories(directory);
+        this.headerPath = directory.resolve("hnsw.header");
+        this.upperLayersPath = directory.resolve("hnsw.upper");
+
+        int vectorBytes = dimensions * Float.BYTES;
+        int linkBytes = (1 + maxM0) * Integer.BYTES;
+        this.vectors = new MappedSlotFile(directory.resolve("vectors.bin"), vectorBytes,
+                (int) Math.max(1, SEGMENT_BYTES / vectorBytes));
+        this.bottomLayer = new MappedSlotFile(directory.resolve("hnsw.links"), linkBytes,
+                (int) Math.max(1, SEGMENT_BYTES / linkBytes));
+
+        load();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Add a unit-length vector to the graph and return its node id
+     */
+    int insert(float[] vector) throws IOException {
+        int node = size;
+        vectors.ensureCapacity(node + 1);
+        bottomLayer.ensureCapacity(node + 1);
+        int level = randomLevel();
+        prepare(node, vector, level);
+
+        int currentEntry = entryPoint;
+        if (currentEntry < 0) {
+            size = node + 1;
+            entryPoint = node;
+            return node;
+        }
+
+        int topLevel = levelOf(currentEntry);
+        link(node, vector, level, currentEntry, node);
+
+        size = node + 1;
+        if (level > topLevel) {
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * Add a batch of unit-length vectors using every worker of the pool and return the node id of the first one;
+     * the others follow in order. The batch is split into slices that fork/join workers insert into the one graph
+     * at the same time, each node's link lists guarded by a lock stripe. Nodes only become visible to searches
+     * once the whole batch is linked.
+     */
+    int bulkInsert(List<float[]> batch, ForkJoinPool pool) throws IOException {
+        int base = size;
+        int limit = base + batch.size();
+        if (batch.isEmpty()) {
+            return base;
+        }
+        vectors.ensureCapacity(limit);
+        bottomLayer.ensureCapacity(limit);
+
+        int[] levels = new int[batch.size()];
+        pool.invoke(new BulkTask(0, batch.size(), i -> {
+            levels[i] = randomLevel();
+            prepare(base + i, batch.get(i), levels[i]);
+        }));
+
+        // The highest node goes first, so the entry point stays fixed while the rest are linked concurrently
+        int highest = 0;
+        for (int i = 1; i < levels.length; i++) {
+            if (levels[i] > levels[highest]) {
+                highest = i;
+            }
+        }
+        int currentEntry = entryPoint;
+        if (currentEntry < 0) {
+            entryPoint = base + highest;
+        } else {
+            link(base + highest, batch.get(highest), levels[highest], currentEntry, limit);
+            if (levels[highest] > levelOf(currentEntry)) {
+                entryPoint = base + highest;
+            }
+        }
+
+        int entry = entryPoint;
+        int first = highest;
+        pool.invoke(new BulkTask(0, batch.size(), i -> {
+            if (i != first) {
+                link(base + i, batch.get(i), levels[i], entry, limit);
+            }
+        }));
+
+        size = limit;
+        return base;
+    }
+
+    /**
+     * Approximate nearest neighbours of a unit-length query, best first.
+     * Only nodes accepted by the filter are returned, the others are still used to navigate the graph.
+     */
+    List<Candidate> search(float[] query, int topK, int ef, IntPredicate filter) {
+        int currentEntry = entryPoint;
+        int limit = size;
+        if (currentEntry < 0 || limit == 0) {
+            return List.of();
+        }
+
+        int nearest = currentEntry;
+        for (int layer = levelOf(currentEntry); layer > 0; layer--) {
+            nearest = greedyClosest(query, nearest, layer, limit);
+        }
+        List<Candidate> results = searchLayer(query, nearest, Math.max(ef, topK), 0, limit, filter);
+        return results.size() > topK ? results.subList(0, topK) : results;
+    }
+
+    float[] vector(int node) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = vectors.getFloat(node, i);
+        }
+        return vector;
+    }
+
+    /**
+     * Persist the mapped files and the graph header so a restart resumes from here
+     */
+    void flush() throws IOException {
+        vectors.force();
+        bottomLayer.force();
+        writeAtomically(upperLayersPath, out -> {
+            List<Map.Entry<Integer, AtomicReferenceArray<int[]>>> entries = new ArrayList<>(upperLayers.entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<Integer, AtomicReferenceArray<int[]>> entry : entries) {
+                AtomicReferenceArray<int[]> layers = entry.getValue();
+                out.writeInt(entry.getKey());
+                out.writeInt(layers.length());
+                for (int i = 0; i < layers.length(); i++) {
+                    int[] links = layers.get(i);
+                    out.writeInt(links.length);
+                    for (int link : links) {
+                        out.writeInt(link);
+                    }
+                }
+            }
+        });
+        writeAtomically(headerPath, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(dimensions);
+            out.writeInt(m);
+            out.writeInt(size);
+            out.writeInt(entryPoint);
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        vectors.close();
+        bottomLayer.close();
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(headerPath)) {
+            return;
+        }
+        int storedSize;
+        int storedEntryPoint;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(headerPath))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an HNSW index header: " + headerPath);
+            }
+            int storedDimensions = in.readInt();
+            int storedM = in.readInt();
+            if (storedDimensions != dimensions || storedM != m) {
+                throw new IOException("HNSW index was built with dimensions=" + storedDimensions + ", m=" + storedM
+                        + " but dimensions=" + dimensions + ", m=" + m + " is configured");
+            }
+            storedSize = in.readInt();
+            storedEntryPoint = in.readInt();
+        }
+        if (Files.exists(upperLayersPath)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(upperLayersPath)))) {
+                int count = in.readInt();
+                for (int n = 0; n < count; n++) {
+                    int node = in.readInt();
+                    AtomicReferenceArray<int[]> layers = new AtomicReferenceArray<>(in.readInt());
+                    for (int i = 0; i < layers.length(); i++) {
+                        int[] links = new int[in.readInt()];
+                        for (int j = 0; j < links.length; j++) {
+                            links[j] = in.readInt();
+                        }
+                        layers.set(i, links);
+                    }
+                    if (node < storedSize) {
+                        upperLayers.put(node, layers);
+                    }
+                }
+            }
+        }
+        vectors.ensureCapacity(storedSize);
+        bottomLayer.ensureCapacity(storedSize);
+        size = storedSize;
+        entryPoint = storedEntryPoint;
+    }
+
+    /**
+     * Write the vector of a new node and give it empty link lists up to its level
+     */
+    private void prepare(int node, float[] vector, int level) {
+        for (int i = 0; i < dimensions; i++) {
+            vectors.putFloat(node, i, vector[i]);
+        }
+        bottomLayer.putInt(node, 0, 0);
+        if (level > 0) {
+            AtomicReferenceArray<int[]> layers = new AtomicReferenceArray<>(level);
+            for (int i = 0; i < level; i++) {
+                layers.set(i, new int[0]);
+            }
+            upperLayers.put(node, layers);
+        }
+    }
+
+    /**
+     * Connect a prepared node to its neighbours on every layer up to its level, searching among nodes below limit
+     */
+    private void link(int node, float[] vector, int level, int entry, int limit) {
+        int topLevel = levelOf(entry);
+        int nearest = entry;
+        for (int layer = topLevel; layer > level; layer--) {
+            nearest = greedyClosest(vector, nearest, layer, limit);
+        }
+        for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+            List<Candidate> candidates = searchLayer(vector, nearest, efConstruction, layer, limit, null);
+            candidates.removeIf(candidate -> candidate.node() == node);
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            int[] neighbours = selectNeighbours(vector, candidates, m);
+            int maxLinks = layer == 0 ? maxM0 : m;
+            synchronized (lockFor(node)) {
+                // Merge rather than replace, in a bulk insert other nodes may already have linked back to this one
+                setLinks(node, layer, merge(vector, links(node, layer), neighbours, maxLinks));
+            }
+            for (int neighbour : neighbours) {
+                connect(neighbour, node, layer, maxLinks);
+            }
+            nearest = candidates.get(0).node();
+        }
+    }
+
+    private Object lockFor(int node) {
+        return linkLocks[node & (LOCK_STRIPES - 1)];
+    }
+
+    private int greedyClosest(float[] query, int start, int layer, int limit) {
+        int best = start;
+        float bestScore = vectors.dot(start, query);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : links(best, layer)) {
+                if (neighbour >= limit) {
+                    continue;
+                }
+                float score = vectors.dot(neighbour, query);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first beam search on one layer. Nodes rejected by the filter are expanded but never collected,
+     * so restrictive filters widen the search instead of returning fewer results.
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int layer, int limit, IntPredicate filter) {
+        BitSet visited = new BitSet(limit);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score).reversed());
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+
+        Candidate first = new Candidate(start, vectors.dot(start, query));
+        visited.set(start);
+        frontier.add(first);
+        if (filter == null || filter.test(start)) {
+            results.add(first);
+        }
+
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) {
+                break;
+            }
+            for (int neighbour : links(current.node(), layer)) {
+                if (neighbour >= limit || visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = vectors.dot(neighbour, query);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    frontier.add(candidate);
+                    if (filter == null || filter.test(neighbour)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return ordered;
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: keep a candidate only if it is closer to the base
+     * than to every neighbour already kept, which preserves links towards other clusters
+     */
+    private int[] selectNeighbours(float[] base, List<Candidate> candidates, int count) {
+        List<Candidate> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingDouble(Candidate::score).reversed());
+
+        List<Integer> selected = new ArrayList<>(count);
+        List<float[]> selectedVectors = new ArrayList<>(count);
+        List<Integer> pruned = new ArrayList<>();
+        for (Candidate candidate : sorted) {
+            if (selected.size() >= count) {
+                break;
+            }
+            float[] candidateVector = vector(candidate.node());
+            boolean diverse = true;
+            for (float[] kept : selectedVectors) {
+                if (VectorMath.dot(candidateVector, kept) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.node());
+                selectedVectors.add(candidateVector);
+            } else {
+                pruned.add(candidate.node());
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < count; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Union of a node's current links and its new neighbours, pruned to {@code maxLinks} with the selection heuristic
+     */
+    private int[] merge(float[] base, int[] current, int[] neighbours, int maxLinks) {
+        if (current.length == 0) {
+            return neighbours;
+        }
+        Set<Integer> union = new LinkedHashSet<>();
+        Arrays.stream(current).forEach(union::add);
+        Arrays.stream(neighbours).forEach(union::add);
+        if (union.size() <= maxLinks) {
+            return union.stream().mapToInt(Integer::intValue).toArray();
+        }
+        List<Candidate> candidates = new ArrayList<>(union.size());
+        for (int link : union) {
+            candidates.add(new Candidate(link, vectors.dot(link, base)));
+        }
+        return selectNeighbours(base, candidates, maxLinks);
+    }
+
+    private void connect(int node, int newNeighbour, int layer, int maxLinks) {
+        synchronized (lockFor(node)) {
+            int[] current = links(node, layer);
+            if (current.length < maxLinks) {
+                int[] extended = Arrays.copyOf(current, current.length + 1);
+                extended[current.length] = newNeighbour;
+                setLinks(node, layer, extended);
+                return;
+            }
+
+            float[] base = vector(node);
+            List<Candidate> candidates = new ArrayList<>(current.length + 1);
+            for (int link : current) {
+                candidates.add(new Candidate(link, vectors.dot(link, base)));
+            }
+            candidates.add(new Candidate(newNeighbour, vectors.dot(newNeighbour, base)));
+            setLinks(node, layer, selectNeighbours(base, candidates, maxLinks));
+        }
+    }
+
+    private int[] links(int node, int layer) {
+        if (layer == 0) {
+            int count = Math.min(bottomLayer.getInt(node, 0), maxM0);
+            int[] links = new int[count];
+            for (int i = 0; i < count; i++) {
+                links[i] = bottomLayer.getInt(node, i + 1);
+            }
+            return links;
+        }
+        AtomicReferenceArray<int[]> layers = upperLayers.get(node);
+        return layers != null && layer <= layers.length() ? layers.get(layer - 1) : new int[0];
+    }
+
+    private void setLinks(int node, int layer, int[] links) {
+        if (layer == 0) {
+            // Links first, count last, so readers never see a count covering unwritten slots of a new node
+            for (int i = 0; i < links.length; i++) {
+                bottomLayer.putInt(node, i + 1, links[i]);
+            }
+            bottomLayer.putInt(node, 0, links.length);
+            return;
+        }
+        upperLayers.get(node).set(layer - 1, links);
+    }
+
+    private int levelOf(int node) {
+        AtomicReferenceArray<int[]> layers = upperLayers.get(node);
+        return layers != null ? layers.length() : 0;
+    }
+
+    private int randomLevel() {
+        double uniform = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return Math.min(MAX_LEVEL, (int) Math.floor(-Math.log(uniform) * levelMultiplier));
+    }
+
+    private static void writeAtomically(Path target, StreamWriter writer) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            writer.write(out);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @FunctionalInterface
+    private interface StreamWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Applies an action to every index of a range, split in halves until slices are small enough
+     */
+    private static final class BulkTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        private BulkTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BULK_SLICE) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BulkTask(from, middle, action), new BulkTask(middle, to, action));
+        }
+    }
+
+    record Candidate(int node, float score) {
+    }
+}
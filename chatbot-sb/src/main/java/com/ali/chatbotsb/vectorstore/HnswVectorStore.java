@@ -0,0 +1,354 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.ali.chatbotsb.utils.VectorMath;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * {@link org.springframework.ai.vectorstore.VectorStore} backed by an in-process HNSW graph persisted to
+ * memory-mapped files, so retrieval needs no network round trip and a restart only maps the files back in.
+ * Writes are serialized; searches never block on them. Batches of at least {@code bulkBuildThreshold} documents,
+ * such as a replica bootstrap or a re-ingest after an embedding model change, are linked into the graph on all
+ * cores. Deleted documents stay in the graph as navigation-only nodes until the data directory is rebuilt.
+ */
+@Slf4j
+public class HnswVectorStore extends AbstractObservationVectorStore implements LocalVectorStore, AutoCloseable {
+
+    public static final String DB_SYSTEM = "hnsw";
+
+    private final Path dataDirectory;
+    private final int efSearch;
+    private final int bulkBuildThreshold;
+    private final ForkJoinPool buildPool;
+    private final HnswIndex index;
+    private final DocumentLog documentLog;
+
+    private final Map<Integer, DocumentLog.StoredDocument> documents;
+    private final Map<String, Integer> nodesById = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    protected HnswVectorStore(Builder builder) {
+        super(builder);
+        this.dataDirectory = builder.dataDirectory;
+        this.efSearch = builder.efSearch;
+        this.bulkBuildThreshold = builder.bulkBuildThreshold;
+        this.buildPool = builder.buildParallelism > 0 ? new ForkJoinPool(builder.buildParallelism)
+                : ForkJoinPool.commonPool();
+        try {
+            this.index = new HnswIndex(builder.dataDirectory, builder.dimensions, builder.m, builder.efConstruction);
+            this.documentLog = new DocumentLog(builder.dataDirectory.resolve("documents.log"), builder.objectMapper);
+            this.documents = new ConcurrentHashMap<>(documentLog.replay(index.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open HNSW vector store in " + builder.dataDirectory, e);
+        }
+        documents.forEach((node, document) -> nodesById.put(document.id(), node));
+        log.info("📂 HNSW vector store opened at {} with {} documents ({} graph nodes)",
+                dataDirectory, documents.size(), index.size());
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void doAdd(List<Document> documentsToAdd) {
+        addEmbedded(documentsToAdd, embeddingModel.embed(documentsToAdd, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy));
+    }
+
+    @Override
+    public void addEmbedded(List<Document> documentsToAdd, List<float[]> embeddings) {
+        for (float[] embedding : embeddings) {
+            if (embedding.length != index.dimensions()) {
+                throw new IllegalArgumentException("Embedding has " + embedding.length
+                        + " dimensions but the HNSW store was created with " + index.dimensions());
+            }
+        }
+        if (documentsToAdd.size() >= bulkBuildThreshold) {
+            bulkAdd(documentsToAdd, embeddings);
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            for (int i = 0; i < documentsToAdd.size(); i++) {
+                // Re-adding an id replaces the previous version
+                Document document = documentsToAdd.get(i);
+                removeLocked(document.getId());
+                storeLocked(index.insert(VectorMath.normalize(embeddings.get(i))), document);
+            }
+            persistLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write HNSW vector store", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Link a large batch into the graph on all cores of the build pool, then record its documents in batch order
+     * so a later duplicate id still replaces an earlier one
+     */
+    private void bulkAdd(List<Document> documentsToAdd, List<float[]> embeddings) {
+        writeLock.lock();
+        try {
+            long start = System.nanoTime();
+            List<float[]> normalized = buildPool.submit(() -> embeddings.parallelStream()
+                    .map(VectorMath::normalize)
+                    .toList()).join();
+            int first = index.bulkInsert(normalized, buildPool);
+            for (int i = 0; i < documentsToAdd.size(); i++) {
+                Document document = documentsToAdd.get(i);
+                removeLocked(document.getId());
+                storeLocked(first + i, document);
+            }
+            persistLocked();
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("⚡ Bulk-linked {} vectors on {} threads in {} s ({} vectors/s)", documentsToAdd.size(),
+                    buildPool.getParallelism(), String.format("%.1f", seconds),
+                    Math.round(documentsToAdd.size() / seconds));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write HNSW vector store", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Graph slots are never rewritten, so the live documents are exported from a copy of the slot map while
+     * writes go on
+     */
+    @Override
+    public long exportEmbedded(int batchSize, Consumer<Batch> consumer) {
+        List<Map.Entry<Integer, DocumentLog.StoredDocument>> live = new ArrayList<>(documents.entrySet());
+        live.sort(Map.Entry.comparingByKey());
+        for (int from = 0; from < live.size(); from += batchSize) {
+            List<Map.Entry<Integer, DocumentLog.StoredDocument>> slice =
+                    live.subList(from, Math.min(live.size(), from + batchSize));
+            consumer.accept(new Batch(
+                    slice.stream().map(entry -> toDocument(entry.getValue())).toList(),
+                    slice.stream().map(entry -> index.vector(entry.getKey())).toList()));
+        }
+        return live.size();
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        writeLock.lock();
+        try {
+            for (String id : idList) {
+                removeLocked(id);
+            }
+            persistLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write HNSW vector store", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    protected void doDelete(Filter.Expression filterExpression) {
+        List<String> matching = documents.values().stream()
+                .filter(document -> FilterExpressionEvaluator.matches(filterExpression, document.metadata()))
+                .map(DocumentLog.StoredDocument::id)
+                .toList();
+        doDelete(matching);
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        return searchEmbedded(request, embeddingModel.embed(request.getQuery()));
+    }
+
+    @Override
+    public List<Document> searchEmbedded(SearchRequest request, float[] embedding) {
+        float[] query = VectorMath.normalize(embedding);
+        Filter.Expression filter = request.hasFilterExpression() ? request.getFilterExpression() : null;
+
+        List<HnswIndex.Candidate> candidates = index.search(query, request.getTopK(),
+                Math.max(efSearch, request.getTopK()), node -> {
+                    DocumentLog.StoredDocument document = documents.get(node);
+                    return document != null && FilterExpressionEvaluator.matches(filter, document.metadata());
+                });
+
+        List<Document> results = new ArrayList<>(candidates.size());
+        for (HnswIndex.Candidate candidate : candidates) {
+            DocumentLog.StoredDocument document = documents.get(candidate.node());
+            if (document == null || candidate.score() < request.getSimilarityThreshold()) {
+                continue;
+            }
+            Map<String, Object> metadata = new HashMap<>(document.metadata());
+            metadata.put(DocumentMetadata.DISTANCE.value(), 1.0f - candidate.score());
+            results.add(Document.builder()
+                    .id(document.id())
+                    .text(document.text())
+                    .metadata(metadata)
+                    .score((double) candidate.score())
+                    .build());
+        }
+        return results;
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder(DB_SYSTEM, operationName)
+                .collectionName(dataDirectory.toString())
+                .dimensions(index.dimensions())
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> getNativeClient() {
+        return Optional.of((T) index);
+    }
+
+    @Override
+    public int size() {
+        return documents.size();
+    }
+
+    @Override
+    public Set<String> ids() {
+        return Set.copyOf(nodesById.keySet());
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            documentLog.close();
+            index.close();
+            if (buildPool != ForkJoinPool.commonPool()) {
+                buildPool.shutdown();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Document toDocument(DocumentLog.StoredDocument document) {
+        return Document.builder()
+                .id(document.id())
+                .text(document.text() != null ? document.text() : "")
+                .metadata(new HashMap<>(document.metadata()))
+                .build();
+    }
+
+    private void storeLocked(int node, Document document) throws IOException {
+        DocumentLog.StoredDocument stored = new DocumentLog.StoredDocument(document.getId(), document.getText(),
+                new HashMap<>(document.getMetadata()));
+        documentLog.appendAdd(node, stored);
+        documents.put(node, stored);
+        nodesById.put(document.getId(), node);
+    }
+
+    private void removeLocked(String id) throws IOException {
+        Integer node = nodesById.remove(id);
+        if (node != null) {
+            documents.remove(node);
+            documentLog.appendDelete(node);
+        }
+    }
+
+    /**
+     * The log is synced before the index header, so the header never points at slots without documents
+     */
+    private void persistLocked() throws IOException {
+        documentLog.sync();
+        index.flush();
+    }
+
+    public static class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+        private Path dataDirectory = Path.of("data", "hnsw");
+        private int dimensions = 1024;
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+        private int buildParallelism = 0;
+        private int bulkBuildThreshold = 2_048;
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        public Builder dataDirectory(Path dataDirectory) {
+            this.dataDirectory = dataDirectory;
+            return this;
+        }
+
+        public Builder dimensions(int dimensions) {
+            this.dimensions = dimensions;
+            return this;
+        }
+
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        public Builder efSearch(int efSearch) {
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        /**
+         * Threads linking bulk batches, 0 shares the common fork/join pool
+         */
+        public Builder buildParallelism(int buildParallelism) {
+            this.buildParallelism = buildParallelism;
+            return this;
+        }
+
+        /**
+         * Smallest batch linked on all cores, smaller batches are inserted one by one
+         */
+        public Builder bulkBuildThreshold(int bulkBuildThreshold) {
+            this.bulkBuildThreshold = bulkBuildThreshold;
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        @Override
+        public HnswVectorStore build() {
+            return new HnswVectorStore(this);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.ali.chatbotsb.utils.CountMinSketch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Text and metadata of the chunks retrieved most often, kept in memory up to a byte budget. Every retrieved
+ * chunk is counted in a {@link CountMinSketch}; a chunk is pinned once it has been retrieved
+ * {@code minFrequency} times and, when the budget is full, only if it is retrieved more often than the
+ * coldest pinned chunk, which it then replaces. One-off hits therefore never push out the common conditions
+ * and dosage tables that most answers need.
+ */
+public class HotChunkCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    /**
+     * A pinned chunk
+     */
+    public record CachedChunk(String id, String text, Map<String, Object> metadata, long bytes) {
+    }
+
+    /**
+     * A pinned chunk with its current frequency estimate
+     */
+    public record HotChunk(String id, Object source, int frequency, long bytes) {
+    }
+
+    private final long maxBytes;
+    private final int minFrequency;
+    private final CountMinSketch sketch;
+    private final Map<String, CachedChunk> pinned = new ConcurrentHashMap<>();
+    private final AtomicLong pinnedBytes = new AtomicLong();
+    private final Object admissionMonitor = new Object();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public HotChunkCache(long maxBytes, int minFrequency, int sketchWidth, long resetAfter, MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        this.minFrequency = minFrequency;
+        this.sketch = new CountMinSketch(sketchWidth, resetAfter);
+        this.hits = Counter.builder("retrieval.hot.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("retrieval.hot.lookups").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("retrieval.hot.chunks", pinned, Map::size)
+                .description("Chunks pinned in the hot-chunk cache")
+                .register(meterRegistry);
+        Gauge.builder("retrieval.hot.bytes", pinnedBytes, AtomicLong::get)
+                .description("Estimated memory held by the hot-chunk cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count retrieved chunks and pin those that have become hot
+     */
+    public void recordAccess(List<Document> documents) {
+        for (Document document : documents) {
+            int frequency = sketch.increment(document.getId());
+            if (frequency >= minFrequency && !pinned.containsKey(document.getId())) {
+                admit(document, frequency);
+            }
+        }
+    }
+
+    /**
+     * The pinned chunk with this id, counted as a hit or miss
+     */
+    public Optional<CachedChunk> get(String id) {
+        CachedChunk chunk = pinned.get(id);
+        (chunk != null ? hits : misses).increment();
+        return Optional.ofNullable(chunk);
+    }
+
+    /**
+     * Whether the chunk is pinned, without counting a lookup
+     */
+    public boolean contains(String id) {
+        return pinned.containsKey(id);
+    }
+
+    /**
+     * Forget chunks that were rewritten or deleted
+     */
+    public void invalidate(Collection<String> ids) {
+        synchronized (admissionMonitor) {
+            ids.forEach(this::unpin);
+        }
+    }
+
+    public void clear() {
+        synchronized (admissionMonitor) {
+            pinned.clear();
+            pinnedBytes.set(0);
+        }
+    }
+
+    public long hits() {
+        return (long) hits.count();
+    }
+
+    public long misses() {
+        return (long) misses.count();
+    }
+
+    public int size() {
+        return pinned.size();
+    }
+
+    public long bytes() {
+        return pinnedBytes.get();
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * The {@code limit} hottest pinned chunks, hottest first
+     */
+    public List<HotChunk> hottest(int limit) {
+        return pinned.values().stream()
+                .map(chunk -> new HotChunk(chunk.id(), chunk.metadata().get("source"), sketch.estimate(chunk.id()),
+                        chunk.bytes()))
+                .sorted(Comparator.comparingInt(HotChunk::frequency).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private void admit(Document document, int frequency) {
+        String text = document.getText() != null ? document.getText() : "";
+        CachedChunk chunk = new CachedChunk(document.getId(), text, Map.copyOf(withoutNulls(document.getMetadata())),
+                estimateBytes(text, document.getMetadata()));
+        if (chunk.bytes() > maxBytes) {
+            return;
+        }
+
+        synchronized (admissionMonitor) {
+            if (pinned.containsKey(chunk.id())) {
+                return;
+            }
+            long excess = pinnedBytes.get() + chunk.bytes() - maxBytes;
+            if (excess > 0) {
+                // Pick every victim before unpinning any, so a chunk that cannot get in evicts nothing
+                List<CachedChunk> victims = new ArrayList<>();
+                for (CachedChunk victim : coldestFirst()) {
+                    if (excess <= 0) {
+                        break;
+                    }
+                    if (sketch.estimate(victim.id()) >= frequency) {
+                        return; // Not hotter than what it would replace
+                    }
+                    victims.add(victim);
+                    excess -= victim.bytes();
+                }
+                if (excess > 0) {
+                    return;
+                }
+                victims.forEach(victim -> unpin(victim.id()));
+            }
+            pinned.put(chunk.id(), chunk);
+            pinnedBytes.addAndGet(chunk.bytes());
+        }
+    }
+
+    private List<CachedChunk> coldestFirst() {
+        Map<String, Integer> frequencies = new HashMap<>();
+        pinned.values().forEach(chunk -> frequencies.put(chunk.id(), sketch.estimate(chunk.id())));
+        return pinned.values().stream()
+                .sorted(Comparator.comparingInt(chunk -> frequencies.getOrDefault(chunk.id(), 0)))
+                .toList();
+    }
+
+    private void unpin(String id) {
+        CachedChunk removed = pinned.remove(id);
+        if (removed != null) {
+            pinnedBytes.addAndGet(-removed.bytes());
+        }
+    }
+
+    private static Map<String, Object> withoutNulls(Map<String, Object> metadata) {
+        Map<String, Object> copy = new HashMap<>(metadata);
+        copy.values().removeIf(Objects::isNull);
+        return copy;
+    }
+
+    /**
+     * Rough heap size: two bytes per character plus fixed object overhead
+     */
+    private static long estimateBytes(String text, Map<String, Object> metadata) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * text.length();
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            bytes += ENTRY_OVERHEAD_BYTES + 2L * entry.getKey().length() + 2L * String.valueOf(entry.getValue()).length();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,174 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Struct;
+import com.google.protobuf.util.JsonFormat;
+import io.pinecone.clients.Index;
+import io.pinecone.unsigned_indices_model.ScoredVectorWithUnsignedIndices;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Pinecone searches that leave the chunk text of hot chunks out of the response. A search normally asks Pinecone
+ * for metadata too, one round trip like the plain store. Only while recent searches matched nothing but chunks
+ * pinned in the {@link HotChunkCache} does it ask for ids and scores alone and fill the text in from memory; a
+ * cold match then costs a fetch by id, so a falling share of fully hot searches switches back. Writes go to
+ * Pinecone unchanged and evict the written chunks from the cache.
+ */
+@Slf4j
+public class HotChunkVectorStore implements EmbeddedVectorStore, AutoCloseable {
+
+    private static final double HYDRATE_ABOVE = 0.9; // Share of fully hot searches that makes ids-only queries pay
+    private static final double HOT_RATE_WEIGHT = 0.05; // Weight of the latest search in the moving average
+
+    private final PineconeVectorStore pineconeVectorStore;
+    private final Index index;
+    private final PineconeExporter exporter;
+    private final EmbeddingModel embeddingModel;
+    private final HotChunkCache cache;
+    private final String namespace;
+    private final String distanceFieldName;
+
+    private volatile double hotRate; // Moving average of searches whose matches were all pinned, races only blur it
+
+    public HotChunkVectorStore(PineconeVectorStore pineconeVectorStore, Index index, PineconeExporter exporter,
+                               EmbeddingModel embeddingModel, HotChunkCache cache, String namespace,
+                               String distanceFieldName) {
+        this.pineconeVectorStore = pineconeVectorStore;
+        this.index = index;
+        this.exporter = exporter;
+        this.embeddingModel = embeddingModel;
+        this.cache = cache;
+        this.namespace = namespace;
+        this.distanceFieldName = distanceFieldName;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        pineconeVectorStore.add(documents);
+        cache.invalidate(documents.stream().map(Document::getId).toList());
+    }
+
+    @Override
+    public void addEmbedded(List<Document> documents, List<float[]> embeddings) {
+        exporter.upsert(documents, embeddings);
+        cache.invalidate(documents.stream().map(Document::getId).toList());
+    }
+
+    @Override
+    public long exportEmbedded(int batchSize, Consumer<Batch> consumer) {
+        return exporter.export(batchSize, page -> consumer.accept(new Batch(page.documents(), page.embeddings())));
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        pineconeVectorStore.delete(idList);
+        cache.invalidate(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        pineconeVectorStore.delete(filterExpression);
+        cache.clear();
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        List<Float> vector = new ArrayList<>();
+        for (float value : embeddingModel.embed(request.getQuery())) {
+            vector.add(value);
+        }
+        Struct filter = filter(request.getFilterExpression());
+        if (hotRate < HYDRATE_ABOVE) {
+            List<ScoredVectorWithUnsignedIndices> matches = query(request, vector, filter, true);
+            observe(matches.stream().allMatch(match -> cache.contains(match.getId())));
+            return matches.stream()
+                    .map(match -> scored(exporter.document(match.getId(), match.getMetadata()), match))
+                    .toList();
+        }
+
+        List<ScoredVectorWithUnsignedIndices> matches = query(request, vector, filter, false);
+        Map<String, HotChunkCache.CachedChunk> hot = new HashMap<>();
+        List<String> cold = new ArrayList<>();
+        for (ScoredVectorWithUnsignedIndices match : matches) {
+            Optional<HotChunkCache.CachedChunk> chunk = cache.get(match.getId());
+            if (chunk.isPresent()) {
+                hot.put(match.getId(), chunk.get());
+            } else {
+                cold.add(match.getId());
+            }
+        }
+        observe(cold.isEmpty());
+
+        Map<String, Document> fetched = new HashMap<>();
+        if (!cold.isEmpty()) {
+            exporter.fetch(cold).documents().forEach(document -> fetched.put(document.getId(), document));
+        }
+
+        List<Document> results = new ArrayList<>(matches.size());
+        for (ScoredVectorWithUnsignedIndices match : matches) {
+            HotChunkCache.CachedChunk chunk = hot.get(match.getId());
+            Document document = chunk != null
+                    ? Document.builder().id(chunk.id()).text(chunk.text()).metadata(new HashMap<>(chunk.metadata())).build()
+                    : fetched.get(match.getId());
+            if (document == null) {
+                continue; // Deleted between query and fetch
+            }
+            results.add(scored(document, match));
+        }
+        log.debug("🔥 Hydrated {} of {} matches from the hot-chunk cache", hot.size(), matches.size());
+        return results;
+    }
+
+    @Override
+    public void close() {
+        exporter.close();
+    }
+
+    private List<ScoredVectorWithUnsignedIndices> query(SearchRequest request, List<Float> vector, Struct filter,
+                                                        boolean includeMetadata) {
+        return index.queryByVector(request.getTopK(), vector, namespace, filter, false, includeMetadata)
+                .getMatchesList().stream()
+                .filter(match -> match.getScore() >= request.getSimilarityThreshold())
+                .toList();
+    }
+
+    private void observe(boolean allHot) {
+        hotRate += HOT_RATE_WEIGHT * ((allHot ? 1.0 : 0.0) - hotRate);
+    }
+
+    private Document scored(Document document, ScoredVectorWithUnsignedIndices match) {
+        return document.mutate()
+                .metadata(distanceFieldName, 1 - match.getScore())
+                .score((double) match.getScore())
+                .build();
+    }
+
+    private Struct filter(Filter.Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        String json = pineconeVectorStore.filterExpressionConverter.convertExpression(expression);
+        if (json.isBlank()) {
+            return null;
+        }
+        try {
+            Struct.Builder filter = Struct.newBuilder();
+            JsonFormat.parser().merge(json, filter);
+            return filter.build();
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Invalid Pinecone filter " + json, e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ali.chatbotsb.vectorstore;
+
+import java.util.Arrays;
+
+/**
+ * Scalar quantization: each row is scaled by its largest absolute component to [-127, 127] and stored as
+ * bytes with that scale. Queries stay in full precision, so only the stored side carries rounding error.
+ */
+final class Int8Rows implements EncodedRows {
+
+    private static final int BLOCK_BYTES = 1 << 24; // 16 MB per block
+
+    private final int dimensions;
+    private final int rowsPerBlock;
+    private final DotProductKernel kernel;
+    private byte[][] blocks = new byte[0][];
+    private float[] scales = new float[0];
+
+    Int8Rows(int dimensions, DotProductKernel kernel) {
+        this.dimensions = dimensions;
+        this.rowsPerBlock = Math.max(1, BLOCK_BYTES / dimensions);
+        this.kernel = kernel;
+    }
+
+    @Override
+    public void ensureRows(int rows) {
+        int needed = (rows + rowsPerBlock - 1) / rowsPerBlock;
+        if (needed > blocks.length) {
+            byte[][] grown = Arrays.copyOf(blocks, needed);
+            for (int i = blocks.length; i < needed; i++) {
+                grown[i] = new byte[rowsPerBlock * dimensions];
+            }
+            blocks = grown;
+        }
+        if (rows > scales.length) {
+            scales = Arrays.copyOf(scales, Math.max(rows, scales.length * 2));
+        }
+    }
+
+    @Override
+    public void set(int row, float[] normalized) {
+        float max = 0f;
+        for (float value : normalized) {
+            max = Math.max(max, Math.abs(value));
+        }
+        float scale = max == 0f ? 0f : max / 127f;
+        byte[] block = blocks[row / rowsPerBlock];
+        int offset = (row % rowsPerBlock) * dimensions;
+        for (int i = 0; i < dimensions; i++) {
+            block[offset + i] = scale == 0f ? 0 : (byte) Math.round(normalized[i] / scale);
+        }
+        scales[row] = scale;
+    }
+
+    @Override
+    public Scorer prepare(float[] query) {
+        byte[][] snapshot = blocks;
+        float[] rowScales = scales;
+        return row -> rowScales[row] * kernel.dot(snapshot[row / rowsPerBlock], (row % rowsPerBlock) * dimensions, query);
+    }
+
+    @Override
+    public boolean approximate() {
+        return true;
+    }
+
+    @Override
+    public long bytesPerRow() {
+        return dimensions + Float.BYTES;
+    }
+
+    @Override
+    public String name() {
+        return Quantization.INT8.name();
+    }
+}
@@ -0,0 +1,87 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Translates a portable filter expression into a PostgreSQL jsonpath predicate for {@code metadata @@ ?::jsonpath},
+ * which a {@code jsonb_path_ops} GIN index can serve. The predicate is bound as a parameter, never spliced into
+ * SQL. Paths are lax, so a list-valued metadata field matches when any element matches, like
+ * {@link FilterExpressionEvaluator}.
+ */
+final class JsonPathFilterConverter {
+
+    private final ObjectMapper objectMapper;
+
+    JsonPathFilterConverter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    String convert(Filter.Expression expression) {
+        return switch (expression.type()) {
+            case AND -> group(expression.left()) + " && " + group(expression.right());
+            case OR -> group(expression.left()) + " || " + group(expression.right());
+            case NOT -> "!" + group(expression.left());
+            case EQ -> comparison(expression, "==");
+            // Negated equality, so documents without the key match as they do in process
+            case NE -> "!(" + comparison(expression, "==") + ")";
+            case GT -> comparison(expression, ">");
+            case GTE -> comparison(expression, ">=");
+            case LT -> comparison(expression, "<");
+            case LTE -> comparison(expression, "<=");
+            case IN -> "(" + anyOf(expression) + ")";
+            case NIN -> "!(" + anyOf(expression) + ")";
+        };
+    }
+
+    private String group(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return "(" + convert(group.content()) + ")";
+        }
+        return "(" + convert((Filter.Expression) operand) + ")";
+    }
+
+    private String comparison(Filter.Expression expression, String operator) {
+        return path(expression) + " " + operator + " " + literal(((Filter.Value) expression.right()).value());
+    }
+
+    private String anyOf(Filter.Expression expression) {
+        Object value = ((Filter.Value) expression.right()).value();
+        List<?> values = value instanceof List<?> list ? list : List.of(value);
+        if (values.isEmpty()) {
+            return "false";
+        }
+        String path = path(expression);
+        return values.stream()
+                .map(element -> path + " == " + literal(element))
+                .collect(Collectors.joining(" || "));
+    }
+
+    private String path(Filter.Expression expression) {
+        String key = ((Filter.Key) expression.left()).key();
+        // Keys may arrive quoted from the text filter syntax
+        if (key.length() > 1 && (key.startsWith("\"") && key.endsWith("\"") || key.startsWith("'") && key.endsWith("'"))) {
+            key = key.substring(1, key.length() - 1);
+        }
+        return "$." + quote(key);
+    }
+
+    private String literal(Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return quote(String.valueOf(value));
+    }
+
+    private String quote(String value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot quote filter value " + value, e);
+        }
+    }
+}
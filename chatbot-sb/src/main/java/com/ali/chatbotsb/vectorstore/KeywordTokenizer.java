@@ -0,0 +1,53 @@
+package com.ali.chatbotsb.vectorstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into lowercase keyword terms. Tokens joined by dots, hyphens or slashes are kept whole so
+ * ICD codes ({@code e11.9}), dosages ({@code 500mg}, {@code 5/325}) and compound drug names survive;
+ * their parts are emitted as well. No stemming, drug names must match literally.
+ */
+final class KeywordTokenizer {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+(?:[./\\-][\\p{L}\\p{N}]+)*");
+    private static final Pattern PART = Pattern.compile("[./\\-]");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "does", "for", "from", "has", "have",
+            "how", "i", "if", "in", "into", "is", "it", "its", "me", "my", "of", "on", "or", "should", "that",
+            "the", "their", "there", "these", "this", "to", "was", "what", "when", "which", "who", "why", "will",
+            "with", "you", "your");
+
+    private KeywordTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String token = matcher.group();
+            addTerm(terms, token);
+            if (PART.matcher(token).find()) {
+                for (String part : PART.split(token)) {
+                    addTerm(terms, part);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String term) {
+        // Single letters carry no signal, single digits do (e.g. "type 2")
+        if ((term.length() > 1 || Character.isDigit(term.charAt(0))) && !STOP_WORDS.contains(term)) {
+            terms.add(term);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ali.chatbotsb.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A vector store kept on this node that can take vectors computed elsewhere, so it can be filled from an export
+ * of another store without embedding every chunk again
+ */
+public interface LocalVectorStore extends EmbeddedVectorStore {
+
+    /**
+     * Similarity search with an already embedded query, {@link SearchRequest#getQuery()} is not embedded again
+     */
+    List<Document> searchEmbedded(SearchRequest request, float[] embedding);
+
+    /**
+     * Ids of all live documents
+     */
+    Set<String> ids();
+
+    /**
+     * Number of live documents
+     */
+    int size();
+}
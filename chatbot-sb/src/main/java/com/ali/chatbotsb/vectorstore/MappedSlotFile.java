@@ -0,0 +1,99 @@
+package com.ali.chatbotsb.vectorstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * File of fixed-size slots mapped into memory in equally sized segments, so it can grow past the 2 GB
+ * limit of a single mapping without remapping what is already there. Only absolute reads and writes are
+ * used, which lets searches read slots while the single writer fills new ones.
+ */
+final class MappedSlotFile implements Closeable {
+
+    private final FileChannel channel;
+    private final int slotBytes;
+    private final int slotsPerSegment;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    MappedSlotFile(Path path, int slotBytes, int slotsPerSegment) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.slotBytes = slotBytes;
+        this.slotsPerSegment = slotsPerSegment;
+
+        long existingSlots = channel.size() / slotBytes;
+        ensureCapacity((int) Math.min(Integer.MAX_VALUE, existingSlots));
+    }
+
+    /**
+     * Map enough segments to address the given number of slots
+     */
+    void ensureCapacity(int slots) throws IOException {
+        MappedByteBuffer[] current = segments;
+        int needed = (slots + slotsPerSegment - 1) / slotsPerSegment;
+        if (needed <= current.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(current, needed);
+        long segmentBytes = (long) slotBytes * slotsPerSegment;
+        for (int i = current.length; i < needed; i++) {
+            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * segmentBytes, segmentBytes);
+            grown[i].order(ByteOrder.nativeOrder());
+        }
+        segments = grown;
+    }
+
+    float getFloat(int slot, int index) {
+        return segment(slot).getFloat(offset(slot) + index * Float.BYTES);
+    }
+
+    void putFloat(int slot, int index, float value) {
+        segment(slot).putFloat(offset(slot) + index * Float.BYTES, value);
+    }
+
+    int getInt(int slot, int index) {
+        return segment(slot).getInt(offset(slot) + index * Integer.BYTES);
+    }
+
+    void putInt(int slot, int index, int value) {
+        segment(slot).putInt(offset(slot) + index * Integer.BYTES, value);
+    }
+
+    /**
+     * Dot product of a slot holding floats with the given vector, read straight from the mapping
+     */
+    float dot(int slot, float[] vector) {
+        MappedByteBuffer segment = segment(slot);
+        int base = offset(slot);
+        float sum = 0f;
+        for (int i = 0; i < vector.length; i++) {
+            sum += segment.getFloat(base + i * Float.BYTES) * vector[i];
+        }
+        return sum;
+    }
+
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(int slot) {
+        return segments[slot / slotsPerSegment];
+    }
+
+    private int offset(int slot) {
+        return (slot % slotsPerSegment) * slotBytes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ali.chatbotsb.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A Pinecone namespace that also takes and hands out precomputed vectors. Everything else is delegated to the
+ * {@link PineconeVectorStore} of the same namespace.
+ */
+public class PineconeEmbeddedVectorStore implements EmbeddedVectorStore, AutoCloseable {
+
+    private final PineconeVectorStore pineconeVectorStore;
+    private final PineconeExporter exporter;
+
+    public PineconeEmbeddedVectorStore(PineconeVectorStore pineconeVectorStore, PineconeExporter exporter) {
+        this.pineconeVectorStore = pineconeVectorStore;
+        this.exporter = exporter;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        pineconeVectorStore.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        pineconeVectorStore.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        pineconeVectorStore.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return pineconeVectorStore.similaritySearch(request);
+    }
+
+    @Override
+    public void addEmbedded(List<Document> documents, List<float[]> embeddings) {
+        exporter.upsert(documents, embeddings);
+    }
+
+    @Override
+    public long exportEmbedded(int batchSize, Consumer<Batch> consumer) {
+        return exporter.export(batchSize, page -> consumer.accept(new Batch(page.documents(), page.embeddings())));
+    }
+
+    @Override
+    public void close() {
+        exporter.close();
+    }
+}
@@ -0,0 +1,170 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Struct;
+import com.google.protobuf.util.JsonFormat;
+import io.pinecone.clients.Index;
+import io.pinecone.commons.IndexInterface;
+import io.pinecone.proto.ListItem;
+import io.pinecone.proto.ListResponse;
+import io.pinecone.proto.NamespaceSummary;
+import io.pinecone.proto.Vector;
+import io.pinecone.unsigned_indices_model.VectorWithUnsignedIndices;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads documents and their stored vectors back out of one namespace of a Pinecone index, in the layout
+ * written by {@code PineconeVectorStore} (chunk text in the content metadata field, the rest as metadata), and
+ * writes them back in the same layout. Vectors are copied as they are, so nothing is embedded again.
+ */
+public class PineconeExporter implements AutoCloseable {
+
+    private static final int UPSERT_BATCH = 100; // Keeps requests of 1024-dimension vectors under Pinecone's 2 MB limit
+
+    private final Index index;
+    private final String namespace;
+    private final String contentFieldName;
+    private final ObjectMapper objectMapper;
+
+    public PineconeExporter(Index index, String namespace, String contentFieldName, ObjectMapper objectMapper) {
+        this.index = index;
+        this.namespace = namespace;
+        this.contentFieldName = contentFieldName;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * A page of documents with the matching vectors
+     */
+    public record Page(List<Document> documents, List<float[]> embeddings) {
+    }
+
+    /**
+     * Walk the whole namespace, {@code pageSize} vectors at a time
+     *
+     * @return number of exported documents
+     */
+    public long export(int pageSize, Consumer<Page> consumer) {
+        long exported = 0;
+        String paginationToken = null;
+        do {
+            ListResponse response = paginationToken == null
+                    ? index.list(namespace, pageSize)
+                    : index.list(namespace, pageSize, paginationToken);
+            List<String> ids = response.getVectorsList().stream().map(ListItem::getId).toList();
+            if (!ids.isEmpty()) {
+                Page page = fetch(ids);
+                consumer.accept(page);
+                exported += page.documents().size();
+            }
+            paginationToken = response.hasPagination() && !response.getPagination().getNext().isEmpty()
+                    ? response.getPagination().getNext()
+                    : null;
+        } while (paginationToken != null);
+        return exported;
+    }
+
+    /**
+     * Fetch the given ids, ids Pinecone does not (yet) return are left out
+     */
+    public Page fetch(List<String> ids) {
+        Map<String, Vector> vectors = index.fetch(ids, namespace).getVectorsMap();
+        List<Document> documents = new ArrayList<>(vectors.size());
+        List<float[]> embeddings = new ArrayList<>(vectors.size());
+        for (String id : ids) {
+            Vector vector = vectors.get(id);
+            if (vector == null) {
+                continue;
+            }
+            documents.add(document(id, vector.getMetadata()));
+
+            float[] embedding = new float[vector.getValuesCount()];
+            for (int i = 0; i < embedding.length; i++) {
+                embedding[i] = vector.getValues(i);
+            }
+            embeddings.add(embedding);
+        }
+        return new Page(documents, embeddings);
+    }
+
+    /**
+     * The document stored under this id, its text taken from the content field of the metadata
+     */
+    public Document document(String id, Struct struct) {
+        Map<String, Object> metadata = new HashMap<>(metadata(struct));
+        Object content = metadata.remove(contentFieldName);
+        return Document.builder()
+                .id(id)
+                .text(content != null ? content.toString() : "")
+                .metadata(metadata)
+                .build();
+    }
+
+    /**
+     * Write documents with their vectors, replacing vectors with the same id
+     */
+    public void upsert(List<Document> documents, List<float[]> embeddings) {
+        for (int from = 0; from < documents.size(); from += UPSERT_BATCH) {
+            List<VectorWithUnsignedIndices> vectors = new ArrayList<>(UPSERT_BATCH);
+            for (int i = from; i < Math.min(documents.size(), from + UPSERT_BATCH); i++) {
+                Document document = documents.get(i);
+                Map<String, Object> metadata = new LinkedHashMap<>(document.getMetadata());
+                metadata.put(contentFieldName, document.getText());
+                List<Float> values = new ArrayList<>(embeddings.get(i).length);
+                for (float value : embeddings.get(i)) {
+                    values.add(value);
+                }
+                vectors.add(IndexInterface.buildUpsertVectorWithUnsignedIndices(document.getId(), values, null, null,
+                        struct(metadata)));
+            }
+            index.upsert(vectors, namespace);
+        }
+    }
+
+    /**
+     * Vectors in the namespace according to the index statistics, which lag writes slightly
+     */
+    public long count() {
+        NamespaceSummary summary = index.describeIndexStats().getNamespacesMap().get(namespace);
+        return summary != null ? summary.getVectorCount() : 0;
+    }
+
+    @Override
+    public void close() {
+        index.close();
+    }
+
+    private Struct struct(Map<String, Object> metadata) {
+        try {
+            Struct.Builder struct = Struct.newBuilder();
+            JsonFormat.parser().merge(objectMapper.writeValueAsString(metadata), struct);
+            return struct.build();
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Metadata is not representable in Pinecone", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Object> metadata(Struct struct) {
+        try {
+            return objectMapper.readValue(JsonFormat.printer().print(struct), new TypeReference<LinkedHashMap<String, Object>>() {
+            });
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Unreadable Pinecone metadata", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * {@link org.springframework.ai.vectorstore.VectorStore} on pgvector in the application's own PostgreSQL database,
+ * so retrieval is one query on a connection the pool already holds. Embeddings sit in an HNSW cosine index and
+ * metadata in JSONB with a {@code jsonb_path_ops} GIN index; filters are pushed down as jsonpath predicates.
+ * Batches are streamed in with {@code COPY} into a temporary table and upserted in one statement.
+ */
+@Slf4j
+public class PostgresVectorStore extends AbstractObservationVectorStore implements EmbeddedVectorStore {
+
+    public static final String DB_SYSTEM = "pgvector";
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]{0,50}");
+    private static final int DEFAULT_EF_SEARCH = 40; // pgvector's own default
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final JsonPathFilterConverter filterConverter;
+    private final String tableName;
+    private final int dimensions;
+    private final int efSearch;
+    private final boolean iterativeScan;
+
+    protected PostgresVectorStore(Builder builder) {
+        super(builder);
+        if (!IDENTIFIER.matcher(builder.tableName).matches()) {
+            throw new IllegalArgumentException("Invalid pgvector table name: " + builder.tableName);
+        }
+        this.jdbcTemplate = builder.jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(builder.transactionManager);
+        this.objectMapper = builder.objectMapper;
+        this.filterConverter = new JsonPathFilterConverter(builder.objectMapper);
+        this.tableName = builder.tableName;
+        this.dimensions = builder.dimensions;
+        this.efSearch = builder.efSearch;
+        this.iterativeScan = builder.iterativeScan;
+        if (builder.initializeSchema) {
+            initializeSchema(builder.m, builder.efConstruction);
+        }
+        log.info("📂 pgvector store ready on table {} ({} dimensions, ef_search {})", tableName, dimensions, efSearch);
+    }
+
+    public static Builder builder(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel) {
+        return new Builder(jdbcTemplate, embeddingModel);
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        addEmbedded(documents, embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy));
+    }
+
+    @Override
+    public void addEmbedded(List<Document> documents, List<float[]> embeddings) {
+        for (float[] embedding : embeddings) {
+            if (embedding.length != dimensions) {
+                throw new IllegalArgumentException("Embedding has " + embedding.length
+                        + " dimensions but the pgvector table was created with " + dimensions);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            copyAndUpsert(connection, documents, embeddings);
+            return null;
+        }));
+    }
+
+    /**
+     * Pages through the table in id order, each page is a separate query so no transaction stays open
+     */
+    @Override
+    public long exportEmbedded(int batchSize, Consumer<Batch> consumer) {
+        long exported = 0;
+        String lastId = "";
+        while (true) {
+            List<Document> documents = new ArrayList<>(batchSize);
+            List<float[]> embeddings = new ArrayList<>(batchSize);
+            jdbcTemplate.query("SELECT id, content, metadata::text AS metadata, embedding::text AS embedding FROM "
+                    + tableName + " WHERE id > ? ORDER BY id LIMIT ?", resultSet -> {
+                documents.add(Document.builder()
+                        .id(resultSet.getString("id"))
+                        .text(resultSet.getString("content") != null ? resultSet.getString("content") : "")
+                        .metadata(readMetadata(resultSet.getString("id"), resultSet.getString("metadata")))
+                        .build());
+                embeddings.add(fromVectorLiteral(resultSet.getString("embedding")));
+            }, lastId, batchSize);
+            if (documents.isEmpty()) {
+                return exported;
+            }
+            consumer.accept(new Batch(documents, embeddings));
+            exported += documents.size();
+            lastId = documents.get(documents.size() - 1).getId();
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        jdbcTemplate.update("DELETE FROM " + tableName + " WHERE id = ANY (?)",
+                statement -> statement.setArray(1, statement.getConnection().createArrayOf("text", idList.toArray())));
+    }
+
+    @Override
+    protected void doDelete(Filter.Expression filterExpression) {
+        int deleted = jdbcTemplate.update("DELETE FROM " + tableName + " WHERE metadata @@ ?::jsonpath",
+                filterConverter.convert(filterExpression));
+        log.debug("🗑️ Deleted {} rows from {} by filter", deleted, tableName);
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        String query = toVectorLiteral(embeddingModel.embed(request.getQuery()));
+        String jsonPath = request.hasFilterExpression() ? filterConverter.convert(request.getFilterExpression()) : null;
+
+        String sql = "SELECT id, content, metadata::text AS metadata, embedding <=> ?::vector AS distance FROM " + tableName
+                + (jsonPath != null ? " WHERE metadata @@ ?::jsonpath" : "")
+                + " ORDER BY distance LIMIT ?";
+        Object[] parameters = jsonPath != null
+                ? new Object[]{query, jsonPath, request.getTopK()}
+                : new Object[]{query, request.getTopK()};
+
+        boolean tuned = efSearch != DEFAULT_EF_SEARCH || (iterativeScan && jsonPath != null);
+        List<Document> results = !tuned
+                // Default settings need no transaction, the search is a single round trip
+                ? jdbcTemplate.query(sql, documentMapper(), parameters)
+                : transactionTemplate.execute(status -> {
+                    // SET LOCAL only lasts until the end of this transaction
+                    jdbcTemplate.execute("SET LOCAL hnsw.ef_search = " + Math.max(efSearch, request.getTopK()));
+                    if (iterativeScan && jsonPath != null) {
+                        // pgvector 0.8+: keep scanning the graph until enough rows pass the filter
+                        jdbcTemplate.execute("SET LOCAL hnsw.iterative_scan = relaxed_order");
+                    }
+                    return jdbcTemplate.query(sql, documentMapper(), parameters);
+                });
+
+        return results.stream()
+                .filter(document -> document.getScore() >= request.getSimilarityThreshold())
+                .sorted(Comparator.comparing(Document::getScore).reversed())
+                .toList();
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder(DB_SYSTEM, operationName)
+                .collectionName(tableName)
+                .dimensions(dimensions)
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> getNativeClient() {
+        return Optional.of((T) jdbcTemplate);
+    }
+
+    /**
+     * Number of stored chunks
+     */
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM " + tableName, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private void initializeSchema(int m, int efConstruction) {
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + tableName + " ("
+                + "id text PRIMARY KEY, "
+                + "content text, "
+                + "metadata jsonb NOT NULL DEFAULT '{}'::jsonb, "
+                + "embedding vector(" + dimensions + ") NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + tableName + "_embedding_idx ON " + tableName
+                + " USING hnsw (embedding vector_cosine_ops) WITH (m = " + m + ", ef_construction = " + efConstruction + ")");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + tableName + "_metadata_idx ON " + tableName
+                + " USING gin (metadata jsonb_path_ops)");
+    }
+
+    private void copyAndUpsert(Connection connection, List<Document> documents, List<float[]> embeddings) throws SQLException {
+        String staging = tableName + "_staging";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP TABLE IF NOT EXISTS " + staging
+                    + " (id text, content text, metadata jsonb, embedding vector(" + dimensions + ")) ON COMMIT DROP");
+        }
+
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + staging + " (id, content, metadata, embedding) FROM STDIN");
+        try {
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                row.setLength(0);
+                appendCopyField(row, document.getId()).append('\t');
+                appendCopyField(row, document.getText() != null ? document.getText() : "").append('\t');
+                appendCopyField(row, toJson(document.getMetadata())).append('\t');
+                row.append(toVectorLiteral(embeddings.get(i))).append('\n');
+                byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            // DISTINCT ON keeps a batch that repeats an id from hitting the same row twice
+            statement.executeUpdate("INSERT INTO " + tableName + " (id, content, metadata, embedding) "
+                    + "SELECT DISTINCT ON (id) id, content, metadata, embedding FROM " + staging + " "
+                    + "ON CONFLICT (id) DO UPDATE SET content = EXCLUDED.content, metadata = EXCLUDED.metadata, "
+                    + "embedding = EXCLUDED.embedding");
+            statement.execute("TRUNCATE " + staging);
+        }
+    }
+
+    /**
+     * COPY text format: backslash, tab and line breaks are escaped, NUL is not allowed in PostgreSQL text
+     */
+    private static StringBuilder appendCopyField(StringBuilder row, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> row.append("\\\\");
+                case '\t' -> row.append("\\t");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                case '\0' -> {
+                }
+                default -> row.append(c);
+            }
+        }
+        return row;
+    }
+
+    private static String toVectorLiteral(float[] vector) {
+        StringBuilder literal = new StringBuilder(vector.length * 12).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(vector[i]);
+        }
+        return literal.append(']').toString();
+    }
+
+    private static float[] fromVectorLiteral(String literal) {
+        String[] values = literal.substring(1, literal.length() - 1).split(",");
+        float[] vector = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            vector[i] = Float.parseFloat(values[i]);
+        }
+        return vector;
+    }
+
+    private Map<String, Object> readMetadata(String id, String json) throws SQLException {
+        try {
+            return new HashMap<>(objectMapper.readValue(json, METADATA_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Corrupt metadata for " + id, e);
+        }
+    }
+
+    private String toJson(Map<String, Object> metadata) {
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Metadata is not serializable to JSON", e);
+        }
+    }
+
+    private RowMapper<Document> documentMapper() {
+        return (resultSet, rowNumber) -> {
+            Map<String, Object> metadata = readMetadata(resultSet.getString("id"), resultSet.getString("metadata"));
+            float distance = resultSet.getFloat("distance");
+            metadata.put(DocumentMetadata.DISTANCE.value(), distance);
+            return Document.builder()
+                    .id(resultSet.getString("id"))
+                    .text(resultSet.getString("content"))
+                    .metadata(metadata)
+                    .score(1.0 - distance)
+                    .build();
+        };
+    }
+
+    public static class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+        private final JdbcTemplate jdbcTemplate;
+        private PlatformTransactionManager transactionManager;
+        private String tableName = "vector_store";
+        private int dimensions = 1024;
+        private boolean initializeSchema = true;
+        private int m = 16;
+        private int efConstruction = 64;
+        private int efSearch = DEFAULT_EF_SEARCH;
+        private boolean iterativeScan = false;
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private Builder(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        public Builder transactionManager(PlatformTransactionManager transactionManager) {
+            this.transactionManager = transactionManager;
+            return this;
+        }
+
+        public Builder tableName(String tableName) {
+            this.tableName = tableName;
+            return this;
+        }
+
+        public Builder dimensions(int dimensions) {
+            this.dimensions = dimensions;
+            return this;
+        }
+
+        /**
+         * Create the extension, table and indexes if missing
+         */
+        public Builder initializeSchema(boolean initializeSchema) {
+            this.initializeSchema = initializeSchema;
+            return this;
+        }
+
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        public Builder efSearch(int efSearch) {
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        /**
+         * Use pgvector 0.8 iterative index scans for filtered searches, so selective filters still fill topK
+         */
+        public Builder iterativeScan(boolean iterativeScan) {
+            this.iterativeScan = iterativeScan;
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        @Override
+        public PostgresVectorStore build() {
+            if (transactionManager == null) {
+                throw new IllegalStateException("A transaction manager is required for COPY ingestion");
+            }
+            return new PostgresVectorStore(this);
+        }
+    }
+}
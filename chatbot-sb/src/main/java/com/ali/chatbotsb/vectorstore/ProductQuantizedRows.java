@@ -0,0 +1,241 @@
+package com.ali.chatbotsb.vectorstore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Product quantization: each row is split into equal subspaces and every subspace is replaced by the index of
+ * its nearest centroid in a 256-entry codebook, one byte per subspace. Queries are scored with per-query lookup
+ * tables (asymmetric distance). Until enough rows exist to train the codebook, rows are held as int8 codes.
+ */
+final class ProductQuantizedRows implements EncodedRows {
+
+    static final int CENTROIDS = 256;
+    private static final int BLOCK_BYTES = 1 << 24; // 16 MB per block
+
+    private final int dimensions;
+    private final int subspaces;
+    private final int subDimensions;
+    private final int rowsPerBlock;
+    private final Path codebookPath;
+
+    private Int8Rows untrained;
+    private float[][] codebook; // [subspace][centroid * subDimensions + i]
+    private byte[][] blocks = new byte[0][];
+    private int capacity;
+
+    ProductQuantizedRows(int dimensions, int subspaces, Path codebookPath, DotProductKernel kernel) throws IOException {
+        if (dimensions % subspaces != 0) {
+            throw new IllegalArgumentException("Dimensions " + dimensions + " are not divisible into " + subspaces + " subspaces");
+        }
+        this.dimensions = dimensions;
+        this.subspaces = subspaces;
+        this.subDimensions = dimensions / subspaces;
+        this.rowsPerBlock = Math.max(1, BLOCK_BYTES / subspaces);
+        this.codebookPath = codebookPath;
+        this.codebook = readCodebook();
+        this.untrained = codebook == null ? new Int8Rows(dimensions, kernel) : null;
+    }
+
+    boolean isTrained() {
+        return codebook != null;
+    }
+
+    /**
+     * k-means per subspace over a sample of normalized rows, subspaces are trained in parallel
+     */
+    float[][] train(List<float[]> sample, int iterations, long seed) {
+        if (sample.size() < CENTROIDS) {
+            throw new IllegalArgumentException("Product quantization needs at least " + CENTROIDS + " training rows");
+        }
+        float[][] trained = new float[subspaces][];
+        IntStream.range(0, subspaces).parallel().forEach(subspace ->
+                trained[subspace] = kMeans(sample, subspace * subDimensions, iterations, new SplittableRandom(seed + subspace)));
+        return trained;
+    }
+
+    /**
+     * Switch to the trained codebook. The caller re-encodes every row afterwards.
+     */
+    void install(float[][] trained) throws IOException {
+        writeCodebook(trained);
+        this.codebook = trained;
+        this.untrained = null;
+        ensureBlocks(capacity);
+    }
+
+    @Override
+    public void ensureRows(int rows) {
+        capacity = Math.max(capacity, rows);
+        if (untrained != null) {
+            untrained.ensureRows(rows);
+        } else {
+            ensureBlocks(rows);
+        }
+    }
+
+    @Override
+    public void set(int row, float[] normalized) {
+        if (untrained != null) {
+            untrained.set(row, normalized);
+            return;
+        }
+        byte[] block = blocks[row / rowsPerBlock];
+        int offset = (row % rowsPerBlock) * subspaces;
+        for (int subspace = 0; subspace < subspaces; subspace++) {
+            block[offset + subspace] = (byte) nearestCentroid(codebook[subspace], normalized, subspace * subDimensions);
+        }
+    }
+
+    @Override
+    public Scorer prepare(float[] query) {
+        if (untrained != null) {
+            return untrained.prepare(query);
+        }
+        float[] table = new float[subspaces * CENTROIDS];
+        for (int subspace = 0; subspace < subspaces; subspace++) {
+            float[] centroids = codebook[subspace];
+            int start = subspace * subDimensions;
+            for (int centroid = 0; centroid < CENTROIDS; centroid++) {
+                float dot = 0f;
+                for (int i = 0; i < subDimensions; i++) {
+                    dot += centroids[centroid * subDimensions + i] * query[start + i];
+                }
+                table[subspace * CENTROIDS + centroid] = dot;
+            }
+        }
+        byte[][] snapshot = blocks;
+        return row -> {
+            byte[] block = snapshot[row / rowsPerBlock];
+            int offset = (row % rowsPerBlock) * subspaces;
+            float score = 0f;
+            for (int subspace = 0; subspace < subspaces; subspace++) {
+                score += table[subspace * CENTROIDS + (block[offset + subspace] & 0xFF)];
+            }
+            return score;
+        };
+    }
+
+    @Override
+    public boolean approximate() {
+        return true;
+    }
+
+    @Override
+    public long bytesPerRow() {
+        return untrained != null ? untrained.bytesPerRow() : subspaces;
+    }
+
+    @Override
+    public String name() {
+        return untrained != null ? Quantization.PQ.name() + " (untrained, INT8)" : Quantization.PQ.name() + "x" + subspaces;
+    }
+
+    private void ensureBlocks(int rows) {
+        int needed = (rows + rowsPerBlock - 1) / rowsPerBlock;
+        if (needed > blocks.length) {
+            byte[][] grown = Arrays.copyOf(blocks, needed);
+            for (int i = blocks.length; i < needed; i++) {
+                grown[i] = new byte[rowsPerBlock * subspaces];
+            }
+            blocks = grown;
+        }
+    }
+
+    private float[] kMeans(List<float[]> sample, int start, int iterations, SplittableRandom random) {
+        float[] centroids = new float[CENTROIDS * subDimensions];
+        for (int centroid = 0; centroid < CENTROIDS; centroid++) {
+            float[] seed = sample.get(random.nextInt(sample.size()));
+            System.arraycopy(seed, start, centroids, centroid * subDimensions, subDimensions);
+        }
+
+        int[] assignment = new int[sample.size()];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int n = 0; n < sample.size(); n++) {
+                assignment[n] = nearestCentroid(centroids, sample.get(n), start);
+            }
+            float[] sums = new float[CENTROIDS * subDimensions];
+            int[] counts = new int[CENTROIDS];
+            for (int n = 0; n < sample.size(); n++) {
+                float[] row = sample.get(n);
+                int centroid = assignment[n];
+                counts[centroid]++;
+                for (int i = 0; i < subDimensions; i++) {
+                    sums[centroid * subDimensions + i] += row[start + i];
+                }
+            }
+            for (int centroid = 0; centroid < CENTROIDS; centroid++) {
+                if (counts[centroid] == 0) {
+                    // Re-seed empty clusters so no code is wasted
+                    float[] seed = sample.get(random.nextInt(sample.size()));
+                    System.arraycopy(seed, start, centroids, centroid * subDimensions, subDimensions);
+                    continue;
+                }
+                for (int i = 0; i < subDimensions; i++) {
+                    centroids[centroid * subDimensions + i] = sums[centroid * subDimensions + i] / counts[centroid];
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private int nearestCentroid(float[] centroids, float[] row, int start) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int centroid = 0; centroid < CENTROIDS; centroid++) {
+            float distance = 0f;
+            for (int i = 0; i < subDimensions; i++) {
+                float diff = centroids[centroid * subDimensions + i] - row[start + i];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = centroid;
+            }
+        }
+        return best;
+    }
+
+    private float[][] readCodebook() throws IOException {
+        if (!Files.exists(codebookPath)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(codebookPath)))) {
+            if (in.readInt() != dimensions || in.readInt() != subspaces) {
+                // Built for another layout, retrain
+                return null;
+            }
+            float[][] stored = new float[subspaces][CENTROIDS * subDimensions];
+            for (float[] centroids : stored) {
+                for (int i = 0; i < centroids.length; i++) {
+                    centroids[i] = in.readFloat();
+                }
+            }
+            return stored;
+        }
+    }
+
+    private void writeCodebook(float[][] trained) throws IOException {
+        Path temp = codebookPath.resolveSibling(codebookPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(dimensions);
+            out.writeInt(subspaces);
+            for (float[] centroids : trained) {
+                for (float value : centroids) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+        Files.move(temp, codebookPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
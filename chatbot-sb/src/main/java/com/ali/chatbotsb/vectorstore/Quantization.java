@@ -0,0 +1,13 @@
+package com.ali.chatbotsb.vectorstore;
+
+/**
+ * How the exact vector store keeps embeddings in memory for the first search pass
+ */
+public enum Quantization {
+    /** Full 32-bit floats, scores are exact */
+    NONE,
+    /** One signed byte per dimension plus a per-row scale, 4x smaller */
+    INT8,
+    /** One byte per subspace indexing a trained codebook, dimensions / subspaces * 4 times smaller */
+    PQ
+}
@@ -0,0 +1,98 @@
+package com.ali.chatbotsb.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A shard owned by another application node, reached over its internal shard endpoints
+ */
+public class RemoteShard implements ClusterVectorStore.Shard {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    public static final String BASE_PATH = "/api/internal/shard";
+
+    private final String baseUrl;
+    private final RestClient searchClient;
+    private final RestClient writeClient;
+
+    /**
+     * @param searchTimeout read timeout of searches, the coordinator stops waiting at the same deadline
+     * @param writeTimeout  read timeout of writes, which embed nothing but persist a whole batch
+     */
+    public RemoteShard(RestClient.Builder restClientBuilder, String baseUrl, String secret, Duration connectTimeout,
+                       Duration searchTimeout, Duration writeTimeout) {
+        this.baseUrl = baseUrl;
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(connectTimeout).build();
+        this.searchClient = client(restClientBuilder, httpClient, baseUrl, secret, searchTimeout);
+        this.writeClient = client(restClientBuilder, httpClient, baseUrl, secret, writeTimeout);
+    }
+
+    @Override
+    public String name() {
+        return baseUrl;
+    }
+
+    @Override
+    public List<Document> search(SearchRequest request, float[] embedding) {
+        List<ShardProtocol.ShardDocument> hits = searchClient.post()
+                .uri(BASE_PATH + "/search")
+                .body(new ShardProtocol.SearchCall(request.getQuery(), embedding, request.getTopK(),
+                        request.getSimilarityThreshold(), ShardProtocol.toMap(request.getFilterExpression())))
+                .retrieve()
+                .body(new ParameterizedTypeReference<List<ShardProtocol.ShardDocument>>() {
+                });
+        return hits != null ? hits.stream().map(ShardProtocol.ShardDocument::toDocument).toList() : List.of();
+    }
+
+    @Override
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        List<ShardProtocol.ShardDocument> batch = new ArrayList<>(documents.size());
+        documents.forEach(document -> batch.add(ShardProtocol.ShardDocument.of(document)));
+        writeClient.post()
+                .uri(BASE_PATH + "/add")
+                .body(new ShardProtocol.AddCall(batch, embeddings))
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        delete(new ShardProtocol.DeleteCall(ids, null));
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delete(new ShardProtocol.DeleteCall(null, ShardProtocol.toMap(filterExpression)));
+    }
+
+    private void delete(ShardProtocol.DeleteCall call) {
+        writeClient.post()
+                .uri(BASE_PATH + "/delete")
+                .body(call)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    private static RestClient client(RestClient.Builder restClientBuilder, HttpClient httpClient, String baseUrl,
+                                     String secret, Duration readTimeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return restClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .defaultHeader(SECRET_HEADER, secret)
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+}
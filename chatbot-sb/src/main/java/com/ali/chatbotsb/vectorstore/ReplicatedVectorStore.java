@@ -0,0 +1,317 @@
+package com.ali.chatbotsb.vectorstore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Pinecone stays the source of truth and a {@link LocalVectorStore} on this node mirrors it. The replica is
+ * filled from a full export of the index and every write through this store goes to Pinecone first and is then
+ * copied across with the vectors Pinecone stored. Searches are answered by the replica while it is known to be
+ * current and by Pinecone otherwise: before the first bootstrap finishes, while written chunks have not been
+ * copied yet, after a failed consistency check or when the replica throws.
+ */
+@Slf4j
+public class ReplicatedVectorStore implements EmbeddedVectorStore, AutoCloseable {
+
+    public enum State {
+        MISSING, BOOTSTRAPPING, READY, STALE
+    }
+
+    /**
+     * Outcome of one consistency check
+     */
+    public record Consistency(long primaryCount, long replicaCount, int sampledQueries, double overlap,
+                              boolean consistent) {
+    }
+
+    private static final int RECENT_QUERIES = 256;
+
+    private final VectorStore primary;
+    private final LocalVectorStore replica;
+    private final PineconeExporter exporter;
+    private final int pageSize;
+    private final int batchSize;
+
+    private volatile State state;
+    // Written ids not copied yet, with the number of checks that could not find them in Pinecone
+    private final Map<String, Integer> pendingIds = new ConcurrentHashMap<>();
+    // Ids written while a bootstrap runs, kept when the bootstrap prunes what the export did not list
+    private final Set<String> writtenDuringBootstrap = ConcurrentHashMap.newKeySet();
+    private final Deque<SearchRequest> recentQueries = new ArrayDeque<>();
+    private final ReentrantLock bootstrapLock = new ReentrantLock();
+
+    private final Counter replicaSearches;
+    private final Counter primarySearches;
+    private final Counter replicaFailures;
+    private final AtomicLong lastOverlapPermille = new AtomicLong(1000);
+
+    public ReplicatedVectorStore(VectorStore primary, LocalVectorStore replica, PineconeExporter exporter,
+                                 int pageSize, int batchSize, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.exporter = exporter;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        // Whatever is on disk may have missed writes made by other nodes, it is trusted after the first check
+        this.state = replica.size() > 0 ? State.STALE : State.MISSING;
+
+        this.replicaSearches = Counter.builder("vectorstore.replica.searches")
+                .description("Similarity searches by the store that answered them")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.primarySearches = Counter.builder("vectorstore.replica.searches")
+                .description("Similarity searches by the store that answered them")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        this.replicaFailures = Counter.builder("vectorstore.replica.failures")
+                .description("Replica searches that failed and were retried on Pinecone")
+                .register(meterRegistry);
+        Gauge.builder("vectorstore.replica.ready", this, store -> store.isServing() ? 1 : 0)
+                .description("1 while searches are served by the local replica")
+                .register(meterRegistry);
+        Gauge.builder("vectorstore.replica.pending", pendingIds, Map::size)
+                .description("Written chunks not copied to the replica yet")
+                .register(meterRegistry);
+        Gauge.builder("vectorstore.replica.overlap", lastOverlapPermille, overlap -> overlap.get() / 1000.0)
+                .description("Mean top-k overlap between replica and Pinecone in the last check")
+                .register(meterRegistry);
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public int pendingCount() {
+        return pendingIds.size();
+    }
+
+    /**
+     * Whether searches currently go to the replica
+     */
+    public boolean isServing() {
+        return state == State.READY && pendingIds.isEmpty();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        primary.add(documents);
+
+        List<String> ids = documents.stream().map(Document::getId).toList();
+        if (state == State.BOOTSTRAPPING) {
+            writtenDuringBootstrap.addAll(ids);
+        }
+        ids.forEach(id -> pendingIds.put(id, 0));
+        try {
+            copyFromPrimary(ids);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not copy {} chunks to the local replica yet: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Pinecone first, then the replica straight from the given vectors
+     */
+    @Override
+    public void addEmbedded(List<Document> documents, List<float[]> embeddings) {
+        exporter.upsert(documents, embeddings);
+
+        List<String> ids = documents.stream().map(Document::getId).toList();
+        if (state == State.BOOTSTRAPPING) {
+            writtenDuringBootstrap.addAll(ids);
+        }
+        ids.forEach(id -> pendingIds.put(id, 0));
+        try {
+            replica.addEmbedded(documents, embeddings);
+            ids.forEach(pendingIds::remove);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not copy {} chunks to the local replica yet: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Exports from Pinecone, the source of truth
+     */
+    @Override
+    public long exportEmbedded(int batchSize, Consumer<Batch> consumer) {
+        return exporter.export(batchSize, page -> consumer.accept(new Batch(page.documents(), page.embeddings())));
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        primary.delete(idList);
+        idList.forEach(pendingIds::remove);
+        writtenDuringBootstrap.removeAll(idList);
+        replica.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        primary.delete(filterExpression);
+        replica.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        remember(request);
+        if (isServing()) {
+            try {
+                List<Document> results = replica.similaritySearch(request);
+                replicaSearches.increment();
+                return results;
+            } catch (RuntimeException e) {
+                replicaFailures.increment();
+                state = State.STALE;
+                log.warn("⚠️ Local replica search failed, using Pinecone until the next check: {}", e.getMessage());
+            }
+        }
+        primarySearches.increment();
+        return primary.similaritySearch(request);
+    }
+
+    /**
+     * Rebuild the replica from a full export of Pinecone. Searches keep going to Pinecone meanwhile.
+     */
+    public void bootstrap() {
+        if (!bootstrapLock.tryLock()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            state = State.BOOTSTRAPPING;
+            writtenDuringBootstrap.clear();
+            log.info("🔄 Bootstrapping local replica from Pinecone");
+
+            Set<String> exported = new HashSet<>();
+            List<Document> batch = new ArrayList<>();
+            List<float[]> batchEmbeddings = new ArrayList<>();
+            long count = exporter.export(pageSize, page -> {
+                batch.addAll(page.documents());
+                batchEmbeddings.addAll(page.embeddings());
+                page.documents().forEach(document -> exported.add(document.getId()));
+                if (batch.size() >= batchSize) {
+                    replica.addEmbedded(batch, batchEmbeddings);
+                    batch.clear();
+                    batchEmbeddings.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                replica.addEmbedded(batch, batchEmbeddings);
+            }
+
+            // Drop what Pinecone no longer has
+            List<String> orphans = replica.ids().stream()
+                    .filter(id -> !exported.contains(id) && !writtenDuringBootstrap.contains(id))
+                    .toList();
+            if (!orphans.isEmpty()) {
+                replica.delete(orphans);
+            }
+            exported.forEach(pendingIds::remove);
+
+            state = State.READY;
+            log.info("✅ Local replica bootstrapped with {} chunks ({} removed) in {} ms",
+                    count, orphans.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            state = State.MISSING;
+            log.error("❌ Local replica bootstrap failed, searches stay on Pinecone", e);
+        } finally {
+            writtenDuringBootstrap.clear();
+            bootstrapLock.unlock();
+        }
+    }
+
+    /**
+     * Copy pending writes, then compare the replica with Pinecone: document counts, and the top-k ids of recent
+     * queries run against both. A replica that fails either comparison stops serving until it is rebuilt.
+     */
+    public Consistency checkConsistency(int sampleSize, int topK, double minOverlap, long countTolerance) {
+        if (!pendingIds.isEmpty()) {
+            copyFromPrimary(List.copyOf(pendingIds.keySet()));
+            // Pinecone reads catch up within seconds, ids still missing on the second check were deleted meanwhile
+            pendingIds.replaceAll((id, misses) -> misses + 1);
+            pendingIds.values().removeIf(misses -> misses >= 2);
+        }
+
+        long primaryCount = exporter.count();
+        long replicaCount = replica.size();
+
+        List<SearchRequest> samples = samples(sampleSize);
+        double overlapSum = 0;
+        for (SearchRequest sample : samples) {
+            SearchRequest request = SearchRequest.from(sample).topK(topK).similarityThresholdAll().build();
+            Set<String> expected = ids(primary.similaritySearch(request));
+            Set<String> actual = ids(replica.similaritySearch(request));
+            if (expected.isEmpty()) {
+                overlapSum += actual.isEmpty() ? 1 : 0;
+                continue;
+            }
+            actual.retainAll(expected);
+            overlapSum += (double) actual.size() / expected.size();
+        }
+        double overlap = samples.isEmpty() ? 1 : overlapSum / samples.size();
+        lastOverlapPermille.set(Math.round(overlap * 1000));
+
+        boolean consistent = Math.abs(primaryCount - replicaCount) <= countTolerance && overlap >= minOverlap;
+        if (state != State.BOOTSTRAPPING) {
+            state = consistent ? State.READY : State.STALE;
+        }
+        return new Consistency(primaryCount, replicaCount, samples.size(), overlap, consistent);
+    }
+
+    @Override
+    public void close() throws Exception {
+        exporter.close();
+        if (replica instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void copyFromPrimary(List<String> ids) {
+        for (int from = 0; from < ids.size(); from += pageSize) {
+            PineconeExporter.Page page = exporter.fetch(ids.subList(from, Math.min(ids.size(), from + pageSize)));
+            if (!page.documents().isEmpty()) {
+                replica.addEmbedded(page.documents(), page.embeddings());
+                page.documents().forEach(document -> pendingIds.remove(document.getId()));
+            }
+        }
+    }
+
+    private void remember(SearchRequest request) {
+        synchronized (recentQueries) {
+            if (recentQueries.size() == RECENT_QUERIES) {
+                recentQueries.removeFirst();
+            }
+            recentQueries.addLast(request);
+        }
+    }
+
+    private List<SearchRequest> samples(int sampleSize) {
+        synchronized (recentQueries) {
+            List<SearchRequest> recent = new ArrayList<>(recentQueries);
+            return recent.subList(Math.max(0, recent.size() - sampleSize), recent.size());
+        }
+    }
+
+    private static Set<String> ids(List<Document> documents) {
+        Set<String> ids = new HashSet<>();
+        documents.forEach(document -> ids.add(document.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,30 @@
+package com.ali.chatbotsb.vectorstore;
+
+/**
+ * Plain loop, used when the Vector API is not available and as the baseline in benchmarks
+ */
+public final class ScalarDotProductKernel implements DotProductKernel {
+
+    @Override
+    public float dot(float[] matrix, int offset, float[] query) {
+        float sum = 0f;
+        for (int i = 0; i < query.length; i++) {
+            sum += matrix[offset + i] * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(byte[] codes, int offset, float[] query) {
+        float sum = 0f;
+        for (int i = 0; i < query.length; i++) {
+            sum += codes[offset + i] * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,102 @@
+package com.ali.chatbotsb.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Messages exchanged between {@link ClusterVectorStore} nodes. Queries and chunks travel with their embeddings so
+ * only the node that received the request or the upload calls the embedding model. Filter expressions are sent
+ * as a plain tree of maps.
+ */
+public final class ShardProtocol {
+
+    private ShardProtocol() {
+    }
+
+    public record SearchCall(String query, float[] embedding, int topK, double similarityThreshold,
+                             Map<String, Object> filter) {
+    }
+
+    public record AddCall(List<ShardDocument> documents, List<float[]> embeddings) {
+    }
+
+    public record DeleteCall(List<String> ids, Map<String, Object> filter) {
+    }
+
+    public record ShardDocument(String id, String text, Map<String, Object> metadata, Double score) {
+
+        public static ShardDocument of(Document document) {
+            return new ShardDocument(document.getId(), document.getText(), document.getMetadata(), document.getScore());
+        }
+
+        public Document toDocument() {
+            return Document.builder()
+                    .id(id)
+                    .text(text)
+                    .metadata(metadata != null ? new HashMap<>(metadata) : new HashMap<>())
+                    .score(score)
+                    .build();
+        }
+    }
+
+    public static Map<String, Object> toMap(Filter.Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("type", expression.type().name());
+        map.put("left", operand(expression.left()));
+        map.put("right", operand(expression.right()));
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Filter.Expression fromMap(Map<String, Object> map) {
+        if (map == null) {
+            return null;
+        }
+        return new Filter.Expression(Filter.ExpressionType.valueOf((String) map.get("type")),
+                operand((Map<String, Object>) map.get("left")), operand((Map<String, Object>) map.get("right")));
+    }
+
+    private static Map<String, Object> operand(Filter.Operand operand) {
+        if (operand == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (operand instanceof Filter.Expression expression) {
+            map.put("expression", toMap(expression));
+        } else if (operand instanceof Filter.Group group) {
+            map.put("group", toMap(group.content()));
+        } else if (operand instanceof Filter.Key key) {
+            map.put("key", key.key());
+        } else if (operand instanceof Filter.Value value) {
+            map.put("value", value.value());
+        } else {
+            throw new IllegalArgumentException("Unsupported filter operand " + operand);
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Filter.Operand operand(Map<String, Object> map) {
+        if (map == null) {
+            return null;
+        }
+        if (map.containsKey("expression")) {
+            return fromMap((Map<String, Object>) map.get("expression"));
+        }
+        if (map.containsKey("group")) {
+            return new Filter.Group(fromMap((Map<String, Object>) map.get("group")));
+        }
+        if (map.containsKey("key")) {
+            return new Filter.Key((String) map.get("key"));
+        }
+        return new Filter.Value(map.get("value"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.ali.chatbotsb.vectorstore;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Splits the knowledge base into one {@link VectorStore} per medical specialty plus a general shard.
+ * Chunks are written to the shard named by their {@code specialty} metadata. A search whose filter restricts
+ * {@code specialty} (a top-level {@code ==} or {@code in} condition) only queries those shards, in parallel,
+ * and the condition itself is dropped since the shard already implies it; any other search queries every shard.
+ * The default shard is the application's own vector store and is left open by {@link #close()}.
+ */
+@Slf4j
+public class ShardedVectorStore implements EmbeddedVectorStore, AutoCloseable {
+
+    public static final String SHARD_METADATA_KEY = "specialty";
+
+    private final Map<String, VectorStore> shards;
+    private final String defaultShard;
+    private final Executor executor;
+
+    public ShardedVectorStore(Map<String, VectorStore> shards, String defaultShard, Executor executor) {
+        if (!shards.containsKey(defaultShard)) {
+            throw new IllegalArgumentException("Default shard " + defaultShard + " is not one of " + shards.keySet());
+        }
+        this.shards = new LinkedHashMap<>(shards);
+        this.defaultShard = defaultShard;
+        this.executor = executor;
+    }
+
+    public Set<String> shardNames() {
+        return shards.keySet();
+    }
+
+    public VectorStore shard(String name) {
+        return shards.get(name);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        Map<String, List<Document>> byShard = new LinkedHashMap<>();
+        for (Document document : documents) {
+            byShard.computeIfAbsent(shardOf(document), shard -> new ArrayList<>()).add(document);
+        }
+        byShard.forEach((shard, batch) -> {
+            log.debug("📦 Writing {} chunks to shard {}", batch.size(), shard);
+            shards.get(shard).add(batch);
+        });
+    }
+
+    @Override
+    public void addEmbedded(List<Document> documents, List<float[]> embeddings) {
+        Map<String, List<Integer>> byShard = new LinkedHashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            byShard.computeIfAbsent(shardOf(documents.get(i)), shard -> new ArrayList<>()).add(i);
+        }
+        byShard.forEach((shard, positions) -> embedded(shard).addEmbedded(
+                positions.stream().map(documents::get).toList(),
+                positions.stream().map(embeddings::get).toList()));
+    }
+
+    @Override
+    public long exportEmbedded(int batchSize, Consumer<Batch> consumer) {
+        long exported = 0;
+        for (String shard : shards.keySet()) {
+            exported += embedded(shard).exportEmbedded(batchSize, consumer);
+        }
+        return exported;
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        shards.values().forEach(shard -> shard.delete(idList));
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        shards.values().forEach(shard -> shard.delete(filterExpression));
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        Route route = route(request.getFilterExpression());
+        SearchRequest shardRequest = SearchRequest.from(request).filterExpression(route.filter()).build();
+
+        List<VectorStore> targets = route.shards().stream().map(shards::get).toList();
+        if (targets.size() == 1) {
+            return targets.get(0).similaritySearch(shardRequest);
+        }
+
+        // Fan out to all but one shard, the calling thread searches the last one
+        List<CompletableFuture<List<Document>>> pending = new ArrayList<>();
+        for (VectorStore shard : targets.subList(0, targets.size() - 1)) {
+            pending.add(CompletableFuture.supplyAsync(() -> shard.similaritySearch(shardRequest), executor));
+        }
+        List<Document> merged = new ArrayList<>(targets.get(targets.size() - 1).similaritySearch(shardRequest));
+        pending.forEach(future -> merged.addAll(future.join()));
+
+        return merged.stream()
+                .sorted(Comparator.comparing((Document document) -> document.getScore() != null ? document.getScore() : 0.0)
+                        .reversed())
+                .limit(request.getTopK())
+                .toList();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Map.Entry<String, VectorStore> shard : shards.entrySet()) {
+            if (!shard.getKey().equals(defaultShard) && shard.getValue() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private EmbeddedVectorStore embedded(String shard) {
+        if (shards.get(shard) instanceof EmbeddedVectorStore embedded) {
+            return embedded;
+        }
+        throw new IllegalStateException("Shard " + shard + " does not take precomputed embeddings");
+    }
+
+    private String shardOf(Document document) {
+        Object specialty = document.getMetadata().get(SHARD_METADATA_KEY);
+        return specialty != null && shards.containsKey(specialty.toString()) ? specialty.toString() : defaultShard;
+    }
+
+    /**
+     * Shards selected by a top-level specialty condition, and the filter left to evaluate inside them
+     */
+    private Route route(Filter.Expression filter) {
+        Set<String> selected = new LinkedHashSet<>();
+        Filter.Expression remaining = extractShards(filter, selected);
+        if (selected.isEmpty()) {
+            return new Route(shards.keySet(), filter);
+        }
+
+        Set<String> targets = new LinkedHashSet<>();
+        for (String shard : selected) {
+            // Specialties without their own shard live in the default shard
+            targets.add(shards.containsKey(shard) ? shard : defaultShard);
+        }
+        return new Route(targets, remaining);
+    }
+
+    private static Filter.Expression extractShards(Filter.Expression expression, Set<String> selected) {
+        if (expression == null) {
+            return null;
+        }
+        if (expression.type() == Filter.ExpressionType.AND) {
+            Filter.Expression left = extractShards(asExpression(expression.left()), selected);
+            Filter.Expression right = extractShards(asExpression(expression.right()), selected);
+            if (left == null || right == null) {
+                return left != null ? left : right;
+            }
+            return new Filter.Expression(Filter.ExpressionType.AND, left, right);
+        }
+        if ((expression.type() == Filter.ExpressionType.EQ || expression.type() == Filter.ExpressionType.IN)
+                && expression.left() instanceof Filter.Key key && SHARD_METADATA_KEY.equals(key.key())
+                && selected.isEmpty()) {
+            Object value = ((Filter.Value) expression.right()).value();
+            if (value instanceof Collection<?> values) {
+                values.forEach(shard -> selected.add(shard.toString()));
+            } else {
+                selected.add(value.toString());
+            }
+            return null;
+        }
+        return expression;
+    }
+
+    private static Filter.Expression asExpression(Filter.Operand operand) {
+        return operand instanceof Filter.Group group ? group.content() : (Filter.Expression) operand;
+    }
+
+    private record Route(Collection<String> shards, Filter.Expression filter) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.ali.chatbotsb.vectorstore;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Dot product with the widest float lanes the CPU offers (AVX2 / AVX-512 / NEON) using fused multiply-add.
+ * Requires {@code --add-modules jdk.incubator.vector} at runtime.
+ */
+public final class SimdDotProductKernel implements DotProductKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    // Bytes are widened lane for lane, so the byte species needs as many lanes as the float one
+    private static final VectorSpecies<Byte> BYTE_SPECIES = SPECIES.length() >= 8
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(SPECIES.length() * Byte.SIZE))
+            : null;
+
+    @Override
+    public float dot(float[] matrix, int offset, float[] query) {
+        int length = query.length;
+        int upperBound = SPECIES.loopBound(length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < upperBound; i += SPECIES.length()) {
+            FloatVector row = FloatVector.fromArray(SPECIES, matrix, offset + i);
+            FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+            acc = row.fma(q, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += matrix[offset + i] * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(byte[] codes, int offset, float[] query) {
+        int length = query.length;
+        int i = 0;
+        float sum = 0f;
+        if (BYTE_SPECIES != null) {
+            int upperBound = SPECIES.loopBound(length);
+            FloatVector acc = FloatVector.zero(SPECIES);
+            for (; i < upperBound; i += SPECIES.length()) {
+                FloatVector row = (FloatVector) ByteVector.fromArray(BYTE_SPECIES, codes, offset + i)
+                        .convertShape(VectorOperators.B2F, SPECIES, 0);
+                acc = row.fma(FloatVector.fromArray(SPECIES, query, i), acc);
+            }
+            sum = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < length; i++) {
+            sum += codes[offset + i] * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,360 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of a knowledge base: chunk text, metadata and embeddings, little-endian throughout.
+ * <pre>
+ * header   64 bytes: magic, version, dimensions, count, section offsets and lengths, CRC32C of each section
+ *          and of the header itself
+ * vectors  count x dimensions float32, one row per chunk, so the section can be memory-mapped as a matrix
+ * records  per chunk in row order: id, text and metadata JSON, each as a length-prefixed UTF-8 string
+ * </pre>
+ * Both sections are written in one streaming pass (records through a temporary file) and the file is moved into
+ * place once complete. Reading verifies every checksum before the first chunk is handed out.
+ */
+public final class VectorSnapshot {
+
+    public static final String EXTENSION = ".kbsnap";
+
+    private static final int MAGIC = 0x4B42534E; // "KBSN"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int BUFFER_BYTES = 1024 * 1024;
+    private static final long VERIFY_WINDOW_BYTES = 64L * 1024 * 1024;
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private VectorSnapshot() {
+    }
+
+    /**
+     * What a snapshot holds; the checksum is the header CRC, which covers the checksums of both sections
+     */
+    public record Summary(int dimensions, long count, long bytes, String checksum) {
+    }
+
+    public static Writer writer(Path target, ObjectMapper objectMapper) throws IOException {
+        return new Writer(target, objectMapper);
+    }
+
+    /**
+     * Read the header only, without verifying the sections
+     */
+    public static Summary describe(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            return Header.read(channel).summary(channel.size());
+        }
+    }
+
+    /**
+     * Verify all checksums, then hand the chunks to the consumer in row order, up to {@code batchSize} at a time.
+     * Vectors are read through a memory mapping of each batch's rows.
+     */
+    public static Summary read(Path source, int batchSize, ObjectMapper objectMapper,
+                               Consumer<EmbeddedVectorStore.Batch> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            Header header = Header.read(channel);
+            verify(channel, header);
+
+            RecordReader records = new RecordReader(channel, header.recordsOffset());
+            long rowBytes = (long) header.dimensions() * Float.BYTES;
+            for (long from = 0; from < header.count(); from += batchSize) {
+                int rows = (int) Math.min(batchSize, header.count() - from);
+                FloatBuffer vectors = channel.map(FileChannel.MapMode.READ_ONLY,
+                                header.vectorsOffset() + from * rowBytes, rows * rowBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asFloatBuffer();
+
+                List<Document> documents = new ArrayList<>(rows);
+                List<float[]> embeddings = new ArrayList<>(rows);
+                for (int row = 0; row < rows; row++) {
+                    String id = records.string();
+                    String text = records.string();
+                    Map<String, Object> metadata = objectMapper.readValue(records.string(), METADATA_TYPE);
+                    documents.add(Document.builder().id(id).text(text).metadata(new HashMap<>(metadata)).build());
+
+                    float[] embedding = new float[header.dimensions()];
+                    vectors.get(embedding);
+                    embeddings.add(embedding);
+                }
+                consumer.accept(new EmbeddedVectorStore.Batch(documents, embeddings));
+            }
+            return header.summary(channel.size());
+        }
+    }
+
+    private static void verify(FileChannel channel, Header header) throws IOException {
+        long expectedSize = header.recordsOffset() + header.recordsLength();
+        if (channel.size() != expectedSize) {
+            throw new IOException("Snapshot is " + channel.size() + " bytes but its header describes " + expectedSize);
+        }
+        long vectorBytes = header.count() * header.dimensions() * Float.BYTES;
+        if (crc(channel, header.vectorsOffset(), vectorBytes) != header.vectorsCrc()) {
+            throw new IOException("Snapshot vectors do not match their checksum");
+        }
+        if (crc(channel, header.recordsOffset(), header.recordsLength()) != header.recordsCrc()) {
+            throw new IOException("Snapshot records do not match their checksum");
+        }
+    }
+
+    private static int crc(FileChannel channel, long offset, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long position = 0; position < length; position += VERIFY_WINDOW_BYTES) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset + position,
+                    Math.min(VERIFY_WINDOW_BYTES, length - position)));
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Streams chunks into a new snapshot. Nothing appears at the target path until {@link #finish()} succeeds.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temp;
+        private final Path recordsTemp;
+        private final ObjectMapper objectMapper;
+        private final FileChannel vectors;
+        private final FileChannel records;
+        private final ByteBuffer vectorBuffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer recordBuffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C vectorsCrc = new CRC32C();
+        private final CRC32C recordsCrc = new CRC32C();
+
+        private int dimensions = -1;
+        private long count;
+        private long recordsLength;
+        private boolean finished;
+
+        private Writer(Path target, ObjectMapper objectMapper) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.recordsTemp = target.resolveSibling(target.getFileName() + ".records.tmp");
+            this.objectMapper = objectMapper;
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            this.vectors = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.records = FileChannel.open(recordsTemp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            vectors.position(HEADER_BYTES);
+        }
+
+        public void write(List<Document> documents, List<float[]> embeddings) throws IOException {
+            for (int i = 0; i < documents.size(); i++) {
+                float[] embedding = embeddings.get(i);
+                if (dimensions < 0) {
+                    dimensions = embedding.length;
+                } else if (embedding.length != dimensions) {
+                    throw new IllegalArgumentException("Embedding of " + documents.get(i).getId() + " has "
+                            + embedding.length + " dimensions, the snapshot has " + dimensions);
+                }
+                for (float value : embedding) {
+                    if (vectorBuffer.remaining() < Float.BYTES) {
+                        drain(vectorBuffer, vectors, vectorsCrc);
+                    }
+                    vectorBuffer.putFloat(value);
+                }
+
+                Document document = documents.get(i);
+                putString(document.getId());
+                putString(document.getText() != null ? document.getText() : "");
+                putString(objectMapper.writeValueAsString(document.getMetadata()));
+                count++;
+            }
+        }
+
+        /**
+         * Append the records to the vectors, write the header and move the file into place
+         */
+        public Summary finish() throws IOException {
+            drain(vectorBuffer, vectors, vectorsCrc);
+            drain(recordBuffer, records, recordsCrc);
+
+            long recordsOffset = vectors.position();
+            for (long copied = 0; copied < recordsLength; ) {
+                copied += records.transferTo(copied, recordsLength - copied, vectors);
+            }
+
+            Header header = new Header(Math.max(0, dimensions), count, HEADER_BYTES, recordsOffset, recordsLength,
+                    (int) vectorsCrc.getValue(), (int) recordsCrc.getValue(), 0).sealed();
+            ByteBuffer bytes = header.encode();
+            while (bytes.hasRemaining()) {
+                vectors.write(bytes, bytes.position());
+            }
+            vectors.force(true);
+            long size = vectors.size();
+            closeChannels();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return header.summary(size);
+        }
+
+        /**
+         * Discards the partial file unless the snapshot was finished
+         */
+        @Override
+        public void close() throws IOException {
+            closeChannels();
+            if (!finished) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void closeChannels() throws IOException {
+            if (vectors.isOpen()) {
+                vectors.close();
+                records.close();
+                Files.deleteIfExists(recordsTemp);
+            }
+        }
+
+        private void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (recordBuffer.remaining() < Integer.BYTES) {
+                drain(recordBuffer, records, recordsCrc);
+            }
+            recordBuffer.putInt(bytes.length);
+            recordsLength += Integer.BYTES;
+            for (int offset = 0; offset < bytes.length; ) {
+                if (!recordBuffer.hasRemaining()) {
+                    drain(recordBuffer, records, recordsCrc);
+                }
+                int length = Math.min(recordBuffer.remaining(), bytes.length - offset);
+                recordBuffer.put(bytes, offset, length);
+                offset += length;
+            }
+            recordsLength += bytes.length;
+        }
+
+        private static void drain(ByteBuffer buffer, FileChannel channel, CRC32C crc) throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Sequential reader of length-prefixed strings, growing its buffer for strings longer than it
+     */
+    private static final class RecordReader {
+
+        private final FileChannel channel;
+        private long position;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN).limit(0);
+
+        private RecordReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        String string() throws IOException {
+            ensure(Integer.BYTES);
+            int length = buffer.getInt();
+            ensure(length);
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            if (bytes > buffer.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                grown.put(buffer);
+                buffer = grown;
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < bytes) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Snapshot records end in the middle of a record");
+                }
+                position += read;
+            }
+            buffer.flip();
+        }
+    }
+
+    private record Header(int dimensions, long count, long vectorsOffset, long recordsOffset, long recordsLength,
+                          int vectorsCrc, int recordsCrc, int headerCrc) {
+
+        static Header read(FileChannel channel) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, bytes.position()) < 0) {
+                    throw new IOException("Not a knowledge-base snapshot, the file is shorter than its header");
+                }
+            }
+            bytes.flip();
+            if (bytes.getInt(0) != MAGIC) {
+                throw new IOException("Not a knowledge-base snapshot");
+            }
+            if (bytes.getInt(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + bytes.getInt(4));
+            }
+            Header header = new Header(bytes.getInt(8), bytes.getLong(16), bytes.getLong(24), bytes.getLong(32),
+                    bytes.getLong(40), bytes.getInt(48), bytes.getInt(52), bytes.getInt(56));
+            if (header.headerCrc() != headerCrc(bytes)) {
+                throw new IOException("Snapshot header does not match its checksum");
+            }
+            return header;
+        }
+
+        ByteBuffer encode() {
+            return ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putInt(8, dimensions)
+                    .putLong(16, count)
+                    .putLong(24, vectorsOffset)
+                    .putLong(32, recordsOffset)
+                    .putLong(40, recordsLength)
+                    .putInt(48, vectorsCrc)
+                    .putInt(52, recordsCrc)
+                    .putInt(56, headerCrc);
+        }
+
+        Header sealed() {
+            return new Header(dimensions, count, vectorsOffset, recordsOffset, recordsLength, vectorsCrc, recordsCrc,
+                    headerCrc(encode()));
+        }
+
+        Summary summary(long bytes) {
+            return new Summary(dimensions, count, bytes, String.format("%08x", headerCrc));
+        }
+
+        private static int headerCrc(ByteBuffer bytes) {
+            CRC32C crc = new CRC32C();
+            crc.update(bytes.duplicate().position(0).limit(56));
+            return (int) crc.getValue();
+        }
+    }
+}
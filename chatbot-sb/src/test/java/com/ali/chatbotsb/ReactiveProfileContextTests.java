@@ -0,0 +1,135 @@
+package com.ali.chatbotsb;
+
+import com.ali.chatbotsb.config.ChatRSocketConfig;
+import com.ali.chatbotsb.dto.ChatRequest;
+import com.ali.chatbotsb.dto.ChatStreamEvent;
+import com.ali.chatbotsb.jwt.JwtService;
+import com.ali.chatbotsb.jwt.UserDetailsServiceImpl;
+import com.ali.chatbotsb.repository.UserRepository;
+import com.ali.chatbotsb.service.DataInitializationService;
+import com.ali.chatbotsb.service.ReactiveChatService;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.rsocket.server.LocalRSocketServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Starts the {@code reactive} profile without a database: neither pool connects before its first use, Hibernate
+ * is told the dialect instead of reading it from a connection and the seeding runner is replaced. The RSocket
+ * chat channel is exercised over TCP with the chat turn itself stubbed.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.rsocket.server.port=0",
+        "app.warmup.enabled=false"
+})
+@ActiveProfiles("reactive")
+class ReactiveProfileContextTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final UserDetails USER = User.withUsername("user@chatbot.com")
+            .password("unused")
+            .authorities(new SimpleGrantedAuthority("ROLE_USER"))
+            .build();
+
+    @MockitoBean
+    private DataInitializationService dataInitializationService;
+
+    @MockitoBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @MockitoBean
+    private ReactiveChatService reactiveChatService;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ObjectProvider<RSocketRequester.Builder> requesterBuilder;
+
+    @LocalRSocketServerPort
+    private int rsocketPort;
+
+    @Test
+    void servesJpaAndR2dbcSideBySide() {
+        assertThat(context.getBeansOfType(DataSource.class)).hasSize(1);
+        assertThat(context.getBeansOfType(ConnectionFactory.class)).hasSize(1);
+        assertThat(context.getBean(UserRepository.class)).isNotNull();
+        assertThat(context.getBeansOfType(PlatformTransactionManager.class)).containsKey("transactionManager");
+        assertThat(context.getBean(TransactionalOperator.class)).isNotNull();
+    }
+
+    @Test
+    void streamsChatTurnsOverAnAuthenticatedRSocketConnection() {
+        when(userDetailsService.loadUserByUsername(USER.getUsername())).thenReturn(USER);
+        when(reactiveChatService.streamChat(any(), eq(USER.getUsername()), any()))
+                .thenReturn(Flux.just(ChatStreamEvent.token("Hello"), ChatStreamEvent.token(" there")));
+
+        RSocketRequester requester = connect(jwtService.generateAccessToken(USER));
+        try {
+            List<ChatStreamEvent> events = stream(requester, ChatRequest.builder().message("Hi").build());
+            assertThat(events).extracting(ChatStreamEvent::getContent).containsExactly("Hello", " there");
+
+            // Validated like the HTTP endpoints, before any chat turn starts
+            List<ChatStreamEvent> invalid = stream(requester, ChatRequest.builder().message(" ").build());
+            assertThat(invalid).singleElement().satisfies(event -> {
+                assertThat(event.getType()).isEqualTo(ChatStreamEvent.ERROR);
+                assertThat(event.getContent()).isEqualTo("Message cannot be empty");
+            });
+        } finally {
+            requester.dispose();
+        }
+    }
+
+    @Test
+    void rejectsRSocketConnectionWithoutValidToken() {
+        RSocketRequester requester = connect("not-a-token");
+        try {
+            assertThatThrownBy(() -> stream(requester, ChatRequest.builder().message("Hi").build()))
+                    .hasMessageContaining("Invalid");
+        } finally {
+            requester.dispose();
+        }
+    }
+
+    private RSocketRequester connect(String accessToken) {
+        return requesterBuilder.getObject()
+                .setupMetadata(accessToken, ChatRSocketConfig.BEARER_TOKEN_MIME_TYPE)
+                .tcp("localhost", rsocketPort);
+    }
+
+    private static List<ChatStreamEvent> stream(RSocketRequester requester, ChatRequest request) {
+        return requester.route("chat.stream")
+                .data(request)
+                .retrieveFlux(ChatStreamEvent.class)
+                .collectList()
+                .block(TIMEOUT);
+    }
+}
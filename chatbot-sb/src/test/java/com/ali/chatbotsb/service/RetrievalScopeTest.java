@@ -0,0 +1,71 @@
+package com.ali.chatbotsb.service;
+
+import com.ali.chatbotsb.vectorstore.FilterExpressionEvaluator;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetrievalScopeTest {
+
+    @Test
+    void userSeesPublicAndUserChunksOnly() {
+        Filter.Expression filter = scope("ROLE_USER").toFilterExpression();
+
+        assertThat(FilterExpressionEvaluator.matches(filter, chunk("PUBLIC"))).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(filter, chunk("USER"))).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(filter, chunk("USER", "RESEARCHER"))).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(filter, chunk("RESEARCHER", "USER"))).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(filter, chunk("MEDICAL_PROFESSIONAL"))).isFalse();
+        assertThat(FilterExpressionEvaluator.matches(filter, chunk("MEDICAL_PROFESSIONAL", "RESEARCHER"))).isFalse();
+        // Chunks without roles are not public, the allowed-roles migration backfills them
+        assertThat(FilterExpressionEvaluator.matches(filter, Map.of())).isFalse();
+        assertThat(FilterExpressionEvaluator.matches(filter, Map.of("allowed_roles", List.of()))).isFalse();
+    }
+
+    @Test
+    void roleNamesAreTakenFromRoleAuthoritiesOnly() {
+        RetrievalScope scope = scope("ROLE_MEDICAL_PROFESSIONAL", "MEDICAL_PROFESSIONAL_READ", "ADMIN");
+
+        assertThat(scope.roles()).containsExactly("MEDICAL_PROFESSIONAL");
+        assertThat(FilterExpressionEvaluator.matches(scope.toFilterExpression(), chunk("MEDICAL_PROFESSIONAL"))).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(scope.toFilterExpression(), chunk("ADMIN"))).isFalse();
+    }
+
+    @Test
+    void adminIsUnrestricted() {
+        RetrievalScope scope = scope("ROLE_USER", "ROLE_ADMIN");
+
+        assertThat(scope.roles()).isNull();
+        assertThat(scope.toFilterExpression()).isNull();
+        assertThat(FilterExpressionEvaluator.matches(scope.toFilterExpression(), chunk("MEDICAL_PROFESSIONAL"))).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(scope.toFilterExpression(), Map.of())).isTrue();
+    }
+
+    @Test
+    void categoryAndDocumentNarrowTheRoleFilter() {
+        RetrievalScope scope = RetrievalScope.of(" cardiology ", "doc-1", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        Filter.Expression filter = scope.toFilterExpression();
+
+        assertThat(FilterExpressionEvaluator.matches(filter,
+                Map.of("category", "cardiology", "document_id", "doc-1", "allowed_roles", List.of("PUBLIC")))).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(filter,
+                Map.of("category", "oncology", "document_id", "doc-1", "allowed_roles", List.of("PUBLIC")))).isFalse();
+        assertThat(FilterExpressionEvaluator.matches(filter,
+                Map.of("category", "cardiology", "document_id", "doc-1", "allowed_roles", List.of("MEDICAL_PROFESSIONAL")))).isFalse();
+        assertThat(RetrievalScope.of(" ", null, List.of()).category()).isNull();
+    }
+
+    private static RetrievalScope scope(String... authorities) {
+        return RetrievalScope.of(null, null, Arrays.stream(authorities).map(SimpleGrantedAuthority::new).toList());
+    }
+
+    private static Map<String, Object> chunk(String... allowedRoles) {
+        return Map.of("allowed_roles", List.of(allowedRoles));
+    }
+}
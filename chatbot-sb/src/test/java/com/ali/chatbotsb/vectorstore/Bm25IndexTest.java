@@ -0,0 +1,156 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Bm25IndexTest {
+
+    private static final List<Document> CHUNKS = List.of(
+            chunk("metformin", "Metformin is the first line treatment for type 2 diabetes", "endocrinology"),
+            chunk("insulin", "Insulin dosing in type 1 diabetes depends on carbohydrate intake", "endocrinology"),
+            chunk("statin", "Statins lower LDL cholesterol and cardiovascular risk", "cardiology"),
+            chunk("aspirin", "Low dose aspirin after myocardial infarction", "cardiology"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ranksChunksByQueryTerms() throws Exception {
+        try (Bm25Index index = open()) {
+            index.add(CHUNKS);
+
+            List<Document> results = index.search("metformin diabetes", 10);
+            assertThat(results).extracting(Document::getId).containsExactly("metformin", "insulin");
+            assertThat(results.get(0).getScore()).isGreaterThan(results.get(1).getScore());
+            assertThat(results.get(0).getMetadata()).containsKey(Bm25Index.SCORE_METADATA_KEY);
+            assertThat(index.search("unrelated words", 10)).isEmpty();
+        }
+    }
+
+    @Test
+    void searchesOnlyChunksMatchingTheFilter() throws Exception {
+        try (Bm25Index index = open()) {
+            index.add(CHUNKS);
+
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            assertThat(index.search("diabetes cholesterol aspirin", 10, b.eq("category", "cardiology").build()))
+                    .extracting(Document::getId)
+                    .containsExactlyInAnyOrder("statin", "aspirin");
+        }
+    }
+
+    @Test
+    void reopensFromPostingsSnapshot() throws Exception {
+        try (Bm25Index index = open()) {
+            index.add(CHUNKS.subList(0, 2));
+            index.add(CHUNKS.subList(2, 4));
+        }
+
+        try (Bm25Index reopened = open()) {
+            assertThat(reopened.size()).isEqualTo(4);
+            assertThat(reopened.search("cholesterol", 10)).extracting(Document::getText)
+                    .containsExactly(CHUNKS.get(2).getText());
+        }
+    }
+
+    @Test
+    void rebuildsPostingsFromLogWhenSnapshotIsMissingOrStale() throws Exception {
+        try (Bm25Index index = open()) {
+            index.add(CHUNKS.subList(0, 2));
+        }
+        byte[] staleSnapshot = Files.readAllBytes(directory.resolve("postings.bin"));
+        try (Bm25Index index = open()) {
+            index.add(CHUNKS.subList(2, 4));
+        }
+
+        // Snapshot from before the last batch, as if the process died between the log sync and the rewrite
+        Files.write(directory.resolve("postings.bin"), staleSnapshot);
+        try (Bm25Index reopened = open()) {
+            assertThat(reopened.size()).isEqualTo(4);
+            assertThat(reopened.search("aspirin", 10)).extracting(Document::getId).containsExactly("aspirin");
+        }
+
+        Files.delete(directory.resolve("postings.bin"));
+        try (Bm25Index reopened = open()) {
+            assertThat(reopened.search("insulin", 10)).extracting(Document::getId).containsExactly("insulin");
+        }
+    }
+
+    @Test
+    void reAddedIdReplacesPreviousVersion() throws Exception {
+        try (Bm25Index index = open()) {
+            index.add(CHUNKS);
+            index.add(List.of(chunk("statin", "Statins may cause myopathy", "pharmacology")));
+
+            assertThat(index.size()).isEqualTo(4);
+            assertThat(index.search("cholesterol", 10)).isEmpty();
+            List<Document> results = index.search("statins myopathy", 10);
+            assertThat(results).extracting(Document::getId).containsExactly("statin");
+            assertThat(results.get(0).getMetadata()).containsEntry("category", "pharmacology");
+
+            // Replaced versions no longer count towards the document frequency of their terms
+            for (int i = 0; i < 5; i++) {
+                index.add(List.of(chunk("statin", "Statins may cause myopathy", "pharmacology")));
+            }
+            assertThat(index.search("statins", 10).get(0).getScore()).isPositive();
+        }
+
+        // Once from the postings snapshot, once rebuilt from the log
+        for (int reopen = 0; reopen < 2; reopen++) {
+            try (Bm25Index reopened = open()) {
+                assertThat(reopened.size()).isEqualTo(4);
+                assertThat(reopened.search("statins cholesterol", 10)).extracting(Document::getText)
+                        .containsExactly("Statins may cause myopathy");
+                assertThat(reopened.search("statins", 10).get(0).getScore()).isPositive();
+            }
+            Files.delete(directory.resolve("postings.bin"));
+        }
+    }
+
+    @Test
+    void ignoresRecordTornByCrash() throws Exception {
+        Path log = directory.resolve("documents.log");
+        try (Bm25Index index = open()) {
+            index.add(CHUNKS);
+        }
+        long complete = Files.size(log);
+        try (Bm25Index index = open()) {
+            index.add(List.of(chunk("lost", "Half written when the process died", "cardiology")));
+        }
+
+        // Cut the last record in half, as a crash in the middle of an append would
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(complete + (Files.size(log) - complete) / 2);
+        }
+        Files.delete(directory.resolve("postings.bin"));
+
+        try (Bm25Index reopened = open()) {
+            assertThat(reopened.size()).isEqualTo(4);
+            reopened.add(List.of(chunk("warfarin", "Warfarin needs INR monitoring", "cardiology")));
+        }
+        try (Bm25Index reopened = open()) {
+            assertThat(reopened.size()).isEqualTo(5);
+            assertThat(reopened.search("warfarin", 10)).extracting(Document::getId).containsExactly("warfarin");
+        }
+    }
+
+    private Bm25Index open() {
+        return new Bm25Index(directory, 1.2f, 0.75f, new ObjectMapper());
+    }
+
+    private static Document chunk(String id, String text, String category) {
+        return Document.builder().id(id).text(text).metadata(Map.of("category", category)).build();
+    }
+}
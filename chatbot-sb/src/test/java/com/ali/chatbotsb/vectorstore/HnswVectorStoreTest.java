@@ -0,0 +1,246 @@
+package com.ali.chatbotsb.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswVectorStoreTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recallMatchesExactStore() throws Exception {
+        Random random = new Random(7);
+        List<Document> documents = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            documents.add(document("doc-" + i, "chunk " + i, Map.of()));
+            embeddings.add(randomVector(random));
+        }
+
+        try (HnswVectorStore hnsw = hnsw(directory.resolve("hnsw"));
+             ExactVectorStore exact = ExactVectorStore.builder(new UnusedEmbeddingModel())
+                     .dataDirectory(directory.resolve("exact"))
+                     .dimensions(DIMENSIONS)
+                     .build()) {
+            // Small batches take the incremental insert path
+            for (int from = 0; from < documents.size(); from += 100) {
+                hnsw.addEmbedded(documents.subList(from, from + 100), embeddings.subList(from, from + 100));
+                exact.addEmbedded(documents.subList(from, from + 100), embeddings.subList(from, from + 100));
+            }
+
+            assertThat(recall(hnsw, exact, random)).isGreaterThanOrEqualTo(0.95);
+        }
+    }
+
+    @Test
+    void bulkBuildRecallMatchesSerialBuild() throws Exception {
+        Random random = new Random(31);
+        List<Document> documents = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            documents.add(document("doc-" + i, "chunk " + i, Map.of()));
+            embeddings.add(randomVector(random));
+        }
+
+        try (HnswVectorStore serial = hnsw(directory.resolve("serial"));
+             HnswVectorStore bulk = HnswVectorStore.builder(new UnusedEmbeddingModel())
+                     .dataDirectory(directory.resolve("bulk"))
+                     .dimensions(DIMENSIONS)
+                     .bulkBuildThreshold(1)
+                     .buildParallelism(4)
+                     .build();
+             ExactVectorStore exact = ExactVectorStore.builder(new UnusedEmbeddingModel())
+                     .dataDirectory(directory.resolve("exact"))
+                     .dimensions(DIMENSIONS)
+                     .build()) {
+            for (int from = 0; from < documents.size(); from += 100) {
+                serial.addEmbedded(documents.subList(from, from + 100), embeddings.subList(from, from + 100));
+            }
+            // One batch, linked by concurrent workers whose back-links land on nodes still being linked
+            bulk.addEmbedded(documents, embeddings);
+            exact.addEmbedded(documents, embeddings);
+
+            double serialRecall = recall(serial, exact, new Random(37));
+            double bulkRecall = recall(bulk, exact, new Random(37));
+            assertThat(bulkRecall).isGreaterThanOrEqualTo(0.95).isGreaterThanOrEqualTo(serialRecall - 0.02);
+        }
+    }
+
+    private static double recall(HnswVectorStore hnsw, ExactVectorStore exact, Random random) {
+        double recall = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<String> expected = ids(exact.searchEmbedded(request(10), query));
+            Set<String> found = ids(hnsw.searchEmbedded(request(10), query));
+            found.retainAll(expected);
+            recall += found.size() / 10.0;
+        }
+        return recall / queries;
+    }
+
+    @Test
+    void reopensWithDocumentsAndGraphIntact() throws Exception {
+        Random random = new Random(11);
+        List<float[]> embeddings = new ArrayList<>();
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            documents.add(document("doc-" + i, "text " + i, Map.of("source", "file-" + (i % 3) + ".pdf")));
+            embeddings.add(randomVector(random));
+        }
+        try (HnswVectorStore store = hnsw(directory)) {
+            store.addEmbedded(documents, embeddings);
+            store.delete(List.of("doc-5"));
+        }
+
+        try (HnswVectorStore reopened = hnsw(directory)) {
+            assertThat(reopened.size()).isEqualTo(299);
+            assertThat(reopened.ids()).doesNotContain("doc-5").contains("doc-6");
+
+            Document top = reopened.searchEmbedded(request(1), embeddings.get(42)).get(0);
+            assertThat(top.getId()).isEqualTo("doc-42");
+            assertThat(top.getText()).isEqualTo("text 42");
+            assertThat(top.getMetadata()).containsEntry("source", "file-0.pdf");
+            assertThat(reopened.searchEmbedded(request(5), embeddings.get(5)))
+                    .extracting(Document::getId)
+                    .doesNotContain("doc-5");
+        }
+    }
+
+    @Test
+    void reAddedIdReplacesPreviousVersion() throws Exception {
+        Random random = new Random(13);
+        float[] first = randomVector(random);
+        float[] second = randomVector(random);
+
+        try (HnswVectorStore store = hnsw(directory)) {
+            store.addEmbedded(List.of(document("a", "old", Map.of())), List.of(first));
+            store.addEmbedded(List.of(document("a", "new", Map.of())), List.of(second));
+
+            assertThat(store.size()).isEqualTo(1);
+            List<Document> results = store.searchEmbedded(request(5), first);
+            assertThat(results).hasSize(1);
+            assertThat(results.get(0).getText()).isEqualTo("new");
+            assertThat(store.searchEmbedded(request(1), second).get(0).getScore()).isGreaterThan(0.999);
+        }
+
+        try (HnswVectorStore reopened = hnsw(directory)) {
+            assertThat(reopened.size()).isEqualTo(1);
+            assertThat(reopened.searchEmbedded(request(1), second).get(0).getText()).isEqualTo("new");
+        }
+    }
+
+    @Test
+    void searchesOnlyDocumentsMatchingTheFilter() throws Exception {
+        Random random = new Random(17);
+        List<Document> documents = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            documents.add(document("doc-" + i, "text " + i, Map.of(
+                    "category", i % 2 == 0 ? "cardiology" : "oncology",
+                    "allowed_roles", i % 4 == 0 ? List.of("DOCTOR") : List.of("PUBLIC"))));
+            embeddings.add(randomVector(random));
+        }
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+        try (HnswVectorStore store = hnsw(directory)) {
+            store.addEmbedded(documents, embeddings);
+
+            Filter.Expression cardiology = b.eq("category", "cardiology").build();
+            List<Document> results = store.searchEmbedded(request(20, cardiology), embeddings.get(1));
+            assertThat(results).isNotEmpty().extracting(Document::getId).doesNotContain("doc-1");
+            assertThat(results).allSatisfy(document ->
+                    assertThat(document.getMetadata()).containsEntry("category", "cardiology"));
+
+            // List-valued metadata matches IN when any element does
+            Filter.Expression publicOncology = b.and(b.eq("category", "oncology"),
+                    b.in("allowed_roles", "PUBLIC", "NURSE")).build();
+            List<Document> oncology = store.searchEmbedded(request(10, publicOncology), embeddings.get(3));
+            assertThat(oncology.get(0).getId()).isEqualTo("doc-3");
+            assertThat(oncology).allSatisfy(document -> {
+                assertThat(document.getMetadata()).containsEntry("category", "oncology");
+                assertThat(document.getMetadata()).containsEntry("allowed_roles", List.of("PUBLIC"));
+            });
+
+            Filter.Expression restricted = b.nin("allowed_roles", List.of("PUBLIC")).build();
+            List<Document> doctorsOnly = store.searchEmbedded(request(10, restricted), embeddings.get(8));
+            assertThat(doctorsOnly.get(0).getId()).isEqualTo("doc-8");
+            assertThat(doctorsOnly).allSatisfy(document ->
+                    assertThat(document.getMetadata()).containsEntry("allowed_roles", List.of("DOCTOR")));
+        }
+    }
+
+    private HnswVectorStore hnsw(Path dataDirectory) {
+        return HnswVectorStore.builder(new UnusedEmbeddingModel())
+                .dataDirectory(dataDirectory)
+                .dimensions(DIMENSIONS)
+                .build();
+    }
+
+    static Document document(String id, String text, Map<String, Object> metadata) {
+        return Document.builder().id(id).text(text).metadata(metadata).build();
+    }
+
+    static SearchRequest request(int topK) {
+        return SearchRequest.builder().query("").topK(topK).similarityThresholdAll().build();
+    }
+
+    static SearchRequest request(int topK, Filter.Expression filter) {
+        return SearchRequest.builder().query("").topK(topK).similarityThresholdAll().filterExpression(filter).build();
+    }
+
+    static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    static Set<String> ids(List<Document> documents) {
+        Set<String> ids = new HashSet<>();
+        documents.forEach(document -> ids.add(document.getId()));
+        return ids;
+    }
+
+    /**
+     * Tests add precomputed vectors, so the store never calls its embedding model
+     */
+    static final class UnusedEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException("Tests add precomputed vectors");
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            throw new UnsupportedOperationException("Tests add precomputed vectors");
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.ali.chatbotsb.service.RetrievalScope;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonPathFilterConverterTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String QUOTED = "say \"hi\" \\ bye";
+
+    private final JsonPathFilterConverter converter = new JsonPathFilterConverter(OBJECT_MAPPER);
+    private final FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+    @Test
+    void userScopeTranslatesToPublicOrOwnRoles() {
+        Filter.Expression filter = RetrievalScope.of(null, null, List.of(new SimpleGrantedAuthority("ROLE_USER")))
+                .toFilterExpression();
+        String jsonPath = converter.convert(filter);
+
+        assertThat(jsonPath).isEqualTo("($.\"allowed_roles\" == \"USER\" || $.\"allowed_roles\" == \"PUBLIC\")");
+        assertThat(LaxJsonPath.matches(jsonPath, Map.of("allowed_roles", List.of("PUBLIC")))).isTrue();
+        assertThat(LaxJsonPath.matches(jsonPath, Map.of("allowed_roles", List.of("RESEARCHER", "USER")))).isTrue();
+        assertThat(LaxJsonPath.matches(jsonPath, Map.of("allowed_roles", List.of("MEDICAL_PROFESSIONAL")))).isFalse();
+        assertThat(LaxJsonPath.matches(jsonPath, Map.of())).isFalse();
+    }
+
+    @Test
+    void negationsMatchDocumentsWithoutTheKey() {
+        String ne = converter.convert(b.ne("category", "oncology").build());
+        String nin = converter.convert(b.nin("allowed_roles", "MEDICAL_PROFESSIONAL").build());
+
+        assertThat(ne).isEqualTo("!($.\"category\" == \"oncology\")");
+        assertThat(LaxJsonPath.matches(ne, Map.of())).isTrue();
+        assertThat(LaxJsonPath.matches(nin, Map.of())).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(b.ne("category", "oncology").build(), Map.of())).isTrue();
+        assertThat(FilterExpressionEvaluator.matches(b.nin("allowed_roles", "MEDICAL_PROFESSIONAL").build(), Map.of())).isTrue();
+    }
+
+    @Test
+    void quotesInKeysAndValuesAreEscaped() {
+        String jsonPath = converter.convert(b.eq("it's \"key\"", QUOTED).build());
+
+        assertThat(jsonPath).isEqualTo("$.\"it's \\\"key\\\"\" == \"say \\\"hi\\\" \\\\ bye\"");
+        assertThat(LaxJsonPath.matches(jsonPath, Map.of("it's \"key\"", QUOTED))).isTrue();
+        assertThat(LaxJsonPath.matches(jsonPath, Map.of("it's \"key\"", "say \"hi"))).isFalse();
+        // Keys quoted by the text filter syntax lose their quotes, as in the evaluator
+        assertThat(converter.convert(new Filter.Expression(Filter.ExpressionType.EQ,
+                new Filter.Key("'category'"), new Filter.Value("cardiology"))))
+                .isEqualTo("$.\"category\" == \"cardiology\"");
+    }
+
+    @Test
+    void translationAgreesWithEvaluator() {
+        List<Filter.Expression> expressions = new ArrayList<>();
+        for (String role : List.of("ROLE_USER", "ROLE_MEDICAL_PROFESSIONAL")) {
+            expressions.add(RetrievalScope.of("cardiology", null, List.of(new SimpleGrantedAuthority(role)))
+                    .toFilterExpression());
+            expressions.add(RetrievalScope.of(null, null, List.of(new SimpleGrantedAuthority(role)))
+                    .toFilterExpression());
+        }
+        expressions.add(b.eq("category", "cardiology").build());
+        expressions.add(b.ne("category", "cardiology").build());
+        expressions.add(b.in("allowed_roles", "USER", "PUBLIC").build());
+        expressions.add(b.in("allowed_roles", List.of()).build());
+        expressions.add(b.nin("allowed_roles", "MEDICAL_PROFESSIONAL").build());
+        expressions.add(b.not(b.eq("allowed_roles", "PUBLIC")).build());
+        expressions.add(b.or(b.eq("category", "oncology"), b.gt("year", 2020)).build());
+        expressions.add(b.and(b.gte("year", 2019), b.lt("year", 2021)).build());
+        expressions.add(b.and(b.group(b.or(b.eq("category", "oncology"), b.lte("year", 2019))),
+                b.ne("allowed_roles", "PUBLIC")).build());
+        expressions.add(b.eq("title", QUOTED).build());
+        expressions.add(b.ne("title", QUOTED).build());
+
+        List<Map<String, Object>> chunks = List.of(
+                Map.of(),
+                Map.of("allowed_roles", List.of()),
+                Map.of("allowed_roles", List.of("PUBLIC")),
+                Map.of("allowed_roles", "USER"),
+                Map.of("allowed_roles", List.of("USER", "RESEARCHER")),
+                Map.of("allowed_roles", List.of("MEDICAL_PROFESSIONAL"), "category", "cardiology", "year", 2021),
+                Map.of("allowed_roles", List.of("PUBLIC", "MEDICAL_PROFESSIONAL"), "category", "oncology", "year", 2019),
+                Map.of("category", "cardiology", "year", 2020, "title", QUOTED),
+                Map.of("title", "say \"hi"));
+
+        for (Filter.Expression expression : expressions) {
+            String jsonPath = converter.convert(expression);
+            for (Map<String, Object> chunk : chunks) {
+                assertThat(LaxJsonPath.matches(jsonPath, chunk))
+                        .as("%s on %s", jsonPath, chunk)
+                        .isEqualTo(FilterExpressionEvaluator.matches(expression, chunk));
+            }
+        }
+    }
+
+    /**
+     * Evaluates the jsonpath subset the converter emits the way PostgreSQL's {@code @@} does in lax mode: a missing
+     * key yields an empty sequence, an array is unwrapped, and a comparison holds when any item satisfies it.
+     * Comparing values of different JSON types fails the test rather than guessing at PostgreSQL's unknown result.
+     */
+    private static final class LaxJsonPath {
+
+        private final String text;
+        private final JsonNode document;
+        private int position;
+
+        private LaxJsonPath(String text, JsonNode document) {
+            this.text = text;
+            this.document = document;
+        }
+
+        static boolean matches(String jsonPath, Map<String, Object> metadata) {
+            LaxJsonPath parser = new LaxJsonPath(jsonPath, OBJECT_MAPPER.valueToTree(new HashMap<>(metadata)));
+            boolean result = parser.or();
+            parser.skipSpaces();
+            if (parser.position != jsonPath.length()) {
+                throw new IllegalArgumentException("Unexpected input at " + parser.position + " in " + jsonPath);
+            }
+            return result;
+        }
+
+        private boolean or() {
+            boolean result = and();
+            while (consume("||")) {
+                result |= and();
+            }
+            return result;
+        }
+
+        private boolean and() {
+            boolean result = unary();
+            while (consume("&&")) {
+                result &= unary();
+            }
+            return result;
+        }
+
+        private boolean unary() {
+            if (consume("!")) {
+                return !unary();
+            }
+            if (consume("(")) {
+                boolean result = or();
+                expect(")");
+                return result;
+            }
+            if (consume("false")) {
+                return false;
+            }
+            return comparison();
+        }
+
+        private boolean comparison() {
+            expect("$.");
+            JsonNode value = document.get(jsonString().asText());
+            String operator = consume("==") ? "==" : consume(">=") ? ">=" : consume("<=") ? "<="
+                    : consume(">") ? ">" : consume("<") ? "<" : null;
+            if (operator == null) {
+                throw new IllegalArgumentException("Expected a comparison at " + position + " in " + text);
+            }
+            JsonNode literal = literal();
+
+            List<JsonNode> items = new ArrayList<>();
+            if (value != null && value.isArray()) {
+                value.forEach(items::add);
+            } else if (value != null) {
+                items.add(value);
+            }
+            for (JsonNode item : items) {
+                if (item.getNodeType() != literal.getNodeType()) {
+                    throw new IllegalStateException("Comparing " + item + " with " + literal + " in " + text);
+                }
+                int order = item.isNumber() ? Double.compare(item.asDouble(), literal.asDouble())
+                        : item.asText().compareTo(literal.asText());
+                boolean holds = switch (operator) {
+                    case "==" -> order == 0;
+                    case ">=" -> order >= 0;
+                    case "<=" -> order <= 0;
+                    case ">" -> order > 0;
+                    default -> order < 0;
+                };
+                if (holds) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private JsonNode literal() {
+            skipSpaces();
+            if (text.charAt(position) == '"') {
+                return jsonString();
+            }
+            int start = position;
+            while (position < text.length() && " )|&".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            return parse(text.substring(start, position));
+        }
+
+        private JsonNode jsonString() {
+            skipSpaces();
+            int start = position;
+            expect("\"");
+            while (text.charAt(position) != '"') {
+                position += text.charAt(position) == '\\' ? 2 : 1;
+            }
+            position++;
+            return parse(text.substring(start, position));
+        }
+
+        private JsonNode parse(String json) {
+            try {
+                return OBJECT_MAPPER.readTree(json);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid literal " + json + " in " + text, e);
+            }
+        }
+
+        private boolean consume(String token) {
+            skipSpaces();
+            if (text.startsWith(token, position)) {
+                position += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!consume(token)) {
+                throw new IllegalArgumentException("Expected " + token + " at " + position + " in " + text);
+            }
+        }
+
+        private void skipSpaces() {
+            while (position < text.length() && text.charAt(position) == ' ') {
+                position++;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.ali.chatbotsb.vectorstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.ali.chatbotsb.vectorstore.HnswVectorStoreTest.document;
+import static com.ali.chatbotsb.vectorstore.HnswVectorStoreTest.randomVector;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VectorSnapshotTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int HEADER_BYTES = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws Exception {
+        Random random = new Random(19);
+        List<Document> documents = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            documents.add(document("doc-" + i, "text " + i, Map.of("category", "cardiology", "chunk", i,
+                    "allowed_roles", List.of("PUBLIC"))));
+            embeddings.add(randomVector(random));
+        }
+        Path path = write(documents, embeddings);
+
+        VectorSnapshot.Summary described = VectorSnapshot.describe(path);
+        assertThat(described.count()).isEqualTo(25);
+        assertThat(described.dimensions()).isEqualTo(embeddings.get(0).length);
+        assertThat(described.bytes()).isEqualTo(Files.size(path));
+
+        List<EmbeddedVectorStore.Batch> batches = new ArrayList<>();
+        VectorSnapshot.Summary read = VectorSnapshot.read(path, 10, OBJECT_MAPPER, batches::add);
+        assertThat(read).isEqualTo(described);
+        assertThat(batches).extracting(batch -> batch.documents().size()).containsExactly(10, 10, 5);
+
+        List<Document> readDocuments = batches.stream().flatMap(batch -> batch.documents().stream()).toList();
+        List<float[]> readEmbeddings = batches.stream().flatMap(batch -> batch.embeddings().stream()).toList();
+        for (int i = 0; i < documents.size(); i++) {
+            assertThat(readDocuments.get(i).getId()).isEqualTo("doc-" + i);
+            assertThat(readDocuments.get(i).getText()).isEqualTo("text " + i);
+            assertThat(readDocuments.get(i).getMetadata())
+                    .containsEntry("category", "cardiology")
+                    .containsEntry("chunk", i)
+                    .containsEntry("allowed_roles", List.of("PUBLIC"));
+            assertThat(readEmbeddings.get(i)).containsExactly(embeddings.get(i));
+        }
+    }
+
+    @Test
+    void unfinishedWriterLeavesNoSnapshot() throws Exception {
+        Path path = directory.resolve("kb" + VectorSnapshot.EXTENSION);
+        try (VectorSnapshot.Writer writer = VectorSnapshot.writer(path, OBJECT_MAPPER)) {
+            writer.write(List.of(document("a", "text", Map.of())), List.of(randomVector(new Random(23))));
+        }
+
+        assertThat(path).doesNotExist();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsCorruptedVectorsBeforeHandingOutAnyChunk() throws Exception {
+        Path path = sample();
+        flipByte(path, HEADER_BYTES + 3);
+
+        assertRejected(path, "vectors do not match");
+    }
+
+    @Test
+    void rejectsCorruptedRecordsBeforeHandingOutAnyChunk() throws Exception {
+        Path path = sample();
+        flipByte(path, Files.size(path) - 2);
+
+        assertRejected(path, "records do not match");
+    }
+
+    @Test
+    void rejectsCorruptedHeaderAndTruncatedFile() throws Exception {
+        Path path = sample();
+        flipByte(path, 8);
+        assertRejected(path, "header does not match");
+        assertThatThrownBy(() -> VectorSnapshot.describe(path)).isInstanceOf(IOException.class);
+
+        Path truncated = sample();
+        try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(truncated) - 1);
+        }
+        assertRejected(truncated, "header describes");
+    }
+
+    private Path sample() throws IOException {
+        Random random = new Random(29);
+        List<Document> documents = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            documents.add(document("doc-" + i, "text " + i, Map.of("chunk", i)));
+            embeddings.add(randomVector(random));
+        }
+        return write(documents, embeddings);
+    }
+
+    private Path write(List<Document> documents, List<float[]> embeddings) throws IOException {
+        Path path = Files.createTempFile(directory, "kb", VectorSnapshot.EXTENSION);
+        try (VectorSnapshot.Writer writer = VectorSnapshot.writer(path, OBJECT_MAPPER)) {
+            writer.write(documents, embeddings);
+            writer.finish();
+        }
+        return path;
+    }
+
+    private static void flipByte(Path path, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) (buffer.get(0) ^ 0x5A)).rewind();
+            channel.write(buffer, position);
+        }
+    }
+
+    private static void assertRejected(Path path, String message) {
+        List<EmbeddedVectorStore.Batch> batches = new ArrayList<>();
+        assertThatThrownBy(() -> VectorSnapshot.read(path, 2, OBJECT_MAPPER, batches::add))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining(message);
+        assertThat(batches).isEmpty();
+    }
+}